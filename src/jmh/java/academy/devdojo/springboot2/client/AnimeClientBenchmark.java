@@ -0,0 +1,153 @@
+package academy.devdojo.springboot2.client;
+
+import academy.devdojo.springboot2.CursoDevdojoSpringboot2EssentialsApplication;
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.requests.AnimePostRequestBody;
+import academy.devdojo.springboot2.responses.BulkItemResponseBody;
+import academy.devdojo.springboot2.security.TokenService;
+import academy.devdojo.springboot2.service.AnimeBulkService;
+import academy.devdojo.springboot2.wrapper.PageableResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The typed {@link AnimeClient} against what the old {@code SpringClient} demo did, a new
+ * {@link RestTemplate} per call and page number paging, both over loopback to the real application
+ * on an in-memory H2 database seeded with {@link #ANIMES} animes. Both sides send the same bearer
+ * token, so the difference is the connection reuse, the prefetch and the multi-get.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnimeClientBenchmark {
+
+    private static final int ANIMES = 1_000;
+    private static final int PAGE_SIZE = 100;
+    private static final ParameterizedTypeReference<PageableResponse<Anime>> ANIME_PAGE =
+            new ParameterizedTypeReference<>() {
+            };
+
+    private ConfigurableApplicationContext context;
+
+    private String baseUri;
+
+    private HttpEntity<Void> authorized;
+
+    private AnimeClient animeClient;
+
+    private List<Long> ids;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(CursoDevdojoSpringboot2EssentialsApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:client-benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.devtools.restart.enabled=false",
+                        "--springdoc.api-docs.enabled=false",
+                        "--spring.main.banner-mode=off",
+                        "--devdojo.rate-limit.enabled=false",
+                        "--logging.level.root=warn");
+
+        List<AnimePostRequestBody> animePostRequestBodies = new ArrayList<>(ANIMES);
+        for (int i = 0; i < ANIMES; i++) {
+            animePostRequestBodies.add(new AnimePostRequestBody("Anime " + i));
+        }
+        ids = context.getBean(AnimeBulkService.class).saveAll(animePostRequestBodies).getItems().stream()
+                .map(BulkItemResponseBody::getId)
+                .limit(AnimeClient.MAX_IDS_PER_REQUEST)
+                .collect(Collectors.toList());
+
+        String token = context.getBean(TokenService.class)
+                .issue(User.withUsername("admin2").password("").roles("USER", "ADMIN").build());
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+        authorized = new HttpEntity<>(headers);
+
+        baseUri = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        animeClient = AnimeClient.builder(baseUri)
+                .bearerToken(token)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Anime restTemplateFindById() {
+        return new RestTemplate().exchange(baseUri + "/animes/{id}", HttpMethod.GET, authorized, Anime.class,
+                ids.get(0)).getBody();
+    }
+
+    @Benchmark
+    public Anime animeClientFindById() {
+        return animeClient.findById(ids.get(0));
+    }
+
+    @Benchmark
+    public int restTemplateFindHundredByIdOneByOne() {
+        int found = 0;
+        for (Long id : ids) {
+            if (new RestTemplate().exchange(baseUri + "/animes/{id}", HttpMethod.GET, authorized, Anime.class, id)
+                    .getBody() != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int animeClientFindHundredByIds() {
+        return animeClient.findByIds(ids).size();
+    }
+
+    @Benchmark
+    public long restTemplateWalkAllPages() {
+        long count = 0;
+        for (int page = 0; ; page++) {
+            PageableResponse<Anime> animePage = new RestTemplate().exchange(baseUri + "/animes?page={page}&size={size}",
+                    HttpMethod.GET, authorized, ANIME_PAGE, page, PAGE_SIZE).getBody();
+            count += animePage.getNumberOfElements();
+            if (animePage.isLast()) {
+                return count;
+            }
+        }
+    }
+
+    @Benchmark
+    public long animeClientStreamAll() {
+        try (Stream<Anime> animes = animeClient.streamAll(PAGE_SIZE)) {
+            return animes.count();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package academy.devdojo.springboot2.domain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UsuarioBenchmark {
+
+    private final Usuario usuario = Usuario.builder()
+            .name("DevDojo Academy")
+            .username("devdojo")
+            .authorities("ROLE_ADMIN,ROLE_USER")
+            .build();
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return usuario.getAuthorities();
+    }
+}
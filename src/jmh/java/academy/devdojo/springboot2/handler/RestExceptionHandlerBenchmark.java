@@ -0,0 +1,60 @@
+package academy.devdojo.springboot2.handler;
+
+import academy.devdojo.springboot2.controller.AnimeController;
+import academy.devdojo.springboot2.exception.BadRequestException;
+import academy.devdojo.springboot2.requests.AnimePostRequestBody;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RestExceptionHandlerBenchmark {
+
+    private final RestExceptionHandler restExceptionHandler = new RestExceptionHandler();
+
+    private final BadRequestException badRequestException = new BadRequestException("Anime not found");
+
+    private MethodArgumentNotValidException methodArgumentNotValidException;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(new AnimePostRequestBody(""), "anime");
+        bindingResult.addError(new FieldError("anime", "name", "The anime name cannot be empty"));
+
+        MethodParameter parameter = new MethodParameter(
+                AnimeController.class.getMethod("save", AnimePostRequestBody.class), 0);
+        methodArgumentNotValidException = new MethodArgumentNotValidException(parameter, bindingResult);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> handleBadRequestException() {
+        return restExceptionHandler.handleBadRequestException(badRequestException);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> handleMethodArgumentNotValid() {
+        return restExceptionHandler.handleMethodArgumentNotValid(methodArgumentNotValidException, new HttpHeaders(),
+                HttpStatus.BAD_REQUEST, null);
+    }
+}
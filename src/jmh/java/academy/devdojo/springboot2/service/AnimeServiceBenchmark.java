@@ -0,0 +1,124 @@
+package academy.devdojo.springboot2.service;
+
+import academy.devdojo.springboot2.CursoDevdojoSpringboot2EssentialsApplication;
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.requests.AnimeField;
+import academy.devdojo.springboot2.requests.AnimeNameMatch;
+import academy.devdojo.springboot2.requests.AnimePostRequestBody;
+import academy.devdojo.springboot2.requests.PageCount;
+import academy.devdojo.springboot2.responses.AnimeSuggestionResponseBody;
+import academy.devdojo.springboot2.responses.AnimeView;
+import academy.devdojo.springboot2.wrapper.CursorPage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The real service, repository, cache and name index over an in-memory H2 database seeded with
+ * {@link #ANIMES} animes. The numbers include Hibernate and H2, not the network round trip to Postgres.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnimeServiceBenchmark {
+
+    private static final int ANIMES = 10_000;
+
+    // the largest page GET /animes accepts, where skipping the entities pays off the most
+    private static final Pageable LARGE_PAGE = PageRequest.of(0, 100, Sort.by("id"));
+
+    private static final Set<AnimeField> ID_AND_NAME = EnumSet.of(AnimeField.ID, AnimeField.NAME);
+
+    private ConfigurableApplicationContext context;
+
+    private AnimeService animeService;
+
+    private Long animeId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(CursoDevdojoSpringboot2EssentialsApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.devtools.restart.enabled=false",
+                        "--springdoc.api-docs.enabled=false",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=warn");
+
+        List<AnimePostRequestBody> animePostRequestBodies = new ArrayList<>(ANIMES);
+        for (int i = 0; i < ANIMES; i++) {
+            animePostRequestBodies.add(new AnimePostRequestBody("Anime " + i));
+        }
+        context.getBean(AnimeBulkService.class).saveAll(animePostRequestBodies);
+
+        animeService = context.getBean(AnimeService.class);
+        animeId = animeService.listAll(PageRequest.of(0, 1)).getContent().get(0).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Anime findByIdCached() {
+        return animeService.findByIdOrThrowBadRequestException(animeId);
+    }
+
+    @Benchmark
+    public Page<Anime> listAllFirstPage() {
+        return animeService.listAll(PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public Slice<Anime> listSliceLargePage() {
+        return animeService.listSlice(LARGE_PAGE);
+    }
+
+    @Benchmark
+    public Slice<AnimeView> listViewsLargePage() {
+        return animeService.listViews(ID_AND_NAME, LARGE_PAGE, PageCount.NONE);
+    }
+
+    @Benchmark
+    public CursorPage<Anime> listAfterCursorFirstPage() {
+        return animeService.listAfterCursor(null, 20);
+    }
+
+    @Benchmark
+    public Page<Anime> searchByPrefix() {
+        return animeService.search("anime 12", AnimeNameMatch.PREFIX, PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public List<AnimeSuggestionResponseBody> suggest() {
+        return animeService.suggest("anime 12", 10);
+    }
+}
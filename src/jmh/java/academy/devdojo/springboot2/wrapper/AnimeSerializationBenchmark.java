@@ -0,0 +1,115 @@
+package academy.devdojo.springboot2.wrapper;
+
+import academy.devdojo.springboot2.domain.Anime;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson with the same builder defaults Spring Boot uses for the HTTP message converters, for each
+ * of the formats the api negotiates. The serialize benchmarks also report the size of what they
+ * wrote as the bytes secondary result, what goes on the wire before any compression.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnimeSerializationBenchmark {
+
+    private static final TypeReference<PageableResponse<Anime>> PAGEABLE_RESPONSE_TYPE = new TypeReference<>() {
+    };
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    private ObjectMapper objectMapper;
+
+    private Anime anime;
+
+    private Page<Anime> animePage;
+
+    private byte[] animePageBytes;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = objectMapper(format);
+
+        List<Anime> animes = new ArrayList<>(pageSize);
+        for (long id = 1; id <= pageSize; id++) {
+            animes.add(Anime.builder().id(id).name("Anime " + id).version(0L).build());
+        }
+        anime = animes.get(0);
+        animePage = new PageImpl<>(animes, PageRequest.of(0, pageSize), 10_000);
+        animePageBytes = objectMapper.writeValueAsBytes(animePage);
+    }
+
+    @Benchmark
+    public byte[] serializeAnime(PayloadSize payloadSize) throws Exception {
+        byte[] bytes = objectMapper.writeValueAsBytes(anime);
+        payloadSize.bytes = bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public byte[] serializePage(PayloadSize payloadSize) throws Exception {
+        byte[] bytes = objectMapper.writeValueAsBytes(animePage);
+        payloadSize.bytes = bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public PageableResponse<Anime> deserializePageableResponse() throws Exception {
+        return objectMapper.readValue(animePageBytes, PAGEABLE_RESPONSE_TYPE);
+    }
+
+    @Benchmark
+    public byte[] roundTripPageableResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(objectMapper.readValue(animePageBytes, PAGEABLE_RESPONSE_TYPE));
+    }
+
+    /**
+     * Not summed over the invocations, each one overwrites the size, so the result is the size itself.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+        public long bytes;
+    }
+
+    private static ObjectMapper objectMapper(String format) {
+        switch (format) {
+            case "smile":
+                return Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build();
+            case "cbor":
+                return Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+            default:
+                return Jackson2ObjectMapperBuilder.json().build();
+        }
+    }
+}
@@ -0,0 +1,531 @@
+package academy.devdojo.springboot2.client;
+
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.requests.AnimePostRequestBody;
+import academy.devdojo.springboot2.requests.AnimePutRequestBody;
+import academy.devdojo.springboot2.requests.LoginPostRequestBody;
+import academy.devdojo.springboot2.responses.BulkResponseBody;
+import academy.devdojo.springboot2.responses.TokenResponseBody;
+import academy.devdojo.springboot2.wrapper.CursorPage;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Typed client for the {@code /animes} api. One instance keeps one {@link HttpClient}, so the
+ * connections stay open and are reused between calls; build it once and share it between threads.
+ * Every call has a blocking form and an {@code Async} form returning a {@link CompletableFuture}.
+ * GET, PUT and DELETE are retried with exponential backoff on I/O errors, timeouts and 502, 503
+ * and 504 answers; POST is never retried because it is not idempotent. The bodies are JSON unless
+ * a binary {@link Format} is chosen.
+ */
+@Log4j2
+public class AnimeClient {
+
+    /**
+     * Largest number of ids the api accepts in one multi-get, bigger lists are split.
+     */
+    public static final int MAX_IDS_PER_REQUEST = 100;
+
+    private static final TypeReference<Anime> ANIME = new TypeReference<>() {
+    };
+    private static final TypeReference<List<Anime>> ANIME_LIST = new TypeReference<>() {
+    };
+    private static final TypeReference<CursorPage<Anime>> ANIME_CURSOR_PAGE = new TypeReference<>() {
+    };
+    private static final TypeReference<BulkResponseBody> BULK_RESPONSE = new TypeReference<>() {
+    };
+    private static final TypeReference<TokenResponseBody> TOKEN_RESPONSE = new TypeReference<>() {
+    };
+    // a token is renewed this long before the server would reject it
+    private static final long TOKEN_RENEWAL_MARGIN_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final URI baseUri;
+    private final Format format;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final Duration requestTimeout;
+    private final int maxRetries;
+    private final Duration retryBackoff;
+    private final String staticAuthorization;
+    private final LoginPostRequestBody login;
+
+    private CompletableFuture<AccessToken> accessToken;
+
+    private AnimeClient(Builder builder) {
+        this.baseUri = builder.baseUri;
+        this.format = builder.format;
+        this.objectMapper = builder.objectMapper != null ? builder.objectMapper : builder.format.createObjectMapper();
+        this.requestTimeout = builder.requestTimeout;
+        this.maxRetries = builder.maxRetries;
+        this.retryBackoff = builder.retryBackoff;
+        this.staticAuthorization = builder.authorization;
+        this.login = builder.login;
+
+        HttpClient.Builder httpClientBuilder = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(builder.connectTimeout)
+                .followRedirects(HttpClient.Redirect.NEVER);
+        if (builder.executor != null) {
+            httpClientBuilder.executor(builder.executor);
+        }
+        this.httpClient = httpClientBuilder.build();
+    }
+
+    public static Builder builder(String baseUri) {
+        return new Builder(URI.create(baseUri.endsWith("/") ? baseUri.substring(0, baseUri.length() - 1) : baseUri));
+    }
+
+    public Anime findById(long id) {
+        return join(findByIdAsync(id));
+    }
+
+    public CompletableFuture<Anime> findByIdAsync(long id) {
+        return send(get("/animes/" + id), true, ANIME);
+    }
+
+    /**
+     * Multi-get, the ids are sent {@value #MAX_IDS_PER_REQUEST} at a time in parallel requests.
+     * Ids that do not exist are left out of the result, which is sorted by id.
+     */
+    public List<Anime> findByIds(Collection<Long> ids) {
+        return join(findByIdsAsync(ids));
+    }
+
+    public CompletableFuture<List<Anime>> findByIdsAsync(Collection<Long> ids) {
+        List<Long> distinctIds = ids.stream().distinct().collect(Collectors.toList());
+        if (distinctIds.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        List<CompletableFuture<List<Anime>>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinctIds.size(); from += MAX_IDS_PER_REQUEST) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + MAX_IDS_PER_REQUEST, distinctIds.size()));
+            String joinedIds = chunk.stream().map(String::valueOf).collect(Collectors.joining(","));
+            chunks.add(send(get("/animes/by-ids?ids=" + joinedIds), true, ANIME_LIST));
+        }
+        return CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> chunks.stream()
+                        .flatMap(chunk -> chunk.join().stream())
+                        .sorted(Comparator.comparing(Anime::getId))
+                        .collect(Collectors.toList()));
+    }
+
+    public List<Anime> findByName(String name) {
+        return join(findByNameAsync(name));
+    }
+
+    public CompletableFuture<List<Anime>> findByNameAsync(String name) {
+        return send(get("/animes/find?name=" + encode(name)), true, ANIME_LIST);
+    }
+
+    /**
+     * @param cursor the {@code nextCursor} of the previous page, null for the first page
+     */
+    public CursorPage<Anime> listByCursor(String cursor, int size) {
+        return join(listByCursorAsync(cursor, size));
+    }
+
+    public CompletableFuture<CursorPage<Anime>> listByCursorAsync(String cursor, int size) {
+        String query = "?size=" + size + (cursor == null ? "" : "&cursor=" + encode(cursor));
+        return send(get("/animes/cursor" + query), true, ANIME_CURSOR_PAGE);
+    }
+
+    /**
+     * Lazily walks every anime in id order, {@code pageSize} at a time, prefetching the next page
+     * while the current one is consumed. Close the stream when it is not read to the end, so the
+     * pending request is dropped.
+     */
+    public Stream<Anime> streamAll(int pageSize) {
+        PrefetchingCursorIterator<Anime> iterator =
+                new PrefetchingCursorIterator<>(cursor -> listByCursorAsync(cursor, pageSize));
+        Spliterator<Anime> spliterator = Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(iterator::cancel);
+    }
+
+    public Anime save(AnimePostRequestBody animePostRequestBody) {
+        return join(saveAsync(animePostRequestBody));
+    }
+
+    public CompletableFuture<Anime> saveAsync(AnimePostRequestBody animePostRequestBody) {
+        return send(withBody("POST", "/animes", animePostRequestBody), false, ANIME);
+    }
+
+    public void replace(AnimePutRequestBody animePutRequestBody) {
+        join(replaceAsync(animePutRequestBody));
+    }
+
+    public CompletableFuture<Void> replaceAsync(AnimePutRequestBody animePutRequestBody) {
+        return send(withBody("PUT", "/animes", animePutRequestBody), true, null);
+    }
+
+    /**
+     * Needs an admin user. When a retry follows a delete the server did apply, the retry gets
+     * a 400 because the anime is already gone.
+     */
+    public void delete(long id) {
+        join(deleteAsync(id));
+    }
+
+    public CompletableFuture<Void> deleteAsync(long id) {
+        return send(request("/animes/admin/" + id).DELETE(), true, null);
+    }
+
+    public BulkResponseBody saveAll(List<AnimePostRequestBody> animePostRequestBodies) {
+        return join(saveAllAsync(animePostRequestBodies));
+    }
+
+    public CompletableFuture<BulkResponseBody> saveAllAsync(List<AnimePostRequestBody> animePostRequestBodies) {
+        return send(withBody("POST", "/animes/bulk", animePostRequestBodies), false, BULK_RESPONSE);
+    }
+
+    public BulkResponseBody replaceAll(List<AnimePutRequestBody> animePutRequestBodies) {
+        return join(replaceAllAsync(animePutRequestBodies));
+    }
+
+    public CompletableFuture<BulkResponseBody> replaceAllAsync(List<AnimePutRequestBody> animePutRequestBodies) {
+        return send(withBody("PUT", "/animes/bulk", animePutRequestBodies), true, BULK_RESPONSE);
+    }
+
+    /**
+     * Needs an admin user.
+     */
+    public BulkResponseBody deleteAll(List<Long> ids) {
+        return join(deleteAllAsync(ids));
+    }
+
+    public CompletableFuture<BulkResponseBody> deleteAllAsync(List<Long> ids) {
+        return send(withBody("DELETE", "/animes/admin/bulk", ids), true, BULK_RESPONSE);
+    }
+
+    static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof AnimeClientException) {
+                throw (AnimeClientException) e.getCause();
+            }
+            throw new AnimeClientException("The anime api could not be reached", e.getCause());
+        }
+    }
+
+    private <T> CompletableFuture<T> send(HttpRequest.Builder request, boolean idempotent, TypeReference<T> type) {
+        return exchange(request, idempotent, true).thenApply(response -> read(response, type));
+    }
+
+    private CompletableFuture<HttpResponse<byte[]>> exchange(HttpRequest.Builder request, boolean idempotent,
+                                                             boolean renewTokenOnUnauthorized) {
+        return authorization().thenCompose(authorization -> {
+            authorization.ifPresent(value -> request.setHeader("Authorization", value));
+            return attempt(request.build(), idempotent ? maxRetries : 0, 0);
+        }).thenCompose(response -> {
+            // the token may have been revoked or the server restarted with another secret
+            if (response.statusCode() == 401 && login != null && renewTokenOnUnauthorized) {
+                invalidateAccessToken();
+                return exchange(request, idempotent, false);
+            }
+            return CompletableFuture.completedFuture(response);
+        });
+    }
+
+    private CompletableFuture<HttpResponse<byte[]>> attempt(HttpRequest request, int retriesLeft, int attempt) {
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, error) -> {
+                    if (retriesLeft > 0 && isRetryable(response, error)) {
+                        long delayMillis = backoffMillis(attempt, response);
+                        log.debug("Retrying {} {} in {} ms, attempt {}", request.method(), request.uri(), delayMillis,
+                                attempt + 1);
+                        Executor delayed = CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS);
+                        return CompletableFuture.runAsync(() -> {
+                        }, delayed).thenCompose(ignored -> attempt(request, retriesLeft - 1, attempt + 1));
+                    }
+                    return error == null
+                            ? CompletableFuture.completedFuture(response)
+                            : CompletableFuture.<HttpResponse<byte[]>>failedFuture(error);
+                })
+                .thenCompose(Function.identity());
+    }
+
+    private static boolean isRetryable(HttpResponse<byte[]> response, Throwable error) {
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            // a timeout is an IOException too
+            return cause instanceof IOException;
+        }
+        int status = response.statusCode();
+        return status == 502 || status == 503 || status == 504;
+    }
+
+    private long backoffMillis(int attempt, HttpResponse<byte[]> response) {
+        long exponential = retryBackoff.toMillis() << Math.min(attempt, 16);
+        // full jitter, so clients that failed together do not come back together
+        long delay = ThreadLocalRandom.current().nextLong(exponential / 2, exponential + 1);
+        long retryAfterMillis = response == null ? 0 : response.headers().firstValue("Retry-After")
+                .map(AnimeClient::parseRetryAfterMillis)
+                .orElse(0L);
+        return Math.max(delay, retryAfterMillis);
+    }
+
+    private static long parseRetryAfterMillis(String retryAfter) {
+        try {
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+        } catch (NumberFormatException e) {
+            // the http date form is not sent by this api
+            return 0;
+        }
+    }
+
+    private <T> T read(HttpResponse<byte[]> response, TypeReference<T> type) {
+        if (response.statusCode() < 200 || response.statusCode() >= 300) {
+            throw new AnimeClientException(response.statusCode(), describe(response));
+        }
+        if (type == null || response.body().length == 0) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(response.body(), type);
+        } catch (IOException e) {
+            throw new AnimeClientException("The anime api answer could not be read", e);
+        }
+    }
+
+    /**
+     * The error body as text, a binary one is converted to its JSON form.
+     */
+    private String describe(HttpResponse<byte[]> response) {
+        boolean binary = format != Format.JSON && response.headers().firstValue("Content-Type")
+                .map(contentType -> contentType.startsWith(format.getMediaType()))
+                .orElse(false);
+        if (binary) {
+            try {
+                return objectMapper.readTree(response.body()).toString();
+            } catch (IOException e) {
+                log.debug("The error body could not be read as {}", format, e);
+            }
+        }
+        return new String(response.body(), StandardCharsets.UTF_8);
+    }
+
+    private CompletableFuture<Optional<String>> authorization() {
+        if (login == null) {
+            return CompletableFuture.completedFuture(Optional.ofNullable(staticAuthorization));
+        }
+        CompletableFuture<AccessToken> token;
+        synchronized (this) {
+            if (accessToken == null || accessToken.isCompletedExceptionally()
+                    || (accessToken.isDone() && accessToken.join().isExpired())) {
+                accessToken = requestAccessToken();
+            }
+            token = accessToken;
+        }
+        return token.thenApply(value -> Optional.of(value.getAuthorization()));
+    }
+
+    private synchronized void invalidateAccessToken() {
+        accessToken = null;
+    }
+
+    private CompletableFuture<AccessToken> requestAccessToken() {
+        long requestedAt = System.nanoTime();
+        return attempt(withBody("POST", "/auth/token", login).build(), maxRetries, 0)
+                .thenApply(response -> read(response, TOKEN_RESPONSE))
+                .thenApply(token -> new AccessToken(token.getTokenType() + " " + token.getAccessToken(),
+                        requestedAt + TimeUnit.SECONDS.toNanos(token.getExpiresIn()) - TOKEN_RENEWAL_MARGIN_NANOS));
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUri + path))
+                .timeout(requestTimeout)
+                .header("Accept", format.getMediaType());
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return request(path).GET();
+    }
+
+    private HttpRequest.Builder withBody(String method, String path, Object body) {
+        try {
+            return request(path)
+                    .header("Content-Type", format.getMediaType())
+                    .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        } catch (JsonProcessingException e) {
+            throw new AnimeClientException("The request body could not be written", e);
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Wire format of the request and response bodies. Smile and CBOR carry the same fields as JSON
+     * in fewer bytes and are cheaper to parse.
+     */
+    public enum Format {
+        JSON("application/json", JsonFactory::new),
+        SMILE("application/x-jackson-smile", SmileFactory::new),
+        CBOR("application/cbor", CBORFactory::new);
+
+        private final String mediaType;
+        private final Supplier<JsonFactory> factory;
+
+        Format(String mediaType, Supplier<JsonFactory> factory) {
+            this.mediaType = mediaType;
+            this.factory = factory;
+        }
+
+        public String getMediaType() {
+            return mediaType;
+        }
+
+        ObjectMapper createObjectMapper() {
+            return new ObjectMapper(factory.get())
+                    .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        }
+    }
+
+    private static final class AccessToken {
+        private final String authorization;
+        private final long expiresAtNanos;
+
+        private AccessToken(String authorization, long expiresAtNanos) {
+            this.authorization = authorization;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        private String getAuthorization() {
+            return authorization;
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - expiresAtNanos >= 0;
+        }
+    }
+
+    public static final class Builder {
+        private final URI baseUri;
+        private Format format = Format.JSON;
+        private ObjectMapper objectMapper;
+        private Duration connectTimeout = Duration.ofSeconds(5);
+        private Duration requestTimeout = Duration.ofSeconds(30);
+        private int maxRetries = 2;
+        private Duration retryBackoff = Duration.ofMillis(100);
+        private Executor executor;
+        private String authorization;
+        private LoginPostRequestBody login;
+
+        private Builder(URI baseUri) {
+            this.baseUri = baseUri;
+        }
+
+        public Builder basicAuth(String username, String password) {
+            String credentials = username + ":" + password;
+            this.authorization = "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+            this.login = null;
+            return this;
+        }
+
+        public Builder bearerToken(String token) {
+            this.authorization = "Bearer " + token;
+            this.login = null;
+            return this;
+        }
+
+        /**
+         * Gets a token from {@code /auth/token} on the first call and a new one shortly before
+         * it expires, so the password is checked once per token instead of once per request.
+         */
+        public Builder login(String username, String password) {
+            this.login = new LoginPostRequestBody(username, password);
+            this.authorization = null;
+            return this;
+        }
+
+        public Builder connectTimeout(Duration connectTimeout) {
+            this.connectTimeout = Objects.requireNonNull(connectTimeout);
+            return this;
+        }
+
+        /**
+         * Time limit for each attempt, from sending the request to receiving the response headers.
+         */
+        public Builder requestTimeout(Duration requestTimeout) {
+            this.requestTimeout = Objects.requireNonNull(requestTimeout);
+            return this;
+        }
+
+        public Builder maxRetries(int maxRetries) {
+            if (maxRetries < 0) {
+                throw new IllegalArgumentException("maxRetries cannot be negative");
+            }
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        /**
+         * Base delay of the first retry, doubled on each following one.
+         */
+        public Builder retryBackoff(Duration retryBackoff) {
+            this.retryBackoff = Objects.requireNonNull(retryBackoff);
+            return this;
+        }
+
+        /**
+         * Executor for the async work of the http client, its default is a cached thread pool.
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public Builder format(Format format) {
+            this.format = Objects.requireNonNull(format);
+            return this;
+        }
+
+        /**
+         * Replaces the mapper created for the {@link Format}, its factory must match the format.
+         */
+        public Builder objectMapper(ObjectMapper objectMapper) {
+            this.objectMapper = Objects.requireNonNull(objectMapper);
+            return this;
+        }
+
+        public AnimeClient build() {
+            return new AnimeClient(this);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package academy.devdojo.springboot2.client;
+
+import lombok.Getter;
+
+/**
+ * Thrown by {@link AnimeClient} when the api answers with an error status, or when no answer
+ * could be read at all, in which case {@code statusCode} is zero and the cause is the I/O error.
+ */
+@Getter
+public class AnimeClientException extends RuntimeException {
+    private final int statusCode;
+    private final String responseBody;
+
+    public AnimeClientException(int statusCode, String responseBody) {
+        super("The anime api answered with status " + statusCode + ": " + responseBody);
+        this.statusCode = statusCode;
+        this.responseBody = responseBody;
+    }
+
+    public AnimeClientException(String message, Throwable cause) {
+        super(message, cause);
+        this.statusCode = 0;
+        this.responseBody = null;
+    }
+}
@@ -0,0 +1,63 @@
+package academy.devdojo.springboot2.client;
+
+import academy.devdojo.springboot2.wrapper.CursorPage;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Walks a cursor listing one page at a time. As soon as a page arrives the request for the
+ * following one is sent, so the caller works on the current page while the next is on the wire.
+ * Nothing is requested until the first call to {@link #hasNext()}.
+ */
+class PrefetchingCursorIterator<T> implements Iterator<T> {
+
+    private final Function<String, CompletableFuture<CursorPage<T>>> fetch;
+
+    private Iterator<T> current = Collections.emptyIterator();
+    private CompletableFuture<CursorPage<T>> next;
+    private boolean started;
+
+    PrefetchingCursorIterator(Function<String, CompletableFuture<CursorPage<T>>> fetch) {
+        this.fetch = fetch;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!started) {
+            started = true;
+            next = fetch.apply(null);
+        }
+        while (!current.hasNext()) {
+            if (next == null) {
+                return false;
+            }
+            CursorPage<T> page = AnimeClient.join(next);
+            next = page.getNextCursor() == null ? null : fetch.apply(page.getNextCursor());
+            current = page.getContent().iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    /**
+     * Drops the page being prefetched, called when the stream is closed before the end.
+     */
+    void cancel() {
+        if (next != null) {
+            next.cancel(true);
+            next = null;
+        }
+        current = Collections.emptyIterator();
+    }
+}
@@ -1,65 +1,45 @@
 package academy.devdojo.springboot2.client;
 
 import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.requests.AnimePostRequestBody;
+import academy.devdojo.springboot2.requests.AnimePutRequestBody;
 import lombok.extern.log4j.Log4j2;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.*;
-import org.springframework.web.client.RestTemplate;
 
-import java.util.Arrays;
+import java.time.Duration;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Log4j2
 public class SpringClient {
 
     public static void main(String[] args) {
-        ResponseEntity<Anime> entity = new RestTemplate().getForEntity("http://localhost:8080/animes/{id}", Anime.class, 44);
-        log.info(entity);
+        AnimeClient animeClient = AnimeClient.builder("http://localhost:8080")
+                .login("admin2", "test")
+                .requestTimeout(Duration.ofSeconds(10))
+                .build();
 
-        Anime object = new RestTemplate().getForObject("http://localhost:8080/animes/{id}", Anime.class, 44);
-        log.info(object);
+        Anime postResponse = animeClient.save(AnimePostRequestBody.builder().name("Post Request").build());
+        log.info(postResponse);
 
-        Anime[] animes = new RestTemplate().getForObject("http://localhost:8080/animes/all", Anime[].class);
-        log.info(Arrays.toString(animes));
+        log.info(animeClient.findById(postResponse.getId()));
 
-        //@formatter:off
-        ResponseEntity<List<Anime>> exchangeGetAll = new RestTemplate().exchange("http://localhost:8080/animes/all",
-                HttpMethod.GET,
-                null,
-                new ParameterizedTypeReference<>() {});
-        //@formatter:on
-        log.info(exchangeGetAll.getBody());
+        log.info(animeClient.findByIds(List.of(postResponse.getId(), 1L, 2L)));
 
-//        Anime postRequest = Anime.builder().name("Post Request").build();
-//        Anime postResponse = new RestTemplate().postForObject("http://localhost:8080/animes", postRequest, Anime.class);
-//        log.info(postResponse);
+        try (Stream<Anime> animes = animeClient.streamAll(100)) {
+            log.info(animes.map(Anime::getName).collect(Collectors.toList()));
+        }
 
-        Anime postRequest = Anime.builder().name("Post Request Exchange").build();
-        ResponseEntity<Anime> exchangePost = new RestTemplate().exchange("http://localhost:8080/animes",
-                HttpMethod.POST,
-                new HttpEntity<>(postRequest, createJsonHeader()),
-                Anime.class);
-        log.info(exchangePost);
+        animeClient.findByNameAsync("Post Request")
+                .thenAccept(log::info)
+                .join();
 
-        Anime putRequest = exchangePost.getBody();
-        putRequest.setName("Post Request Exchange Edited");
-        ResponseEntity<Void> exchangePut = new RestTemplate().exchange("http://localhost:8080/animes",
-                HttpMethod.PUT,
-                new HttpEntity<>(putRequest, createJsonHeader()),
-                Void.class);
-        log.info(exchangePut);
+        animeClient.replace(AnimePutRequestBody.builder()
+                .id(postResponse.getId())
+                .name("Post Request Edited")
+                .build());
+        log.info(animeClient.findById(postResponse.getId()));
 
-        ResponseEntity<Void> exchangeDelete = new RestTemplate().exchange("http://localhost:8080/animes/{id}",
-                HttpMethod.DELETE,
-                null,
-                Void.class,
-                putRequest.getId());
-        log.info(exchangeDelete);
-    }
-
-    private static HttpHeaders createJsonHeader() {
-        HttpHeaders httpHeaders = new HttpHeaders();
-        httpHeaders.setContentType(MediaType.APPLICATION_JSON);
-        return httpHeaders;
+        animeClient.delete(postResponse.getId());
     }
 }
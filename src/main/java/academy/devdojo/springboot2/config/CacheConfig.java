@@ -0,0 +1,68 @@
+package academy.devdojo.springboot2.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.cache.SpringCacheBasedUserCache;
+
+import java.time.Duration;
+
+/**
+ * Caches are Caffeine based, size and TTL come from spring.cache.caffeine.spec and the hit/miss/eviction
+ * metrics are published by the actuator as cache.gets, cache.puts and cache.evictions.
+ * <p>
+ * The caching advice runs outside the transactional one, so evictions happen after the commit.
+ * <p>
+ * No code path changes a Usuario, one changed straight in the database keeps authenticating with its
+ * old password and authorities until devdojo.cache.usuarios.ttl expires, that TTL is the staleness bound.
+ */
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfig {
+    public static final String ANIMES_CACHE = "animes";
+    public static final String USUARIOS_CACHE = "usuarios";
+    public static final String CREDENTIALS_CACHE = "credentials";
+
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> usuariosCacheCustomizer(
+            @Value("${devdojo.cache.usuarios.ttl:5m}") Duration ttl,
+            @Value("${devdojo.cache.usuarios.maximum-size:10000}") long maximumSize) {
+        return cacheManager -> cacheManager.registerCustomCache(USUARIOS_CACHE, Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build());
+    }
+
+    /**
+     * A verified credential is keyed by the stored hash, so it only matches while that hash is still the one
+     * in the usuarios cache. Its TTL is cut to the usuarios one, a credential never outlives the copy of the
+     * Usuario it was checked against and a password changed out of band stops working within that TTL.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "devdojo.security.credential-cache.enabled", havingValue = "true")
+    public CacheManagerCustomizer<CaffeineCacheManager> credentialsCacheCustomizer(
+            @Value("${devdojo.security.credential-cache.ttl:2m}") Duration ttl,
+            @Value("${devdojo.security.credential-cache.maximum-size:10000}") long maximumSize,
+            @Value("${devdojo.cache.usuarios.ttl:5m}") Duration usuariosTtl) {
+        Duration credentialsTtl = ttl.compareTo(usuariosTtl) > 0 ? usuariosTtl : ttl;
+        return cacheManager -> cacheManager.registerCustomCache(CREDENTIALS_CACHE, Caffeine.newBuilder()
+                .expireAfterWrite(credentialsTtl)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build());
+    }
+
+    @Bean
+    public UserCache userCache(CacheManager cacheManager) {
+        return new SpringCacheBasedUserCache(cacheManager.getCache(USUARIOS_CACHE));
+    }
+}
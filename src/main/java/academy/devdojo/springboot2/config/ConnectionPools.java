@@ -0,0 +1,34 @@
+package academy.devdojo.springboot2.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.OptionalInt;
+
+/**
+ * Sizes the things that must not outgrow the connection pool, like the request limit in virtual
+ * thread mode and the JDBC executor.
+ */
+public final class ConnectionPools {
+    // what Hikari uses when maximum-pool-size is not set, it is only filled in once the pool starts
+    private static final int HIKARI_DEFAULT_POOL_SIZE = 10;
+
+    private ConnectionPools() {
+    }
+
+    /**
+     * @return empty when the DataSource is not a Hikari pool, like the embedded test database
+     */
+    public static OptionalInt maximumPoolSize(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                int maximumPoolSize = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+                return OptionalInt.of(maximumPoolSize > 0 ? maximumPoolSize : HIKARI_DEFAULT_POOL_SIZE);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not read the connection pool size", e);
+        }
+        return OptionalInt.empty();
+    }
+}
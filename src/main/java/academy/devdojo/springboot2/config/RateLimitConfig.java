@@ -0,0 +1,52 @@
+package academy.devdojo.springboot2.config;
+
+import academy.devdojo.springboot2.filter.RateLimitFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The per user rate limits and the adaptive concurrency limit of {@link RateLimitFilter}. The filter
+ * needs the authenticated user, so {@link SecurityConfig} places it in the security filter chain
+ * and it is kept out of the servlet filters here.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "devdojo.rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfig {
+
+    @Bean
+    public RateLimitFilter rateLimitFilter(
+            MeterRegistry meterRegistry,
+            @Value("${devdojo.rate-limit.admin.requests-per-second:200}") double adminRequestsPerSecond,
+            @Value("${devdojo.rate-limit.admin.burst:400}") int adminBurst,
+            @Value("${devdojo.rate-limit.user.requests-per-second:50}") double userRequestsPerSecond,
+            @Value("${devdojo.rate-limit.user.burst:100}") int userBurst,
+            @Value("${devdojo.rate-limit.idle-eviction:10m}") Duration idleEviction,
+            @Value("${devdojo.rate-limit.maximum-users:100000}") long maximumUsers,
+            @Value("${devdojo.rate-limit.adaptive.initial-limit:20}") int initialConcurrency,
+            @Value("${devdojo.rate-limit.adaptive.min-limit:4}") int minConcurrency,
+            @Value("${devdojo.rate-limit.adaptive.max-limit:200}") int maxConcurrency,
+            @Value("${devdojo.rate-limit.adaptive.latency-tolerance:2.0}") double latencyTolerance) {
+        Map<String, RateLimitFilter.Limit> limitsByRole = new LinkedHashMap<>();
+        limitsByRole.put("ADMIN", new RateLimitFilter.Limit(adminRequestsPerSecond, adminBurst));
+        limitsByRole.put("USER", new RateLimitFilter.Limit(userRequestsPerSecond, userBurst));
+        return new RateLimitFilter(limitsByRole, idleEviction, maximumUsers,
+                initialConcurrency, minConcurrency, maxConcurrency, latencyTolerance, meterRegistry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter rateLimitFilter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+}
@@ -0,0 +1,125 @@
+package academy.devdojo.springboot2.config;
+
+import academy.devdojo.springboot2.security.CachingPasswordEncoder;
+import academy.devdojo.springboot2.security.TokenServerAuthenticationConverter;
+import academy.devdojo.springboot2.security.TokenService;
+import academy.devdojo.springboot2.service.UsuarioDetailsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.config.annotation.method.configuration.EnableReactiveMethodSecurity;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.userdetails.MapReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.AuthenticationWebFilter;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Same rules as {@link SecurityConfig} for the reactive stack: basic, form login and bearer tokens,
+ * with the usuarios still loaded through JPA.
+ */
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Configuration
+@RequiredArgsConstructor
+@EnableWebFluxSecurity
+@EnableReactiveMethodSecurity
+public class ReactiveSecurityConfig {
+
+    private final UsuarioDetailsService usuarioDetailsService;
+    private final UserCache userCache;
+    private final CacheManager cacheManager;
+    private final TokenService tokenService;
+
+    @Value("${devdojo.security.credential-cache.enabled:false}")
+    private boolean credentialCacheEnabled;
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+        return http.csrf().disable()
+                .authorizeExchange()
+                .pathMatchers("/animes/admin/**").hasRole("ADMIN")
+                .pathMatchers("/animes/**").hasRole("USER")
+                .pathMatchers("/actuator/**").permitAll()
+                .pathMatchers("/auth/**").permitAll()
+                .anyExchange()
+                .authenticated()
+                .and()
+                .formLogin()
+                .and()
+                .httpBasic()
+                .and()
+                .addFilterBefore(tokenAuthenticationFilter(), SecurityWebFiltersOrder.HTTP_BASIC)
+                .build();
+    }
+
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        PasswordEncoder passwordEncoder = PasswordEncoderFactories.createDelegatingPasswordEncoder();
+        if (credentialCacheEnabled) {
+            passwordEncoder = new CachingPasswordEncoder(passwordEncoder, cacheManager.getCache(CacheConfig.CREDENTIALS_CACHE));
+        }
+        return passwordEncoder;
+    }
+
+    @Bean
+    public ReactiveUserDetailsService reactiveUserDetailsService(PasswordEncoder passwordEncoder) {
+        MapReactiveUserDetailsService inMemoryUsers = new MapReactiveUserDetailsService(
+                User.withUsername("admin2").password(passwordEncoder.encode("test")).roles("USER", "ADMIN").build(),
+                User.withUsername("user2").password(passwordEncoder.encode("test")).roles("USER").build());
+
+        // the usuario lookup is blocking JDBC, it runs on the bounded elastic scheduler and not on the event loop
+        return username -> inMemoryUsers.findByUsername(username)
+                .switchIfEmpty(Mono.fromCallable(() -> loadUsuario(username))
+                        .subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    @Bean
+    public ReactiveAuthenticationManager reactiveAuthenticationManager(ReactiveUserDetailsService reactiveUserDetailsService,
+                                                                       PasswordEncoder passwordEncoder) {
+        UserDetailsRepositoryReactiveAuthenticationManager authenticationManager =
+                new UserDetailsRepositoryReactiveAuthenticationManager(reactiveUserDetailsService);
+        authenticationManager.setPasswordEncoder(passwordEncoder);
+        return authenticationManager;
+    }
+
+    private UserDetails loadUsuario(String username) {
+        UserDetails cached = userCache.getUserFromCache(username);
+        if (cached != null) {
+            return cached;
+        }
+        UserDetails usuario = usuarioDetailsService.loadUserByUsername(username);
+        userCache.putUserInCache(usuario);
+        return usuario;
+    }
+
+    private AuthenticationWebFilter tokenAuthenticationFilter() {
+        // the converter already checks the token, the authentication it emits goes through as is
+        AuthenticationWebFilter filter = new AuthenticationWebFilter((ReactiveAuthenticationManager) Mono::just);
+        filter.setServerAuthenticationConverter(new TokenServerAuthenticationConverter(tokenService));
+        filter.setAuthenticationFailureHandler((webFilterExchange, e) -> {
+            ServerHttpResponse response = webFilterExchange.getExchange().getResponse();
+            response.getHeaders().set(HttpHeaders.WWW_AUTHENTICATE,
+                    "Bearer error=\"invalid_token\", error_description=\"" + e.getMessage() + "\"");
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return response.setComplete();
+        });
+        return filter;
+    }
+}
@@ -0,0 +1,80 @@
+package academy.devdojo.springboot2.config;
+
+import academy.devdojo.springboot2.controller.AnimeController;
+import academy.devdojo.springboot2.filter.ResponseCacheFilter;
+import academy.devdojo.springboot2.requests.PageCount;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodParameter;
+import org.springframework.data.domain.Pageable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import javax.servlet.http.HttpServletRequest;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Registers {@link ResponseCacheFilter} after Spring Security, so only authenticated requests reach
+ * the cached bytes. The cache key uses the Pageable that MVC itself resolves for
+ * {@link AnimeController#list}, the page size limits and the default sort are the controller's.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "devdojo.response-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class ResponseCacheConfig {
+
+    @Bean
+    public ResponseCacheFilter responseCacheFilter(
+            ObjectProvider<RequestMappingHandlerAdapter> handlerAdapter,
+            MeterRegistry meterRegistry,
+            @Value("${devdojo.response-cache.ttl:30s}") Duration ttl,
+            @Value("${devdojo.response-cache.maximum-size:64MB}") DataSize maximumSize,
+            @Value("${devdojo.datasource.replicas.enabled:false}") boolean replicasEnabled,
+            @Value("${devdojo.datasource.replicas.read-your-writes:5s}") Duration replicaLag) {
+        return new ResponseCacheFilter(listPageableResolver(handlerAdapter), ttl, maximumSize.toBytes(),
+                replicasEnabled ? replicaLag : Duration.ZERO, meterRegistry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ResponseCacheFilter> responseCacheFilterRegistration(ResponseCacheFilter responseCacheFilter) {
+        FilterRegistrationBean<ResponseCacheFilter> registration = new FilterRegistrationBean<>(responseCacheFilter);
+        registration.addUrlPatterns("/animes", "/animes/all");
+        registration.setAsyncSupported(true);
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        return registration;
+    }
+
+    private static Function<HttpServletRequest, Pageable> listPageableResolver(
+            ObjectProvider<RequestMappingHandlerAdapter> handlerAdapter) {
+        MethodParameter pageableParameter = new MethodParameter(
+                ClassUtils.getMethod(AnimeController.class, "list", Pageable.class, PageCount.class, String.class, WebRequest.class), 0);
+        // the adapter is only complete once the context has started, look the resolver up on first use
+        AtomicReference<HandlerMethodArgumentResolver> pageableResolver = new AtomicReference<>();
+        return request -> {
+            HandlerMethodArgumentResolver resolver = pageableResolver.updateAndGet(current -> current != null
+                    ? current
+                    : handlerAdapter.getObject().getArgumentResolvers().stream()
+                    .filter(candidate -> candidate.supportsParameter(pageableParameter))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No argument resolver for the Pageable")));
+            try {
+                return (Pageable) resolver.resolveArgument(pageableParameter, null, new ServletWebRequest(request), null);
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Cannot resolve the Pageable of " + request.getQueryString(), e);
+            }
+        };
+    }
+}
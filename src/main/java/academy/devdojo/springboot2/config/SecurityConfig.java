@@ -1,29 +1,52 @@
 package academy.devdojo.springboot2.config;
 
+import academy.devdojo.springboot2.filter.RateLimitFilter;
+import academy.devdojo.springboot2.security.CachingPasswordEncoder;
+import academy.devdojo.springboot2.security.TokenAuthenticationFilter;
+import academy.devdojo.springboot2.security.TokenService;
 import academy.devdojo.springboot2.service.UsuarioDetailsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 @Log4j2
 @RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @EnableWebSecurity
 @EnableGlobalMethodSecurity(prePostEnabled = true)
 public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
     private final UsuarioDetailsService usuarioDetailsService;
+    private final UserCache userCache;
+    private final CacheManager cacheManager;
+    private final TokenService tokenService;
+    private final ObjectProvider<RateLimitFilter> rateLimitFilter;
+
+    @Value("${devdojo.security.credential-cache.enabled:false}")
+    private boolean credentialCacheEnabled;
 
     /**
+     * TokenAuthenticationFilter
      * BasicAuthenticationFilter
      * UsernamePasswordAuthenticationFilter
      * DefaultLoginPageGeneratingFilter
      * DefaultLogoutPageGeneratingFilter
+     * RateLimitFilter
      * Authentication -> Authorization
      *
      * @param http
@@ -37,12 +60,23 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .antMatchers("/animes/admin/**").hasRole("ADMIN")
                 .antMatchers("/animes/**").hasRole("USER")
                 .antMatchers("/actuator/**").permitAll()
+                .antMatchers("/auth/**").permitAll()
                 .anyRequest()
                 .authenticated()
                 .and()
                 .formLogin()
                 .and()
-                .httpBasic();
+                .httpBasic()
+                .and()
+                .addFilterBefore(new TokenAuthenticationFilter(tokenService), BasicAuthenticationFilter.class);
+
+        rateLimitFilter.ifAvailable(filter -> http.addFilterAfter(filter, BasicAuthenticationFilter.class));
+    }
+
+    @Bean
+    @Override
+    public AuthenticationManager authenticationManagerBean() throws Exception {
+        return super.authenticationManagerBean();
     }
 
     @Override
@@ -50,6 +84,10 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
         PasswordEncoder passwordEncoder = PasswordEncoderFactories.createDelegatingPasswordEncoder();
         log.info("Password encoded {}", passwordEncoder.encode("test"));
 
+        if (credentialCacheEnabled) {
+            passwordEncoder = new CachingPasswordEncoder(passwordEncoder, cacheManager.getCache(CacheConfig.CREDENTIALS_CACHE));
+        }
+
         auth.inMemoryAuthentication()
                 .withUser("admin2")
                 .password(passwordEncoder.encode("test"))
@@ -59,7 +97,12 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .password(passwordEncoder.encode("test"))
                 .roles("USER");
 
-        auth.userDetailsService(usuarioDetailsService)
-                .passwordEncoder(passwordEncoder);
+        // the user cache saves the database lookup, a cached user with a stale password is reloaded on failure
+        DaoAuthenticationProvider usuarioAuthenticationProvider = new DaoAuthenticationProvider();
+        usuarioAuthenticationProvider.setUserDetailsService(usuarioDetailsService);
+        usuarioAuthenticationProvider.setPasswordEncoder(passwordEncoder);
+        usuarioAuthenticationProvider.setUserCache(userCache);
+
+        auth.authenticationProvider(usuarioAuthenticationProvider);
     }
 }
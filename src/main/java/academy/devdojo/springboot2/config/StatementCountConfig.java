@@ -0,0 +1,48 @@
+package academy.devdojo.springboot2.config;
+
+import academy.devdojo.springboot2.datasource.StatementCounter;
+import academy.devdojo.springboot2.endpoint.StatementCountEndpoint;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * With devdojo.statement-count.enabled=true, on in the dev profile and in the tests that assert on
+ * it, the dataSource bean is wrapped in a proxy counting every statement. Only that bean is wrapped,
+ * with replicas it is the routing proxy in front of every pool, so nothing is counted twice.
+ */
+@Configuration
+@ConditionalOnProperty(name = "devdojo.statement-count.enabled", havingValue = "true")
+public class StatementCountConfig {
+    private static final String DATA_SOURCE_BEAN = "dataSource";
+
+    @Bean
+    public StatementCounter statementCounter() {
+        return new StatementCounter();
+    }
+
+    @Bean
+    public static BeanPostProcessor statementCountingDataSource(ObjectProvider<StatementCounter> statementCounter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && DATA_SOURCE_BEAN.equals(beanName)) {
+                    return ProxyDataSourceBuilder.create(beanName, (DataSource) bean)
+                            .listener(statementCounter.getObject())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public StatementCountEndpoint statementCountEndpoint(StatementCounter statementCounter) {
+        return new StatementCountEndpoint(statementCounter);
+    }
+}
@@ -0,0 +1,66 @@
+package academy.devdojo.springboot2.config;
+
+import academy.devdojo.springboot2.filter.ConcurrencyLimitFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * With devdojo.threads.mode=virtual the Tomcat requests and the application task executor (MVC async
+ * requests, @Async) start a virtual thread per task instead of borrowing one from a pool. The JDBC
+ * calls still block, but a blocked virtual thread only parks, so the limit becomes the connection
+ * pool, which {@link ConcurrencyLimitFilter} enforces in front of the controllers.
+ */
+@Log4j2
+@Configuration
+@ConditionalOnProperty(name = "devdojo.threads.mode", havingValue = "virtual")
+public class VirtualThreadsConfig {
+
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public SimpleAsyncTaskExecutor applicationTaskExecutor() {
+        return new SimpleAsyncTaskExecutor(VirtualThreads.threadFactory("task-"));
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadsProtocolHandlerCustomizer() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(VirtualThreads.threadFactory("http-"));
+        log.info("Tomcat requests run on virtual threads");
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            DataSource dataSource,
+            MeterRegistry meterRegistry,
+            @Value("${devdojo.threads.virtual.max-concurrent-requests:0}") int maxConcurrentRequests,
+            @Value("${devdojo.threads.virtual.acquire-timeout:5s}") Duration acquireTimeout) {
+        int limit = maxConcurrentRequests > 0 ? maxConcurrentRequests : ConnectionPools.maximumPoolSize(dataSource)
+                .orElseThrow(() -> new IllegalStateException("The connection pool is not Hikari, " +
+                        "set devdojo.threads.virtual.max-concurrent-requests to the number of connections"));
+        log.info("At most {} requests in flight, the others wait up to {}", limit, acquireTimeout);
+
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(new ConcurrencyLimitFilter(limit, acquireTimeout, meterRegistry));
+        registration.addUrlPatterns("/animes/*", "/auth/*");
+        // before Spring Security, the basic authentication may already need a connection
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+}
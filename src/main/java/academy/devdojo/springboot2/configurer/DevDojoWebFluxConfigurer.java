@@ -0,0 +1,114 @@
+package academy.devdojo.springboot2.configurer;
+
+import academy.devdojo.springboot2.config.BinaryFormatsConfig;
+import academy.devdojo.springboot2.resolver.ReactiveIndexedPageableArgumentResolver;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.result.method.annotation.ArgumentResolverConfigurer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Configuration
+public class DevDojoWebFluxConfigurer implements WebFluxConfigurer {
+
+    private final ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder;
+    private final MeterRegistry meterRegistry;
+    private final int maxPageSize;
+
+    public DevDojoWebFluxConfigurer(ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilder,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${devdojo.pageable.max-size:100}") int maxPageSize) {
+        this.objectMapperBuilder = objectMapperBuilder;
+        this.meterRegistry = meterRegistry;
+        this.maxPageSize = maxPageSize;
+    }
+
+    @Override
+    public void configureArgumentResolvers(ArgumentResolverConfigurer configurer) {
+        ReactiveIndexedPageableArgumentResolver pageHandler = new ReactiveIndexedPageableArgumentResolver(maxPageSize, meterRegistry);
+        pageHandler.setFallbackPageable(PageRequest.of(0, 5));
+        configurer.addCustomResolver(pageHandler);
+    }
+
+    /**
+     * Smile and CBOR with the mappers Spring Boot configures for JSON, like the servlet stack. The
+     * codecs built from a mapper only would claim the JSON media types, so theirs are given.
+     * Custom writers are tried before the default ones, so the JSON encoder is registered again
+     * ahead of CBOR, otherwise a request without Accept would get CBOR back.
+     */
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        ObjectMapper smileMapper = objectMapperBuilder.getObject().factory(new SmileFactory()).build();
+        MediaType smile = BinaryFormatsConfig.APPLICATION_SMILE;
+        configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper, smile));
+        configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, smile));
+
+        configurer.customCodecs().register(new Jackson2JsonEncoder(objectMapperBuilder.getObject().build()));
+
+        ObjectMapper cborMapper = objectMapperBuilder.getObject().factory(new CBORFactory()).build();
+        configurer.customCodecs().register(new SingleValueCborEncoder(cborMapper));
+        configurer.customCodecs().register(new Jackson2CborDecoder(cborMapper, MediaType.APPLICATION_CBOR));
+    }
+
+    /**
+     * Tomcat is on the classpath for the servlet stack and would otherwise be picked first,
+     * the reactive stack runs on Netty's event loop.
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    /**
+     * The CBOR encoder of this Spring version refuses every publisher. A single value is encoded
+     * as it is and a stream is collected into one CBOR array, like a JSON array would be written.
+     */
+    private static class SingleValueCborEncoder extends Jackson2CborEncoder {
+
+        SingleValueCborEncoder(ObjectMapper cborMapper) {
+            super(cborMapper, MediaType.APPLICATION_CBOR);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                       ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+            if (inputStream instanceof Mono) {
+                return Mono.from(inputStream)
+                        .map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints))
+                        .flux();
+            }
+            ResolvableType listType = ResolvableType.forClassWithGenerics(List.class, elementType);
+            return Flux.from(inputStream)
+                    .collectList()
+                    .map(values -> encodeValue(values, bufferFactory, listType, mimeType, hints))
+                    .flux();
+        }
+    }
+}
@@ -1,19 +1,33 @@
 package academy.devdojo.springboot2.configurer;
 
+import academy.devdojo.springboot2.resolver.IndexedPageableArgumentResolver;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.util.List;
 
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @Configuration
 public class DevDojoWebMvcConfigurer implements WebMvcConfigurer {
+    private final MeterRegistry meterRegistry;
+    private final int maxPageSize;
+
+    public DevDojoWebMvcConfigurer(MeterRegistry meterRegistry,
+                                   @Value("${devdojo.pageable.max-size:100}") int maxPageSize) {
+        this.meterRegistry = meterRegistry;
+        this.maxPageSize = maxPageSize;
+    }
+
     @Override
     public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
-        PageableHandlerMethodArgumentResolver pageHandler = new PageableHandlerMethodArgumentResolver();
+        IndexedPageableArgumentResolver pageHandler = new IndexedPageableArgumentResolver(maxPageSize, meterRegistry);
         pageHandler.setFallbackPageable(PageRequest.of(0, 5));
-        resolvers.add(pageHandler);
+        // ahead of the unrestricted resolver Spring Data web support adds
+        resolvers.add(0, pageHandler);
     }
 }
@@ -1,66 +1,234 @@
 package academy.devdojo.springboot2.controller;
 
+import academy.devdojo.springboot2.config.BinaryFormatsConfig;
 import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.exception.PreconditionFailedException;
+import academy.devdojo.springboot2.repository.AnimeTableVersion;
+import academy.devdojo.springboot2.requests.AnimeField;
+import academy.devdojo.springboot2.requests.AnimeNameMatch;
 import academy.devdojo.springboot2.requests.AnimePostRequestBody;
 import academy.devdojo.springboot2.requests.AnimePutRequestBody;
+import academy.devdojo.springboot2.requests.PageCount;
+import academy.devdojo.springboot2.resolver.PageableLimits;
+import academy.devdojo.springboot2.responses.AnimeSuggestionResponseBody;
+import academy.devdojo.springboot2.responses.BulkResponseBody;
+import academy.devdojo.springboot2.service.AnimeBulkService;
 import academy.devdojo.springboot2.service.AnimeService;
+import academy.devdojo.springboot2.service.JdbcExecutor;
+import academy.devdojo.springboot2.wrapper.CursorPage;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springdoc.api.annotations.ParameterObject;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
+/**
+ * The endpoints that go to the database return a CompletableFuture, the work runs on the {@link JdbcExecutor}
+ * and the Tomcat thread is released right away. Suggest is served from memory and export and the bulk
+ * endpoints keep their thread for as long as they stream or batch, so they stay synchronous.
+ */
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RestController
 @RequestMapping("/animes")
 @Log4j2
 @RequiredArgsConstructor
 public class AnimeController {
 
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    private static final int EXPORT_FLUSH_EVERY = 500;
+    private static final String SMILE_SUFFIX = "+smile";
+    private static final String CBOR_SUFFIX = "+cbor";
+    private static final List<MediaType> PRODUCED_TYPES = List.of(MediaType.APPLICATION_JSON,
+            BinaryFormatsConfig.APPLICATION_SMILE, MediaType.APPLICATION_CBOR);
+
     private final AnimeService animeService;
+    private final AnimeBulkService animeBulkService;
+    private final JdbcExecutor jdbcExecutor;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
-    @Operation(summary = "List all animes paginated", description = "The default size is 20, use the parameter size to change the default value",
-            tags = {"anime"})
-    public ResponseEntity<Page<Anime>> list(@ParameterObject Pageable pageable) {
-        return ResponseEntity.ok(animeService.listAll(pageable));
+    @Operation(summary = "List all animes paginated", description = "The default size is 20, use the parameter size to change the default value, " +
+            "up to devdojo.pageable.max-size (100). sort is id or name, ties are broken by id. " +
+            "count is EXACT (default), ESTIMATED for a total that may be a minute old or a database estimate, marked " +
+            "approximate, or NONE for a slice without totals. Only EXACT sends an ETag, the table version behind it " +
+            "scans the table once and its total is the total of the page. fields=id,name selects only those columns, the id is " +
+            "always there and the other fields are id, name and version", tags = {"anime"})
+    public CompletableFuture<ResponseEntity<Slice<?>>> list(@ParameterObject @PageableLimits(sortable = {"id", "name"}) Pageable pageable,
+                                                            @RequestParam(defaultValue = "EXACT") PageCount count,
+                                                            @RequestParam(required = false) String fields,
+                                                            WebRequest webRequest) {
+        Set<AnimeField> animeFields = fields == null ? null : AnimeField.parse(fields);
+        if (count != PageCount.EXACT) {
+            return jdbcExecutor.supply(() -> ResponseEntity.ok(page(animeFields, pageable, count)));
+        }
+        List<String> ifNoneMatch = ifNoneMatch(webRequest);
+        String representation = representation(webRequest);
+        return jdbcExecutor.supply(() -> {
+            // taken before reading the page, a change in between only makes the ETag older than the body
+            AnimeTableVersion tableVersion = animeService.findTableVersion();
+            String eTag = eTag(tableVersion, fieldsTag(animeFields) + representation);
+            if (matches(ifNoneMatch, eTag)) {
+                return notModified(eTag);
+            }
+            return ResponseEntity.ok().eTag(eTag).body(exactPage(animeFields, pageable, tableVersion.getTotal()));
+        });
+    }
+
+    @GetMapping(path = "/cursor")
+    @Operation(summary = "List animes by cursor", description = "Keyset pagination ordered by id, pass the returned nextCursor " +
+            "to get the next page. There is no total count and size goes up to devdojo.pageable.max-size (100)", tags = {"anime"})
+    public CompletableFuture<ResponseEntity<CursorPage<Anime>>> listByCursor(@RequestParam(required = false) String cursor,
+                                                                             @RequestParam(defaultValue = "20") int size) {
+        return jdbcExecutor.supply(() -> ResponseEntity.ok(animeService.listAfterCursor(cursor, size)));
     }
 
     @GetMapping(path = "/all")
-    public ResponseEntity<List<Anime>> listAll() {
-        return ResponseEntity.ok(animeService.listAllNonPageable());
+    public CompletableFuture<ResponseEntity<List<Anime>>> listAll(WebRequest webRequest) {
+        List<String> ifNoneMatch = ifNoneMatch(webRequest);
+        String representation = representation(webRequest);
+        return jdbcExecutor.supply(() -> {
+            String eTag = eTag(animeService.findTableVersion(), representation);
+            if (matches(ifNoneMatch, eTag)) {
+                return notModified(eTag);
+            }
+            return ResponseEntity.ok().eTag(eTag).body(animeService.listAllNonPageable());
+        });
+    }
+
+    @GetMapping(path = "/export", produces = APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export all animes as NDJSON", description = "Streams one anime per line straight from a database " +
+            "cursor, the memory used does not depend on the number of animes", tags = {"anime"})
+    public void export(HttpServletResponse response) throws IOException {
+        response.setContentType(APPLICATION_NDJSON_VALUE);
+        ObjectWriter writer = objectMapper.writerFor(Anime.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.setRootValueSeparator(null);
+            int[] written = {0};
+            animeService.forEachAnime(anime -> {
+                try {
+                    writer.writeValue(generator, anime);
+                    generator.writeRaw('\n');
+                    if (++written[0] % EXPORT_FLUSH_EVERY == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
     }
 
     @GetMapping(path = "/{id}")
-    public ResponseEntity<Anime> findById(@PathVariable Long id) {
-        return ResponseEntity.ok(animeService.findByIdOrThrowBadRequestException(id));
+    @Operation(summary = "Find anime by id", description = "Sends a strong ETag, with If-None-Match only the version " +
+            "is read and 304 is returned when it did not change. The JSON ETag is the version, Smile and CBOR " +
+            "add +smile or +cbor to it", tags = {"anime"})
+    public CompletableFuture<ResponseEntity<Anime>> findById(@PathVariable Long id, WebRequest webRequest) {
+        List<String> ifNoneMatch = ifNoneMatch(webRequest);
+        String representation = representation(webRequest);
+        return jdbcExecutor.supply(() -> {
+            if (!ifNoneMatch.isEmpty()) {
+                String eTag = eTag(animeService.findVersionByIdOrThrowBadRequestException(id), representation);
+                if (matches(ifNoneMatch, eTag)) {
+                    return notModified(eTag);
+                }
+            }
+            Anime anime = animeService.findByIdOrThrowBadRequestException(id);
+            return ResponseEntity.ok().eTag(eTag(anime.getVersion(), representation)).body(anime);
+        });
     }
 
     @GetMapping(path = "/by-id/{id}")
-    public ResponseEntity<Anime> findByIdAuthenticationPrincipal(@PathVariable Long id,
-                                                                 @AuthenticationPrincipal UserDetails userDetails) {
+    public CompletableFuture<ResponseEntity<Anime>> findByIdAuthenticationPrincipal(@PathVariable Long id,
+                                                                                    @AuthenticationPrincipal UserDetails userDetails) {
         log.info(userDetails);
-        return ResponseEntity.ok(animeService.findByIdOrThrowBadRequestException(id));
+        return jdbcExecutor.supply(() -> ResponseEntity.ok(animeService.findByIdOrThrowBadRequestException(id)));
+    }
+
+    @GetMapping(path = "/by-ids")
+    @Operation(summary = "Find animes by ids", description = "Up to 100 ids in one call, ids=1,2,3. The animes found " +
+            "come ordered by id and the missing ones are left out", tags = {"anime"})
+    public CompletableFuture<ResponseEntity<List<Anime>>> findByIds(@RequestParam List<Long> ids) {
+        return jdbcExecutor.supply(() -> ResponseEntity.ok(animeService.findAllByIds(ids)));
     }
 
     @GetMapping(path = "/find")
-    public ResponseEntity<List<Anime>> findByName(@RequestParam String name) {
-        return ResponseEntity.ok(animeService.findAllByName(name));
+    public CompletableFuture<ResponseEntity<List<Anime>>> findByName(@RequestParam String name) {
+        return jdbcExecutor.supply(() -> ResponseEntity.ok(animeService.findAllByName(name)));
+    }
+
+    @GetMapping(path = "/search")
+    @Operation(summary = "Search animes by name paginated", description = "Case-insensitive, match is EXACT, PREFIX " +
+            "or CONTAINS (default PREFIX). Up to 50 per page, sort is name or id, ties are broken by id. fields selects " +
+            "only those columns, as in the list", tags = {"anime"})
+    public CompletableFuture<ResponseEntity<Page<?>>> search(@RequestParam String name,
+                                                             @RequestParam(defaultValue = "PREFIX") AnimeNameMatch match,
+                                                             @ParameterObject @PageableLimits(maxSize = 50, sortable = {"name", "id"}) Pageable pageable,
+                                                             @RequestParam(required = false) String fields) {
+        Set<AnimeField> animeFields = fields == null ? null : AnimeField.parse(fields);
+        return jdbcExecutor.supply(() -> ResponseEntity.ok(animeFields == null
+                ? animeService.search(name, match, pageable)
+                : animeService.searchViews(animeFields, name, match, pageable)));
+    }
+
+    @GetMapping(path = "/suggest")
+    @Operation(summary = "Suggest animes by name prefix", description = "Served from an in-memory index for typeahead, " +
+            "accents and case are ignored and the matches come sorted by name", tags = {"anime"})
+    public ResponseEntity<List<AnimeSuggestionResponseBody>> suggest(@RequestParam String prefix,
+                                                                     @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(animeService.suggest(prefix, limit));
     }
 
     @PostMapping
-    public ResponseEntity<Anime> save(@RequestBody @Valid AnimePostRequestBody animePostRequestBody) {
-        return new ResponseEntity<>(animeService.save(animePostRequestBody), HttpStatus.CREATED);
+    public CompletableFuture<ResponseEntity<Anime>> save(@RequestBody @Valid AnimePostRequestBody animePostRequestBody) {
+        return jdbcExecutor.supply(() -> new ResponseEntity<>(animeService.save(animePostRequestBody), HttpStatus.CREATED));
+    }
+
+    @PostMapping(path = "/bulk")
+    @Operation(summary = "Create animes in bulk", description = "Every item is validated on its own, the valid ones are " +
+            "inserted in JDBC batches and the result of each item is reported by its index", tags = {"anime"})
+    public ResponseEntity<BulkResponseBody> saveAll(@RequestBody List<AnimePostRequestBody> animePostRequestBodies) {
+        return ResponseEntity.ok(animeBulkService.saveAll(animePostRequestBodies));
+    }
+
+    @PutMapping(path = "/bulk")
+    @Operation(summary = "Replace animes in bulk", tags = {"anime"})
+    public ResponseEntity<BulkResponseBody> replaceAll(@RequestBody List<AnimePutRequestBody> animePutRequestBodies) {
+        return ResponseEntity.ok(animeBulkService.replaceAll(animePutRequestBodies));
+    }
+
+    @DeleteMapping(path = "/admin/bulk")
+    @Operation(summary = "Delete animes in bulk", description = "The body is the list of ids to delete", tags = {"anime"})
+    public ResponseEntity<BulkResponseBody> deleteAll(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(animeBulkService.deleteAll(ids));
     }
 
     @DeleteMapping(path = "/admin/{id}")
@@ -68,15 +236,140 @@ public class AnimeController {
             @ApiResponse(responseCode = "204", description = "Successful Operation"),
             @ApiResponse(responseCode = "400", description = "When Anime Does Not Exist in the Database")
     })
-    public ResponseEntity<Void> delete(@PathVariable Long id) {
-        animeService.delete(id);
-        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    public CompletableFuture<ResponseEntity<Void>> delete(@PathVariable Long id,
+                                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = expectedVersion(ifMatch);
+        return jdbcExecutor.supply(() -> {
+            animeService.delete(id, expectedVersion);
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        });
     }
 
     @PutMapping()
-    public ResponseEntity<Void> replace(@RequestBody AnimePutRequestBody animePutRequestBody) {
-        animeService.replace(animePutRequestBody);
-        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Successful Operation"),
+            @ApiResponse(responseCode = "412", description = "When If-Match Does Not Match the Current ETag")
+    })
+    public CompletableFuture<ResponseEntity<Void>> replace(@RequestBody @Valid AnimePutRequestBody animePutRequestBody,
+                                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = expectedVersion(ifMatch);
+        return jdbcExecutor.supply(() -> {
+            animeService.replace(animePutRequestBody, expectedVersion);
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        });
+    }
+
+    private static String eTag(Long version, String representation) {
+        return "\"" + version + representation + "\"";
+    }
+
+    private static String eTag(AnimeTableVersion tableVersion, String representation) {
+        return "\"" + Long.toHexString(tableVersion.getTotal()) + "-" + Long.toHexString(tableVersion.getMaxId())
+                + "-" + Long.toHexString(tableVersion.getVersionSum()) + representation + "\"";
+    }
+
+    /**
+     * A page with some fields is another body than the full one, the fields go into its ETag.
+     */
+    private static String fieldsTag(Set<AnimeField> fields) {
+        return fields == null ? "" : fields.stream().map(AnimeField::getProperty).collect(Collectors.joining(",", ";", ""));
+    }
+
+    /**
+     * JSON, Smile and CBOR bodies of the same data are different bytes, so each one gets its own strong
+     * ETag and the JSON one has no suffix. Picks the format the way the converters do: the accepted types
+     * narrowed to the ones produced, by specificity and quality, JSON first on a tie.
+     */
+    private static String representation(WebRequest webRequest) {
+        String[] accept = webRequest.getHeaderValues(HttpHeaders.ACCEPT);
+        if (accept == null) {
+            return "";
+        }
+        List<MediaType> compatible = new ArrayList<>();
+        try {
+            for (MediaType accepted : MediaType.parseMediaTypes(List.of(accept))) {
+                for (MediaType produced : PRODUCED_TYPES) {
+                    if (accepted.isCompatibleWith(produced)) {
+                        compatible.add(produced.copyQualityValue(accepted));
+                    }
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            return "";
+        }
+        MediaType.sortBySpecificityAndQuality(compatible);
+        if (compatible.isEmpty() || compatible.get(0).equalsTypeAndSubtype(MediaType.APPLICATION_JSON)) {
+            return "";
+        }
+        return compatible.get(0).equalsTypeAndSubtype(MediaType.APPLICATION_CBOR) ? CBOR_SUFFIX : SMILE_SUFFIX;
+    }
+
+    /**
+     * Read on the request thread, the async work only compares against it and leaves the response
+     * to be written when the result is dispatched back.
+     */
+    private static List<String> ifNoneMatch(WebRequest webRequest) {
+        String[] values = webRequest.getHeaderValues(HttpHeaders.IF_NONE_MATCH);
+        if (values == null) {
+            return List.of();
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.put(HttpHeaders.IF_NONE_MATCH, List.of(values));
+        return headers.getIfNoneMatch();
+    }
+
+    /**
+     * If-None-Match uses the weak comparison, the W/ prefix is ignored on both sides.
+     */
+    private static boolean matches(List<String> ifNoneMatch, String eTag) {
+        String opaqueTag = eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+        return ifNoneMatch.stream()
+                .anyMatch(candidate -> candidate.equals("*")
+                        || (candidate.startsWith("W/") ? candidate.substring(2) : candidate).equals(opaqueTag));
+    }
+
+    private Slice<?> page(Set<AnimeField> fields, Pageable pageable, PageCount count) {
+        if (fields != null) {
+            return animeService.listViews(fields, pageable, count);
+        }
+        return count == PageCount.NONE ? animeService.listSlice(pageable) : animeService.listAllEstimated(pageable);
+    }
+
+    /**
+     * The total comes from the table version read for the ETag, so no count query runs.
+     */
+    private Slice<?> exactPage(Set<AnimeField> fields, Pageable pageable, long total) {
+        if (fields != null) {
+            return animeService.listViews(fields, pageable, total);
+        }
+        return animeService.listAll(pageable, total);
+    }
+
+    private static <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+    }
+
+    /**
+     * If-Match uses the strong comparison, so a weak or unknown ETag never matches. The ETag of any
+     * representation names the same version, so the +smile or +cbor suffix is dropped.
+     */
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.strip().equals("*")) {
+            return null;
+        }
+        String eTag = ifMatch.strip();
+        try {
+            if (eTag.length() > 2 && eTag.startsWith("\"") && eTag.endsWith("\"")) {
+                String opaqueTag = eTag.substring(1, eTag.length() - 1);
+                if (opaqueTag.endsWith(SMILE_SUFFIX) || opaqueTag.endsWith(CBOR_SUFFIX)) {
+                    opaqueTag = opaqueTag.substring(0, opaqueTag.lastIndexOf('+'));
+                }
+                return Long.valueOf(opaqueTag);
+            }
+        } catch (NumberFormatException e) {
+            // falls through to the precondition failure below
+        }
+        throw new PreconditionFailedException("If-Match does not match the current ETag");
     }
 
 }
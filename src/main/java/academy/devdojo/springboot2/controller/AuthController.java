@@ -0,0 +1,43 @@
+package academy.devdojo.springboot2.controller;
+
+import academy.devdojo.springboot2.requests.LoginPostRequestBody;
+import academy.devdojo.springboot2.responses.TokenResponseBody;
+import academy.devdojo.springboot2.security.TokenService;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RestController
+@RequestMapping("/auth")
+@RequiredArgsConstructor
+public class AuthController {
+
+    private final AuthenticationManager authenticationManager;
+    private final TokenService tokenService;
+
+    @PostMapping(path = "/token")
+    @Operation(summary = "Issue an access token", description = "Send it back as 'Authorization: Bearer <token>', " +
+            "requests authenticated this way skip the usuario lookup and the password check", tags = {"auth"})
+    public ResponseEntity<TokenResponseBody> token(@RequestBody @Valid LoginPostRequestBody loginPostRequestBody) {
+        Authentication authentication = authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(
+                loginPostRequestBody.getUsername(), loginPostRequestBody.getPassword()));
+
+        return ResponseEntity.ok(TokenResponseBody.builder()
+                .accessToken(tokenService.issue((UserDetails) authentication.getPrincipal()))
+                .tokenType("Bearer")
+                .expiresIn(tokenService.getTtl().toSeconds())
+                .build());
+    }
+}
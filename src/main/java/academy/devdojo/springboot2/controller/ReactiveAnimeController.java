@@ -0,0 +1,79 @@
+package academy.devdojo.springboot2.controller;
+
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.requests.AnimePostRequestBody;
+import academy.devdojo.springboot2.requests.AnimePutRequestBody;
+import academy.devdojo.springboot2.resolver.PageableLimits;
+import academy.devdojo.springboot2.service.ReactiveAnimeService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+
+/**
+ * Same contract as {@link AnimeController} for the reactive stack, active with the "reactive" profile.
+ */
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RestController
+@RequestMapping("/animes")
+@Log4j2
+@RequiredArgsConstructor
+public class ReactiveAnimeController {
+
+    private final ReactiveAnimeService animeService;
+
+    @GetMapping
+    public Mono<ResponseEntity<Page<Anime>>> list(@PageableLimits(sortable = {"id", "name"}) Pageable pageable) {
+        return animeService.listAll(pageable).map(ResponseEntity::ok);
+    }
+
+    @GetMapping(path = "/all")
+    public Flux<Anime> listAll() {
+        return animeService.listAllNonPageable();
+    }
+
+    @GetMapping(path = "/{id}")
+    public Mono<ResponseEntity<Anime>> findById(@PathVariable Long id) {
+        return animeService.findByIdOrThrowBadRequestException(id).map(ResponseEntity::ok);
+    }
+
+    @GetMapping(path = "/by-id/{id}")
+    public Mono<ResponseEntity<Anime>> findByIdAuthenticationPrincipal(@PathVariable Long id,
+                                                                       @AuthenticationPrincipal UserDetails userDetails) {
+        log.info(userDetails);
+        return animeService.findByIdOrThrowBadRequestException(id).map(ResponseEntity::ok);
+    }
+
+    @GetMapping(path = "/find")
+    public Flux<Anime> findByName(@RequestParam String name) {
+        return animeService.findAllByName(name);
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<Anime>> save(@RequestBody @Valid AnimePostRequestBody animePostRequestBody) {
+        return animeService.save(animePostRequestBody)
+                .map(anime -> new ResponseEntity<>(anime, HttpStatus.CREATED));
+    }
+
+    @DeleteMapping(path = "/admin/{id}")
+    public Mono<ResponseEntity<Void>> delete(@PathVariable Long id) {
+        return animeService.delete(id)
+                .thenReturn(new ResponseEntity<>(HttpStatus.NO_CONTENT));
+    }
+
+    @PutMapping
+    public Mono<ResponseEntity<Void>> replace(@RequestBody @Valid AnimePutRequestBody animePutRequestBody) {
+        return animeService.replace(animePutRequestBody)
+                .thenReturn(new ResponseEntity<>(HttpStatus.NO_CONTENT));
+    }
+}
@@ -0,0 +1,39 @@
+package academy.devdojo.springboot2.controller;
+
+import academy.devdojo.springboot2.requests.LoginPostRequestBody;
+import academy.devdojo.springboot2.responses.TokenResponseBody;
+import academy.devdojo.springboot2.security.TokenService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RestController
+@RequestMapping("/auth")
+@RequiredArgsConstructor
+public class ReactiveAuthController {
+
+    private final ReactiveAuthenticationManager authenticationManager;
+    private final TokenService tokenService;
+
+    @PostMapping(path = "/token")
+    public Mono<ResponseEntity<TokenResponseBody>> token(@RequestBody @Valid LoginPostRequestBody loginPostRequestBody) {
+        return authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(
+                        loginPostRequestBody.getUsername(), loginPostRequestBody.getPassword()))
+                .map(authentication -> ResponseEntity.ok(TokenResponseBody.builder()
+                        .accessToken(tokenService.issue((UserDetails) authentication.getPrincipal()))
+                        .tokenType("Bearer")
+                        .expiresIn(tokenService.getTtl().toSeconds())
+                        .build()));
+    }
+}
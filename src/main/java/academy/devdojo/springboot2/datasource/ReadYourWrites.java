@@ -0,0 +1,46 @@
+package academy.devdojo.springboot2.datasource;
+
+import academy.devdojo.springboot2.event.AnimesChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Remembers who changed the animes lately, so their next reads go to the primary until the replicas
+ * have caught up with the change. Users are told apart by the authenticated name, the security
+ * context follows the work onto the JDBC executor threads. The memory is per node, a client sent to
+ * another node right after writing may still read from a lagging replica there.
+ */
+public class ReadYourWrites {
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWrites(Duration window, long maximumSize) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAnimesChanged(AnimesChangedEvent event) {
+        currentUser().ifPresent(username -> recentWriters.put(username, Boolean.TRUE));
+    }
+
+    public boolean wroteRecently() {
+        return currentUser()
+                .map(username -> recentWriters.getIfPresent(username) != null)
+                .orElse(false);
+    }
+
+    private static Optional<String> currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null || !authentication.isAuthenticated()
+                ? Optional.empty()
+                : Optional.of(authentication.getName());
+    }
+}
@@ -0,0 +1,79 @@
+package academy.devdojo.springboot2.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Hands out replica connections to read-only transactions, taking the replicas in turn, and primary
+ * connections to everything else, including work outside a transaction and reads of a user who just
+ * wrote. The transaction is only known once it has started, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ * <p>
+ * Each routing decision is counted as datasource.routes with the target as a tag.
+ */
+@Log4j2
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+    public static final String PRIMARY = "primary";
+
+    private final List<String> replicas;
+    private final List<DataSource> replicaDataSources;
+    private final BooleanSupplier stickToPrimary;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Map<String, Counter> routes = new HashMap<>();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                    BooleanSupplier stickToPrimary, MeterRegistry meterRegistry) {
+        this.replicas = new ArrayList<>(replicas.keySet());
+        this.replicaDataSources = new ArrayList<>(replicas.values());
+        this.stickToPrimary = stickToPrimary;
+
+        Map<Object, Object> targets = new LinkedHashMap<>();
+        targets.put(PRIMARY, primary);
+        targets.putAll(replicas);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+
+        for (Object target : targets.keySet()) {
+            routes.put((String) target, Counter.builder("datasource.routes")
+                    .description("Connections routed to the primary or to a replica")
+                    .tag("target", (String) target)
+                    .register(meterRegistry));
+        }
+        log.info("Read-only transactions go to {}", this.replicas);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String target = PRIMARY;
+        if (!replicas.isEmpty() && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !stickToPrimary.getAsBoolean()) {
+            target = replicas.get(Math.floorMod(nextReplica.getAndIncrement(), replicas.size()));
+        }
+        routes.get(target).increment();
+        return target;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        // the primary is a bean of its own, only the replica pools are created for this
+        for (DataSource replica : replicaDataSources) {
+            if (replica instanceof AutoCloseable) {
+                ((AutoCloseable) replica).close();
+            }
+        }
+    }
+}
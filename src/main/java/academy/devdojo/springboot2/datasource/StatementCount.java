@@ -0,0 +1,27 @@
+package academy.devdojo.springboot2.datasource;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * The statements counted by {@link StatementCounter} since its last reset. A JDBC batch is one
+ * statement and one execution however many rows it carries, a Statement batch of different SQL
+ * counts each of them as a statement but is a single execution.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class StatementCount {
+    private final long select;
+    private final long insert;
+    private final long update;
+    private final long delete;
+    private final long other;
+    private final long executions;
+    private final long elapsedMillis;
+
+    public long getTotal() {
+        return select + insert + update + delete + other;
+    }
+}
@@ -0,0 +1,59 @@
+package academy.devdojo.springboot2.datasource;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.QueryType;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the statements sent through the data source proxy by type, with the time spent executing
+ * them. The counts are shared by every thread, the async endpoints run their queries on the JDBC
+ * executor, so a test reading them should not run alongside other work on the same context.
+ */
+public class StatementCounter implements QueryExecutionListener {
+    private final Map<QueryType, LongAdder> statements = new EnumMap<>(QueryType.class);
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder elapsedMillis = new LongAdder();
+
+    public StatementCounter() {
+        for (QueryType type : QueryType.values()) {
+            statements.put(type, new LongAdder());
+        }
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        executions.increment();
+        elapsedMillis.add(execInfo.getElapsedTime());
+        for (QueryInfo queryInfo : queryInfoList) {
+            statements.get(QueryUtils.getQueryType(queryInfo.getQuery())).increment();
+        }
+    }
+
+    public StatementCount snapshot() {
+        return new StatementCount(
+                statements.get(QueryType.SELECT).sum(),
+                statements.get(QueryType.INSERT).sum(),
+                statements.get(QueryType.UPDATE).sum(),
+                statements.get(QueryType.DELETE).sum(),
+                statements.get(QueryType.OTHER).sum(),
+                executions.sum(),
+                elapsedMillis.sum());
+    }
+
+    public void reset() {
+        statements.values().forEach(LongAdder::reset);
+        executions.reset();
+        elapsedMillis.reset();
+    }
+}
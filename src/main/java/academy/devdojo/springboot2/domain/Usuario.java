@@ -15,6 +15,9 @@ import javax.persistence.Id;
 import javax.validation.constraints.NotEmpty;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Data
@@ -24,6 +27,9 @@ import java.util.stream.Collectors;
 @Entity
 public class Usuario implements UserDetails {
 
+    // there are only a handful of role combinations, so each one is parsed once and shared by every user
+    private static final Map<String, List<GrantedAuthority>> GRANTED_AUTHORITIES = new ConcurrentHashMap<>();
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -39,9 +45,13 @@ public class Usuario implements UserDetails {
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
+        return GRANTED_AUTHORITIES.computeIfAbsent(authorities, Usuario::parseAuthorities);
+    }
+
+    private static List<GrantedAuthority> parseAuthorities(String authorities) {
         return Arrays.stream(authorities.split(","))
                 .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toList());
+                .collect(Collectors.toUnmodifiableList());
     }
 
     @Override
@@ -0,0 +1,28 @@
+package academy.devdojo.springboot2.endpoint;
+
+import academy.devdojo.springboot2.datasource.StatementCount;
+import academy.devdojo.springboot2.datasource.StatementCounter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+/**
+ * GET /actuator/statements shows the statements sent to the database since the last
+ * DELETE /actuator/statements, to check what a request costs while developing it.
+ */
+@Endpoint(id = "statements")
+@RequiredArgsConstructor
+public class StatementCountEndpoint {
+    private final StatementCounter statementCounter;
+
+    @ReadOperation
+    public StatementCount statements() {
+        return statementCounter.snapshot();
+    }
+
+    @DeleteOperation
+    public void reset() {
+        statementCounter.reset();
+    }
+}
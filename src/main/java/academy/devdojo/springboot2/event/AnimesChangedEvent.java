@@ -0,0 +1,16 @@
+package academy.devdojo.springboot2.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Published by the services each time they change the anime table. Inside a transaction the
+ * listeners should wait for the commit, a rolled back change did not happen.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class AnimesChangedEvent {
+    private final String operation;
+}
@@ -0,0 +1,69 @@
+package academy.devdojo.springboot2.filter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A concurrency limit that follows the latency, additive increase and multiplicative decrease. Two
+ * moving averages of the same latencies are compared, a short one for the last few dozen requests
+ * and a long one for the last few hundred, so a mix of cheap and expensive requests does not look
+ * like a slowdown. While the short average is above the long one times the tolerance every request
+ * shrinks the limit by a tenth, otherwise it grows by one as long as at least half of it is in use.
+ * The long average catches up with a lasting change, the limit does not stay low forever.
+ */
+final class AdaptiveConcurrencyLimit {
+    private static final double BACKOFF = 0.9;
+    private static final double SHORT_WEIGHT = 0.05;
+    private static final double LONG_WEIGHT = 0.005;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double latencyTolerance;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+    // guarded by this
+    private double shortLatencyNanos;
+    private double longLatencyNanos;
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double latencyTolerance) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTolerance = latencyTolerance;
+        this.limit = Math.min(maxLimit, Math.max(minLimit, initialLimit));
+    }
+
+    boolean tryAcquire() {
+        if (inFlight.incrementAndGet() > limit) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    void release(long latencyNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        update(latencyNanos, inFlightBefore);
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void update(long latencyNanos, int inFlightBefore) {
+        if (longLatencyNanos == 0) {
+            shortLatencyNanos = latencyNanos;
+            longLatencyNanos = latencyNanos;
+        }
+        shortLatencyNanos += (latencyNanos - shortLatencyNanos) * SHORT_WEIGHT;
+        longLatencyNanos += (latencyNanos - longLatencyNanos) * LONG_WEIGHT;
+
+        if (shortLatencyNanos > longLatencyNanos * latencyTolerance) {
+            limit = Math.max(minLimit, (int) (limit * BACKOFF));
+        } else if (inFlightBefore * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package academy.devdojo.springboot2.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the requests in flight. With virtual threads there is no thread pool acting as a ceiling
+ * anymore, and since a request keeps its connection until it ends, everything above the pool size
+ * would just queue inside Hikari. Requests over the limit wait here up to the acquire timeout and
+ * are then answered with 503 and a Retry-After header. An async request keeps its slot until the
+ * async request completes, that is when its database work is done.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+    private final long acquireTimeoutNanos;
+    private final Counter rejected;
+
+    public ConcurrencyLimitFilter(int maxConcurrentRequests, Duration acquireTimeout, MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(maxConcurrentRequests, true);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+
+        Gauge.builder("http.server.requests.limit", () -> maxConcurrentRequests)
+                .description("Maximum number of requests in flight")
+                .register(meterRegistry);
+        Gauge.builder("http.server.requests.limit.available", permits, Semaphore::availablePermits)
+                .description("Requests that can still start without waiting")
+                .register(meterRegistry);
+        Gauge.builder("http.server.requests.limit.waiting", permits, Semaphore::getQueueLength)
+                .description("Requests waiting for a slot")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("http.server.requests.limit.rejected")
+                .description("Requests answered with 503 after waiting the whole acquire timeout")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!acquire()) {
+            rejected.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many requests in flight");
+            return;
+        }
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                // the database work of the async endpoints ends with the async request, not here
+                request.getAsyncContext().addListener(new ReleasingAsyncListener());
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                permits.release();
+            }
+        }
+    }
+
+    private boolean acquire() {
+        try {
+            return permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private class ReleasingAsyncListener implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            permits.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package academy.devdojo.springboot2.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Protects the database from a single user and from bursts, after authentication and only for the
+ * anime endpoints. Every user has a token bucket sized by their role, when it is empty the request
+ * gets 429 with the Retry-After of the next token. The requests left then go through a concurrency
+ * limit that adapts to their latency, see {@link AdaptiveConcurrencyLimit}, the ones over it get 503.
+ * <p>
+ * Published as http.server.requests.rejected with the reason (rate-limit, overload) and the role,
+ * http.server.requests.adaptive.limit, http.server.requests.adaptive.in-flight and
+ * http.server.requests.rate-limit.users for the buckets in memory.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final String ANIMES_PATH = "/animes";
+
+    private final Map<String, Limit> limitsByRole;
+    private final Cache<String, TokenBucket> buckets;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final Map<String, Counter> rateLimited = new LinkedHashMap<>();
+    private final Counter overloaded;
+
+    /**
+     * @param limitsByRole the first role the user has wins, users with none of them get the last limit
+     */
+    public RateLimitFilter(Map<String, Limit> limitsByRole, Duration idleEviction, long maximumUsers,
+                           int initialConcurrency, int minConcurrency, int maxConcurrency, double latencyTolerance,
+                           MeterRegistry meterRegistry) {
+        if (limitsByRole.isEmpty()) {
+            throw new IllegalArgumentException("At least one role needs a limit");
+        }
+        this.limitsByRole = new LinkedHashMap<>(limitsByRole);
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(idleEviction)
+                .maximumSize(maximumUsers)
+                .build();
+        this.concurrencyLimit = new AdaptiveConcurrencyLimit(initialConcurrency, minConcurrency, maxConcurrency,
+                latencyTolerance);
+
+        for (String role : this.limitsByRole.keySet()) {
+            rateLimited.put(role, Counter.builder("http.server.requests.rejected")
+                    .description("Requests rejected before reaching the controllers")
+                    .tag("reason", "rate-limit")
+                    .tag("role", role)
+                    .register(meterRegistry));
+        }
+        this.overloaded = Counter.builder("http.server.requests.rejected")
+                .description("Requests rejected before reaching the controllers")
+                .tag("reason", "overload")
+                .tag("role", "any")
+                .register(meterRegistry);
+        Gauge.builder("http.server.requests.adaptive.limit", concurrencyLimit, AdaptiveConcurrencyLimit::getLimit)
+                .description("Anime requests allowed in flight, following their latency")
+                .register(meterRegistry);
+        Gauge.builder("http.server.requests.adaptive.in-flight", concurrencyLimit, AdaptiveConcurrencyLimit::getInFlight)
+                .description("Anime requests in flight")
+                .register(meterRegistry);
+        Gauge.builder("http.server.requests.rate-limit.users", buckets, Cache::estimatedSize)
+                .description("Users with a token bucket in memory")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + ANIMES_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            TokenBucket bucket = buckets.get(authentication.getName(), username -> newBucket(authentication));
+            long waitNanos = bucket.tryTake(System.nanoTime());
+            if (waitNanos > 0) {
+                rateLimited.get(bucket.getRole()).increment();
+                long retryAfterSeconds = TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1);
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+                response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests for this user");
+                return;
+            }
+        }
+
+        if (!concurrencyLimit.tryAcquire()) {
+            overloaded.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "The service is overloaded");
+            return;
+        }
+        long start = System.nanoTime();
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                // the database work of the async endpoints ends with the async request, not here
+                request.getAsyncContext().addListener(new ReleasingAsyncListener(start));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                concurrencyLimit.release(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private TokenBucket newBucket(Authentication authentication) {
+        // the roles are in priority order, without any of them the loop ends on the last one
+        String role = null;
+        for (String candidate : limitsByRole.keySet()) {
+            role = candidate;
+            if (authentication.getAuthorities().stream()
+                    .map(GrantedAuthority::getAuthority)
+                    .anyMatch(("ROLE_" + candidate)::equals)) {
+                break;
+            }
+        }
+        Limit limit = limitsByRole.get(role);
+        return new TokenBucket(role, limit.getRequestsPerSecond(), limit.getBurst(), System.nanoTime());
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Limit {
+        private final double requestsPerSecond;
+        private final int burst;
+    }
+
+    @RequiredArgsConstructor
+    private class ReleasingAsyncListener implements AsyncListener {
+        private final long start;
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            concurrencyLimit.release(System.nanoTime() - start);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package academy.devdojo.springboot2.filter;
+
+import academy.devdojo.springboot2.event.AnimesChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the serialized bodies of {@code GET /animes}, per page, size, sort and count, and of
+ * {@code GET /animes/all}, each with a gzip copy. A hit is written from memory with its length set,
+ * no query, no serialization and no compression; a miss goes through the controller and its body
+ * is stored on the way out. Everything is dropped when a service publishes {@link AnimesChangedEvent}
+ * and expires after the ttl, which bounds how long a change made by another node stays invisible.
+ * With replicas, nothing is stored for the replica lag after a change either, a miss read from a
+ * replica that is still behind would keep the old body for the whole ttl.
+ * <p>
+ * The Accept header is part of the key and the responses vary on Accept and Accept-Encoding. They
+ * stay private, the list is only visible to authenticated users.
+ */
+@Log4j2
+public class ResponseCacheFilter extends OncePerRequestFilter {
+    public static final String CACHE_NAME = "animeResponses";
+
+    private static final String LIST_PATH = "/animes";
+    private static final String LIST_ALL_PATH = "/animes/all";
+    private static final String COUNT_PARAMETER = "count";
+    private static final String FIELDS_PARAMETER = "fields";
+    private static final int MIN_GZIP_BYTES = 1024;
+    private static final String VARY = HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING;
+    private static final String CACHE_CONTROL = "private, no-cache";
+
+    private final Function<HttpServletRequest, Pageable> pageableResolver;
+    private final Cache<String, CachedResponse> cache;
+    // bumped before every invalidation, a body read before a change must not be stored after it
+    private final AtomicLong generation = new AtomicLong();
+    private final long replicaLagNanos;
+    private volatile long storeFromNanos = System.nanoTime();
+
+    public ResponseCacheFilter(Function<HttpServletRequest, Pageable> pageableResolver, Duration ttl,
+                               long maximumBytes, Duration replicaLag, MeterRegistry meterRegistry) {
+        this.pageableResolver = pageableResolver;
+        this.replicaLagNanos = replicaLag.toNanos();
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumWeight(maximumBytes)
+                .<String, CachedResponse>weigher((key, cachedResponse) -> key.length() + cachedResponse.weight())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        Gauge.builder("cache.size.bytes", cache, c -> c.policy().eviction()
+                        .map(eviction -> eviction.weightedSize().orElse(0))
+                        .orElse(0L))
+                .description("Bytes held by the cached responses")
+                .tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAnimesChanged(AnimesChangedEvent event) {
+        storeFromNanos = System.nanoTime() + replicaLagNanos;
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        // the list endpoints are asynchronous, the body of a miss is complete in the async dispatch
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (isAsyncDispatch(request)) {
+            filterChain.doFilter(request, response);
+            CachingResponse cachingResponse = WebUtils.getNativeResponse(response, CachingResponse.class);
+            if (cachingResponse != null && !isAsyncStarted(request)) {
+                store(cachingResponse);
+            }
+            return;
+        }
+
+        String key = HttpMethod.GET.matches(request.getMethod()) ? key(request) : null;
+        if (key == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        response.setHeader(HttpHeaders.VARY, VARY);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        CachedResponse cachedResponse = cache.getIfPresent(key);
+        if (cachedResponse != null) {
+            write(cachedResponse, request, response);
+            return;
+        }
+
+        CachingResponse cachingResponse = new CachingResponse(response, key, generation.get());
+        filterChain.doFilter(request, cachingResponse);
+        if (!isAsyncStarted(request)) {
+            store(cachingResponse);
+        }
+    }
+
+    private String key(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String accept = Objects.toString(request.getHeader(HttpHeaders.ACCEPT), "*/*");
+        if (LIST_ALL_PATH.equals(path)) {
+            return path + " " + accept;
+        }
+        if (!LIST_PATH.equals(path)) {
+            return null;
+        }
+        Pageable pageable;
+        try {
+            pageable = pageableResolver.apply(request);
+        } catch (RuntimeException e) {
+            log.debug("Not caching {}?{}, the pageable does not resolve", path, request.getQueryString(), e);
+            return null;
+        }
+        return path + "?page=" + pageable.getPageNumber() + "&size=" + pageable.getPageSize()
+                + "&sort=" + pageable.getSort() + "&count=" + Objects.toString(request.getParameter(COUNT_PARAMETER), "")
+                + "&fields=" + Objects.toString(request.getParameter(FIELDS_PARAMETER), "") + " " + accept;
+    }
+
+    private void store(CachingResponse cachingResponse) throws IOException {
+        try {
+            String contentType = cachingResponse.getContentType();
+            if (cachingResponse.getStatus() == HttpStatus.OK.value() && contentType != null
+                    && cachingResponse.getHeader(HttpHeaders.CONTENT_ENCODING) == null
+                    && System.nanoTime() - storeFromNanos >= 0) {
+                cache.put(cachingResponse.key, CachedResponse.of(contentType,
+                        cachingResponse.getHeader(HttpHeaders.ETAG), cachingResponse.getContentAsByteArray()));
+                // an invalidation between the start of the request and the put may have missed this entry
+                if (generation.get() != cachingResponse.generation) {
+                    cache.invalidate(cachingResponse.key);
+                }
+            }
+        } finally {
+            cachingResponse.copyBodyToResponse();
+        }
+    }
+
+    private static void write(CachedResponse cachedResponse, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (cachedResponse.eTag != null) {
+            response.setHeader(HttpHeaders.ETAG, cachedResponse.eTag);
+            if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), cachedResponse.eTag)) {
+                response.setStatus(HttpStatus.NOT_MODIFIED.value());
+                return;
+            }
+        }
+        byte[] body = cachedResponse.body;
+        if (cachedResponse.gzipBody != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            body = cachedResponse.gzipBody;
+        }
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(cachedResponse.contentType);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaqueTag = eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if ("*".equals(candidate) || opaqueTag.equals(candidate.startsWith("W/") ? candidate.substring(2) : candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if ("gzip".equalsIgnoreCase(name) || "*".equals(name)) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private static final class CachedResponse {
+        private final String contentType;
+        private final String eTag;
+        private final byte[] body;
+        private final byte[] gzipBody;
+
+        private CachedResponse(String contentType, String eTag, byte[] body, byte[] gzipBody) {
+            this.contentType = contentType;
+            this.eTag = eTag;
+            this.body = body;
+            this.gzipBody = gzipBody;
+        }
+
+        static CachedResponse of(String contentType, String eTag, byte[] body) {
+            byte[] gzipBody = body.length < MIN_GZIP_BYTES ? null : gzip(body);
+            return new CachedResponse(contentType, eTag, body,
+                    gzipBody != null && gzipBody.length < body.length ? gzipBody : null);
+        }
+
+        int weight() {
+            return body.length + (gzipBody == null ? 0 : gzipBody.length);
+        }
+
+        private static byte[] gzip(byte[] body) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(body);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return compressed.toByteArray();
+        }
+    }
+
+    private static final class CachingResponse extends ContentCachingResponseWrapper {
+        private final String key;
+        private final long generation;
+
+        CachingResponse(HttpServletResponse response, String key, long generation) {
+            super(response);
+            this.key = key;
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package academy.devdojo.springboot2.filter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket kept as the single time at which it would be full again (the generic cell rate
+ * algorithm), so taking a token is one compare-and-set and there is no refill to schedule.
+ */
+final class TokenBucket {
+    private final String role;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrival;
+
+    TokenBucket(String role, double tokensPerSecond, int burst, long nowNanos) {
+        this.role = role;
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000 / tokensPerSecond));
+        this.burstNanos = intervalNanos * burst;
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    String getRole() {
+        return role;
+    }
+
+    /**
+     * @return 0 when a token was taken, otherwise the nanoseconds until the next one
+     */
+    long tryTake(long nowNanos) {
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long nextArrival = Math.max(arrival, nowNanos) + intervalNanos;
+            long wait = nextArrival - burstNanos - nowNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, nextArrival)) {
+                return 0;
+            }
+        }
+    }
+}
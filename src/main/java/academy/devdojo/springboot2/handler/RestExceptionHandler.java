@@ -2,8 +2,12 @@ package academy.devdojo.springboot2.handler;
 
 import academy.devdojo.springboot2.exception.BadRequestException;
 import academy.devdojo.springboot2.exception.BadRequestExceptionDetails;
+import academy.devdojo.springboot2.exception.ExceptionDetails;
+import academy.devdojo.springboot2.exception.PreconditionFailedException;
 import academy.devdojo.springboot2.exception.ValidationDetails;
 import academy.devdojo.springboot2.exception.ValidationExceptionDetails;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -17,8 +21,10 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @ControllerAdvice
 public class RestExceptionHandler extends ResponseEntityExceptionHandler {
 
@@ -34,6 +40,43 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
                         .build(), HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ExceptionDetails> handlePreconditionFailedException(PreconditionFailedException pfe) {
+        return new ResponseEntity<>(
+                ExceptionDetails.builder()
+                        .timestamp(LocalDateTime.now())
+                        .status(HttpStatus.PRECONDITION_FAILED.value())
+                        .title("Precondition Failed. Fetch the resource again to get its current ETag.")
+                        .details(pfe.getMessage())
+                        .developerMessage(pfe.getClass().getName())
+                        .build(), HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ExceptionDetails> handleOptimisticLockingFailureException(OptimisticLockingFailureException olfe) {
+        return new ResponseEntity<>(
+                ExceptionDetails.builder()
+                        .timestamp(LocalDateTime.now())
+                        .status(HttpStatus.CONFLICT.value())
+                        .title("Conflict. The resource was changed by another request.")
+                        .details(olfe.getMessage())
+                        .developerMessage(olfe.getClass().getName())
+                        .build(), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<ExceptionDetails> handleRejectedExecutionException(RejectedExecutionException ree) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ExceptionDetails.builder()
+                        .timestamp(LocalDateTime.now())
+                        .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                        .title("Service Unavailable. Too many requests waiting for the database, try again later.")
+                        .details(ree.getMessage())
+                        .developerMessage(ree.getClass().getName())
+                        .build());
+    }
+
     @Override
     protected ResponseEntity<Object> handleMethodArgumentNotValid(
             MethodArgumentNotValidException exception, HttpHeaders headers, HttpStatus status, WebRequest request) {
@@ -69,7 +112,7 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
         BadRequestExceptionDetails exceptionDetails = BadRequestExceptionDetails.builder()
                 .timestamp(LocalDateTime.now())
                 .status(status.value())
-                .title(ex.getCause().getMessage())
+                .title(title(ex, status))
                 .details(ex.getMessage())
                 .developerMessage(ex.getClass().getName())
                 .build();
@@ -77,4 +120,15 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
         return new ResponseEntity(exceptionDetails, headers, status);
     }
 
+    /**
+     * Some of the exceptions handled by the base class have no cause, e.g. the AsyncRequestTimeoutException
+     * of an async endpoint whose database work did not finish in time, and some have no message either.
+     */
+    private static String title(Exception ex, HttpStatus status) {
+        if (ex.getCause() != null) {
+            return ex.getCause().getMessage();
+        }
+        return ex.getMessage() != null ? ex.getMessage() : status.getReasonPhrase();
+    }
+
 }
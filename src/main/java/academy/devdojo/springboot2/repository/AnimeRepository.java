@@ -1,10 +1,75 @@
 package academy.devdojo.springboot2.repository;
 
 import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.responses.AnimeSuggestionResponseBody;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface AnimeRepository extends JpaRepository<Anime, Long> {
+public interface AnimeRepository extends JpaRepository<Anime, Long>, AnimeViewRepository {
     List<Anime> findAllByName(String name);
+
+    // reads one row past the page to tell whether there is a next one, without a count query
+    Slice<Anime> findAllBy(Pageable pageable);
+
+    List<Anime> findByIdInOrderByIdAsc(Collection<Long> ids);
+
+    Page<Anime> findByNameIgnoreCase(String name, Pageable pageable);
+
+    Page<Anime> findByNameStartingWithIgnoreCase(String prefix, Pageable pageable);
+
+    Page<Anime> findByNameContainingIgnoreCase(String term, Pageable pageable);
+
+    List<Anime> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query("select a.version from Anime a where a.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Query("select count(a) as total, coalesce(max(a.id), 0) as maxId, coalesce(sum(a.version), 0) as versionSum from Anime a")
+    AnimeTableVersion findTableVersion();
+
+    @Query("select a.id from Anime a where a.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /*
+     * The conditional mutations below are a single statement each, their affected row count tells whether
+     * the anime was there. A bulk update skips the @Version handling so the version is incremented by hand.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Anime a set a.name = :name, a.version = a.version + 1 where a.id = :id")
+    int updateName(@Param("id") Long id, @Param("name") String name);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Anime a set a.name = :name, a.version = a.version + 1 where a.id = :id and a.version = :version")
+    int updateNameIfVersion(@Param("id") Long id, @Param("name") String name, @Param("version") Long version);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Anime a where a.id = :id")
+    int deleteIfExists(@Param("id") Long id);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Anime a where a.id = :id and a.version = :version")
+    int deleteIfVersion(@Param("id") Long id, @Param("version") Long version);
+
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")
+    })
+    @Query("select a from Anime a")
+    Stream<Anime> streamAll();
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new academy.devdojo.springboot2.responses.AnimeSuggestionResponseBody(a.id, a.name) from Anime a")
+    Stream<AnimeSuggestionResponseBody> streamSuggestions();
 }
@@ -0,0 +1,13 @@
+package academy.devdojo.springboot2.repository;
+
+/**
+ * Changes whenever an anime is created (count and max id), replaced (sum of versions) or
+ * deleted (count), so it can stand for the version of the whole collection.
+ */
+public interface AnimeTableVersion {
+    Long getTotal();
+
+    Long getMaxId();
+
+    Long getVersionSum();
+}
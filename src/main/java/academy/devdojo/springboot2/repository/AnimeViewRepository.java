@@ -0,0 +1,24 @@
+package academy.devdojo.springboot2.repository;
+
+import academy.devdojo.springboot2.requests.AnimeField;
+import academy.devdojo.springboot2.requests.AnimeNameMatch;
+import academy.devdojo.springboot2.responses.AnimeView;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.Set;
+
+public interface AnimeViewRepository {
+
+    /**
+     * Selects only the columns of the fields, the rows are projections and never become managed entities.
+     */
+    Slice<AnimeView> findViews(Set<AnimeField> fields, Pageable pageable);
+
+    /**
+     * The views of the animes whose name matches, compared like the findByName...IgnoreCase queries so the
+     * same indexes serve them. The count only runs when the page does not already tell the total.
+     */
+    Page<AnimeView> searchViews(Set<AnimeField> fields, String name, AnimeNameMatch match, Pageable pageable);
+}
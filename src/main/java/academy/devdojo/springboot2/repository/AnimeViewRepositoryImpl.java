@@ -0,0 +1,100 @@
+package academy.devdojo.springboot2.repository;
+
+import academy.devdojo.springboot2.requests.AnimeField;
+import academy.devdojo.springboot2.requests.AnimeNameMatch;
+import academy.devdojo.springboot2.responses.AnimeView;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A DTO projection whose select list follows the fields asked at runtime, a @Query would need one method per
+ * combination of them. The JPQL is the same text for the same fields and sort, so Hibernate parses it once.
+ */
+@RequiredArgsConstructor
+class AnimeViewRepositoryImpl implements AnimeViewRepository {
+    private static final String ALIAS = "a";
+    private static final String FROM = " from Anime " + ALIAS;
+    private static final String NAME_EQUALS = " where upper(" + ALIAS + ".name) = upper(:name)";
+    private static final String NAME_LIKE = " where upper(" + ALIAS + ".name) like upper(:name) escape '\\'";
+
+    private final EntityManager entityManager;
+
+    @Override
+    public Slice<AnimeView> findViews(Set<AnimeField> fields, Pageable pageable) {
+        return findViews(fields, "", null, pageable);
+    }
+
+    @Override
+    public Page<AnimeView> searchViews(Set<AnimeField> fields, String name, AnimeNameMatch match, Pageable pageable) {
+        String where = match == AnimeNameMatch.EXACT ? NAME_EQUALS : NAME_LIKE;
+        String value;
+        switch (match) {
+            case EXACT:
+                value = name;
+                break;
+            case PREFIX:
+                value = EscapeCharacter.DEFAULT.escape(name) + "%";
+                break;
+            default:
+                value = "%" + EscapeCharacter.DEFAULT.escape(name) + "%";
+        }
+        Slice<AnimeView> views = findViews(fields, where, value, pageable);
+        return PageableExecutionUtils.getPage(views.getContent(), pageable, () -> entityManager
+                .createQuery("select count(" + ALIAS + ")" + FROM + where, Long.class)
+                .setParameter("name", value)
+                .getSingleResult());
+    }
+
+    private Slice<AnimeView> findViews(Set<AnimeField> fields, String where, String name, Pageable pageable) {
+        String select = fields.stream()
+                .map(field -> ALIAS + "." + field.getProperty())
+                .collect(Collectors.joining(", ", "select ", FROM + where));
+        TypedQuery<Tuple> query = entityManager.createQuery(QueryUtils.applySorting(select, pageable.getSort(), ALIAS),
+                Tuple.class);
+        if (name != null) {
+            query.setParameter("name", name);
+        }
+        if (pageable.isPaged()) {
+            // one row past the page tells whether there is a next one, without a count query
+            query.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize() + 1);
+        }
+        List<AnimeView> views = query.getResultStream()
+                .map(tuple -> toView(tuple, fields))
+                .collect(Collectors.toList());
+
+        boolean hasNext = pageable.isPaged() && views.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? views.subList(0, pageable.getPageSize()) : views, pageable, hasNext);
+    }
+
+    private static AnimeView toView(Tuple tuple, Set<AnimeField> fields) {
+        AnimeView view = new AnimeView();
+        int position = 0;
+        for (AnimeField field : fields) {
+            Object value = tuple.get(position++);
+            switch (field) {
+                case ID:
+                    view.setId((Long) value);
+                    break;
+                case NAME:
+                    view.setName((String) value);
+                    break;
+                default:
+                    view.setVersion((Long) value);
+            }
+        }
+        return view;
+    }
+}
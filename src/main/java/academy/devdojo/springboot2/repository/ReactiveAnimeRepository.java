@@ -0,0 +1,122 @@
+package academy.devdojo.springboot2.repository;
+
+import academy.devdojo.springboot2.domain.Anime;
+import io.r2dbc.spi.Row;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * R2DBC access to the anime table for the reactive stack. Every method is a single statement, so
+ * no reactive transaction is needed, and replace bumps the version like the JPA optimistic lock does.
+ */
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Repository
+@RequiredArgsConstructor
+public class ReactiveAnimeRepository {
+
+    private static final String SELECT = "select id, name, version from anime";
+    private static final Set<String> SORTABLE_COLUMNS = Set.of("id", "name");
+
+    private final DatabaseClient databaseClient;
+
+    public Flux<Anime> findAll(Pageable pageable) {
+        return databaseClient.sql(SELECT + orderBy(pageable.getSort()) + " limit :limit offset :offset")
+                .bind("limit", pageable.getPageSize())
+                .bind("offset", pageable.getOffset())
+                .map(ReactiveAnimeRepository::toAnime)
+                .all();
+    }
+
+    public Flux<Anime> findAll() {
+        return databaseClient.sql(SELECT + " order by id")
+                .map(ReactiveAnimeRepository::toAnime)
+                .all();
+    }
+
+    public Mono<Long> count() {
+        return databaseClient.sql("select count(*) from anime")
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    public Mono<Anime> findById(Long id) {
+        return databaseClient.sql(SELECT + " where id = :id")
+                .bind("id", id)
+                .map(ReactiveAnimeRepository::toAnime)
+                .one();
+    }
+
+    public Flux<Anime> findAllByName(String name) {
+        return databaseClient.sql(SELECT + " where name = :name order by id")
+                .bind("name", name)
+                .map(ReactiveAnimeRepository::toAnime)
+                .all();
+    }
+
+    /**
+     * Takes the id from the same sequence Hibernate uses. A value read with nextval is the upper
+     * bound of a pooled block nobody else was given, so it never collides with the JPA inserts.
+     */
+    public Mono<Anime> save(Anime anime) {
+        return databaseClient.sql("select nextval('anime_seq')")
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .flatMap(id -> databaseClient.sql("insert into anime (id, name, version) values (:id, :name, 0)")
+                        .bind("id", id)
+                        .bind("name", anime.getName())
+                        .fetch()
+                        .rowsUpdated()
+                        .thenReturn(Anime.builder().id(id).name(anime.getName()).version(0L).build()));
+    }
+
+    /**
+     * @return the number of rows updated, zero when the anime does not exist
+     */
+    public Mono<Integer> replace(Anime anime) {
+        return databaseClient.sql("update anime set name = :name, version = version + 1 where id = :id")
+                .bind("name", anime.getName())
+                .bind("id", anime.getId())
+                .fetch()
+                .rowsUpdated();
+    }
+
+    /**
+     * @return the number of rows deleted, zero when the anime does not exist
+     */
+    public Mono<Integer> deleteById(Long id) {
+        return databaseClient.sql("delete from anime where id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static String orderBy(Sort sort) {
+        // the columns are checked against a fixed list, they cannot be bound as parameters
+        List<String> orders = sort.stream()
+                .filter(order -> SORTABLE_COLUMNS.contains(order.getProperty()))
+                .map(order -> order.getProperty() + (order.isAscending() ? " asc" : " desc"))
+                .collect(Collectors.toList());
+        if (orders.isEmpty()) {
+            return " order by id";
+        }
+        return " order by " + String.join(", ", orders) + ", id";
+    }
+
+    private static Anime toAnime(Row row) {
+        return Anime.builder()
+                .id(row.get("id", Long.class))
+                .name(row.get("name", String.class))
+                .version(row.get("version", Long.class))
+                .build();
+    }
+}
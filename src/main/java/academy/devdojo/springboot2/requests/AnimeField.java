@@ -0,0 +1,44 @@
+package academy.devdojo.springboot2.requests;
+
+import academy.devdojo.springboot2.exception.BadRequestException;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The columns GET /animes?fields= can select, the id is always part of them.
+ */
+public enum AnimeField {
+    ID("id"), NAME("name"), VERSION("version");
+
+    private final String property;
+
+    AnimeField(String property) {
+        this.property = property;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * @param fields the properties separated by commas, as in fields=id,name
+     */
+    public static Set<AnimeField> parse(String fields) {
+        Set<AnimeField> parsed = EnumSet.of(ID);
+        for (String field : fields.split(",")) {
+            String property = field.trim();
+            if (property.isEmpty()) {
+                continue;
+            }
+            parsed.add(Arrays.stream(values())
+                    .filter(candidate -> candidate.property.equals(property))
+                    .findFirst()
+                    .orElseThrow(() -> new BadRequestException("Unknown field " + property + ", the fields are "
+                            + Arrays.stream(values()).map(AnimeField::getProperty).collect(Collectors.joining(", ")))));
+        }
+        return parsed;
+    }
+}
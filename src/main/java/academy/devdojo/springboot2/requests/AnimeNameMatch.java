@@ -0,0 +1,8 @@
+package academy.devdojo.springboot2.requests;
+
+/**
+ * How /animes/search compares the name, every mode ignores case and is backed by an index.
+ */
+public enum AnimeNameMatch {
+    EXACT, PREFIX, CONTAINS
+}
@@ -5,11 +5,17 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+
 @Data
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
 public class AnimePutRequestBody {
+    @NotNull(message = "The anime id cannot be null")
     private Long id;
+
+    @NotEmpty(message = "The anime name cannot be empty")
     private String name;
 }
@@ -0,0 +1,23 @@
+package academy.devdojo.springboot2.requests;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotEmpty;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LoginPostRequestBody {
+    @NotEmpty(message = "The username cannot be empty")
+    @Schema(description = "This is the Usuario's username", example = "admin", required = true)
+    private String username;
+
+    @NotEmpty(message = "The password cannot be empty")
+    @Schema(description = "This is the Usuario's password", example = "test", required = true)
+    private String password;
+}
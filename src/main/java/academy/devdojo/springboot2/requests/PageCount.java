@@ -0,0 +1,9 @@
+package academy.devdojo.springboot2.requests;
+
+/**
+ * How GET /animes gets the total of the page. EXACT runs a count, ESTIMATED reuses a count or a
+ * database estimate for a while and NONE answers a slice that only knows whether there is a next page.
+ */
+public enum PageCount {
+    EXACT, ESTIMATED, NONE
+}
@@ -0,0 +1,48 @@
+package academy.devdojo.springboot2.resolver;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.MethodParameter;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Keeps the pages the clients ask for cheap: a size over the maximum of the endpoint or a sort by a
+ * property outside its {@link PageableLimits#sortable()} is a 400 instead of a scan and sort of the
+ * whole table. Sorting ignoring case is refused too, the indexes are on the column itself. Every page
+ * ends up ordered by id last, so rows with the same name keep their place from one page to the next.
+ * <p>
+ * Published as http.server.requests.pageable.rejected with the reason (size, sort) and the endpoint,
+ * the log line has the user behind it.
+ */
+public class IndexedPageableArgumentResolver extends PageableHandlerMethodArgumentResolver {
+    static final String TIE_BREAKER = PageableRules.TIE_BREAKER;
+    // the response cache resolves the same parameter before the controller, a rejection counts once
+    private static final String REJECTED_ATTRIBUTE = IndexedPageableArgumentResolver.class.getName() + ".rejected";
+
+    private final PageableRules pageableRules;
+
+    public IndexedPageableArgumentResolver(int defaultMaxSize, MeterRegistry meterRegistry) {
+        this.pageableRules = new PageableRules(defaultMaxSize, meterRegistry);
+        // the parent would cut larger sizes down silently, they are rejected below instead
+        setMaxPageSize(Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Pageable resolveArgument(MethodParameter methodParameter, ModelAndViewContainer mavContainer,
+                                    NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Pageable pageable = super.resolveArgument(methodParameter, mavContainer, webRequest, binderFactory);
+        return pageableRules.apply(pageable, methodParameter, () -> firstRejection(webRequest), webRequest::getRemoteUser);
+    }
+
+    private static boolean firstRejection(NativeWebRequest webRequest) {
+        if (webRequest.getAttribute(REJECTED_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null) {
+            return false;
+        }
+        webRequest.setAttribute(REJECTED_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        return true;
+    }
+}
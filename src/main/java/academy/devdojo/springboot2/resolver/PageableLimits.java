@@ -0,0 +1,27 @@
+package academy.devdojo.springboot2.resolver;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The limits {@link IndexedPageableArgumentResolver} enforces on a {@link org.springframework.data.domain.Pageable}
+ * parameter. Without it the parameter gets the default maximum size and can only be sorted by id.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface PageableLimits {
+
+    /**
+     * The largest page size accepted, 0 keeps devdojo.pageable.max-size.
+     */
+    int maxSize() default 0;
+
+    /**
+     * The properties the client may sort by, each one needs an index on its column followed by the id tie-breaker.
+     */
+    String[] sortable() default {IndexedPageableArgumentResolver.TIE_BREAKER};
+}
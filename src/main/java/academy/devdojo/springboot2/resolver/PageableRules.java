@@ -0,0 +1,86 @@
+package academy.devdojo.springboot2.resolver;
+
+import academy.devdojo.springboot2.exception.BadRequestException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.core.MethodParameter;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * The checks of the servlet and the reactive pageable resolvers, see {@link IndexedPageableArgumentResolver}.
+ */
+@Log4j2
+class PageableRules {
+    static final String TIE_BREAKER = "id";
+
+    private final int defaultMaxSize;
+    private final MeterRegistry meterRegistry;
+
+    PageableRules(int defaultMaxSize, MeterRegistry meterRegistry) {
+        if (defaultMaxSize < 1) {
+            throw new IllegalArgumentException("The maximum page size must be positive");
+        }
+        this.defaultMaxSize = defaultMaxSize;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param firstRejection whether a rejection of this request is the first one, only that one is counted
+     * @param requester      who asked for the page, for the log line
+     */
+    Pageable apply(Pageable pageable, MethodParameter methodParameter, BooleanSupplier firstRejection,
+                   Supplier<String> requester) {
+        if (pageable.isUnpaged()) {
+            return pageable;
+        }
+        PageableLimits limits = methodParameter.getParameterAnnotation(PageableLimits.class);
+        int maxSize = limits == null || limits.maxSize() == 0 ? defaultMaxSize : limits.maxSize();
+        List<String> sortable = limits == null ? List.of(TIE_BREAKER) : Arrays.asList(limits.sortable());
+
+        if (pageable.getPageSize() > maxSize) {
+            throw reject(methodParameter, firstRejection, requester, "size", "The page size cannot be above " + maxSize);
+        }
+        for (Sort.Order order : pageable.getSort()) {
+            if (!sortable.contains(order.getProperty()) || order.isIgnoreCase()) {
+                throw reject(methodParameter, firstRejection, requester, "sort", "The page can only be sorted by "
+                        + String.join(", ", sortable) + " without ignoring case");
+            }
+        }
+        return withTieBreaker(pageable);
+    }
+
+    private static Pageable withTieBreaker(Pageable pageable) {
+        Sort sort = pageable.getSort();
+        if (sort.getOrderFor(TIE_BREAKER) != null) {
+            return pageable;
+        }
+        Sort.Direction direction = sort.stream()
+                .reduce((first, second) -> second)
+                .map(Sort.Order::getDirection)
+                .orElse(Sort.Direction.ASC);
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort.and(Sort.by(direction, TIE_BREAKER)));
+    }
+
+    private BadRequestException reject(MethodParameter methodParameter, BooleanSupplier firstRejection,
+                                       Supplier<String> requester, String reason, String message) {
+        if (firstRejection.getAsBoolean()) {
+            String endpoint = methodParameter.getContainingClass().getSimpleName() + "." + methodParameter.getMethod().getName();
+            Counter.builder("http.server.requests.pageable.rejected")
+                    .description("Pageable requests rejected for their size or sort")
+                    .tag("reason", reason)
+                    .tag("endpoint", endpoint)
+                    .register(meterRegistry)
+                    .increment();
+            log.info("Rejected a page of {} asked by {}: {}", endpoint, requester.get(), message);
+        }
+        return new BadRequestException(message);
+    }
+}
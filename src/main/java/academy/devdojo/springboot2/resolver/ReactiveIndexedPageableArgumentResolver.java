@@ -0,0 +1,33 @@
+package academy.devdojo.springboot2.resolver;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.MethodParameter;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.ReactivePageableHandlerMethodArgumentResolver;
+import org.springframework.web.reactive.BindingContext;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.Objects;
+
+/**
+ * The {@link IndexedPageableArgumentResolver} of the reactive stack, same limits, same 400 and same
+ * metric. The principal is only known asynchronously here, so the log line has the client address.
+ */
+public class ReactiveIndexedPageableArgumentResolver extends ReactivePageableHandlerMethodArgumentResolver {
+
+    private final PageableRules pageableRules;
+
+    public ReactiveIndexedPageableArgumentResolver(int defaultMaxSize, MeterRegistry meterRegistry) {
+        this.pageableRules = new PageableRules(defaultMaxSize, meterRegistry);
+        // the parent would cut larger sizes down silently, they are rejected instead
+        setMaxPageSize(Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Pageable resolveArgumentValue(MethodParameter methodParameter, BindingContext bindingContext,
+                                         ServerWebExchange exchange) {
+        Pageable pageable = super.resolveArgumentValue(methodParameter, bindingContext, exchange);
+        return pageableRules.apply(pageable, methodParameter, () -> true,
+                () -> Objects.toString(exchange.getRequest().getRemoteAddress()));
+    }
+}
@@ -0,0 +1,19 @@
+package academy.devdojo.springboot2.responses;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The columns of an anime picked by GET /animes?fields=, the ones not selected are null and left out of the body.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AnimeView {
+    private Long id;
+    private String name;
+    private Long version;
+}
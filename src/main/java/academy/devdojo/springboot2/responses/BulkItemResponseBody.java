@@ -0,0 +1,17 @@
+package academy.devdojo.springboot2.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkItemResponseBody {
+    private int index;
+    private Long id;
+    private BulkItemStatus status;
+    private String message;
+}
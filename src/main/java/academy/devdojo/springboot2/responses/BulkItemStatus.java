@@ -0,0 +1,5 @@
+package academy.devdojo.springboot2.responses;
+
+public enum BulkItemStatus {
+    CREATED, UPDATED, DELETED, INVALID, NOT_FOUND, FAILED
+}
@@ -0,0 +1,20 @@
+package academy.devdojo.springboot2.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkResponseBody {
+    private int succeeded;
+    private int failed;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+    private List<BulkItemResponseBody> items;
+}
@@ -0,0 +1,29 @@
+package academy.devdojo.springboot2.security;
+
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.Transient;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Authentication built from an access token. It is {@link Transient} so it is never stored in the HTTP session.
+ */
+@Transient
+public class TokenAuthentication extends AbstractAuthenticationToken {
+    private final UserDetails principal;
+
+    public TokenAuthentication(UserDetails principal) {
+        super(principal.getAuthorities());
+        this.principal = principal;
+        setAuthenticated(true);
+    }
+
+    @Override
+    public Object getCredentials() {
+        return null;
+    }
+
+    @Override
+    public UserDetails getPrincipal() {
+        return principal;
+    }
+}
@@ -0,0 +1,30 @@
+package academy.devdojo.springboot2.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.server.authentication.ServerAuthenticationConverter;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link TokenAuthenticationFilter}. The token is checked here, so the
+ * authentication it emits is already authenticated, and an exchange without a bearer token is left
+ * to the other authentication mechanisms.
+ */
+@RequiredArgsConstructor
+public class TokenServerAuthenticationConverter implements ServerAuthenticationConverter {
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final TokenService tokenService;
+
+    @Override
+    public Mono<Authentication> convert(ServerWebExchange exchange) {
+        String authorization = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            return Mono.empty();
+        }
+        String token = authorization.substring(BEARER_PREFIX.length()).trim();
+        return Mono.fromCallable(() -> new TokenAuthentication(tokenService.parse(token)));
+    }
+}
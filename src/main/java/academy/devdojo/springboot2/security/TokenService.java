@@ -0,0 +1,160 @@
+package academy.devdojo.springboot2.security;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Issues and validates self-contained access tokens, JWTs signed with HMAC-SHA256.
+ * Validation only needs the key, there is no database or session lookup.
+ */
+@Log4j2
+@Component
+public class TokenService {
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    // RFC 7518 asks for a key at least as long as the SHA-256 output
+    private static final int MIN_KEY_BYTES = 32;
+    private static final String HEADER = base64Url("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+    private final ObjectMapper objectMapper;
+    private final SecretKeySpec key;
+    private final Duration ttl;
+    private final Clock clock;
+
+    @Autowired
+    public TokenService(ObjectMapper objectMapper,
+                        @Value("${devdojo.security.token.secret:}") String secret,
+                        @Value("${devdojo.security.token.ttl:15m}") Duration ttl) {
+        this(objectMapper, secret, ttl, Clock.systemUTC());
+    }
+
+    TokenService(ObjectMapper objectMapper, String secret, Duration ttl, Clock clock) {
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.clock = clock;
+        this.key = new SecretKeySpec(secretBytes(secret), HMAC_ALGORITHM);
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public String issue(UserDetails userDetails) {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", userDetails.getUsername());
+        claims.put("roles", userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toList()));
+        claims.put("exp", clock.instant().plus(ttl).getEpochSecond());
+
+        try {
+            String unsigned = HEADER + "." + base64Url(objectMapper.writeValueAsBytes(claims));
+            return unsigned + "." + base64Url(sign(unsigned));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to write the token claims", e);
+        }
+    }
+
+    /**
+     * @throws BadCredentialsException when the token is malformed, has a wrong signature or is expired
+     */
+    public UserDetails parse(String token) {
+        int signatureStart = token.lastIndexOf('.');
+        if (signatureStart < 0 || !token.startsWith(HEADER + ".")) {
+            throw new BadCredentialsException("Malformed token");
+        }
+
+        String unsigned = token.substring(0, signatureStart);
+        byte[] signature;
+        byte[] payload;
+        try {
+            signature = Base64.getUrlDecoder().decode(token.substring(signatureStart + 1));
+            payload = Base64.getUrlDecoder().decode(unsigned.substring(HEADER.length() + 1));
+        } catch (IllegalArgumentException e) {
+            throw new BadCredentialsException("Malformed token");
+        }
+        if (!MessageDigest.isEqual(signature, sign(unsigned))) {
+            throw new BadCredentialsException("Invalid token signature");
+        }
+
+        TokenClaims claims = readClaims(payload);
+        if (claims.exp <= clock.instant().getEpochSecond()) {
+            throw new BadCredentialsException("Token expired");
+        }
+
+        return User.withUsername(claims.sub)
+                .password("")
+                .authorities(claims.roles.toArray(String[]::new))
+                .build();
+    }
+
+    private TokenClaims readClaims(byte[] payload) {
+        try {
+            TokenClaims claims = objectMapper.readValue(payload, TokenClaims.class);
+            if (claims.sub == null || claims.roles == null) {
+                throw new BadCredentialsException("Malformed token");
+            }
+            return claims;
+        } catch (IOException e) {
+            throw new BadCredentialsException("Malformed token");
+        }
+    }
+
+    private byte[] sign(String unsigned) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(unsigned.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to sign the token", e);
+        }
+    }
+
+    private static byte[] secretBytes(String secret) {
+        if (secret == null || secret.isBlank()) {
+            log.warn("devdojo.security.token.secret is not set, using a random key. Tokens will not survive a restart " +
+                    "and will not be accepted by other nodes");
+            byte[] random = new byte[MIN_KEY_BYTES];
+            new SecureRandom().nextBytes(random);
+            return random;
+        }
+        byte[] key = Base64.getDecoder().decode(secret);
+        if (key.length < MIN_KEY_BYTES) {
+            throw new IllegalArgumentException("devdojo.security.token.secret must decode to at least " + MIN_KEY_BYTES
+                    + " bytes, it has " + key.length);
+        }
+        return key;
+    }
+
+    private static String base64Url(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static class TokenClaims {
+        public String sub;
+        public List<String> roles;
+        public long exp;
+    }
+}
@@ -0,0 +1,278 @@
+package academy.devdojo.springboot2.service;
+
+import academy.devdojo.springboot2.config.CacheConfig;
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.event.AnimesChangedEvent;
+import academy.devdojo.springboot2.exception.BadRequestException;
+import academy.devdojo.springboot2.mapper.AnimeMapper;
+import academy.devdojo.springboot2.repository.AnimeRepository;
+import academy.devdojo.springboot2.requests.AnimePostRequestBody;
+import academy.devdojo.springboot2.requests.AnimePutRequestBody;
+import academy.devdojo.springboot2.responses.BulkItemResponseBody;
+import academy.devdojo.springboot2.responses.BulkItemStatus;
+import academy.devdojo.springboot2.responses.BulkResponseBody;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Creates, replaces and deletes animes in chunks, one transaction per chunk. Inside a chunk the
+ * statements are sent as JDBC batches (hibernate.jdbc.batch_size) and the persistence context is
+ * cleared afterwards, so the memory used does not grow with the request size. A chunk that fails is
+ * rolled back and its items are reported as FAILED, the chunks committed before it keep their result.
+ */
+@Log4j2
+@Service
+public class AnimeBulkService {
+    private static final Set<BulkItemStatus> SUCCEEDED = EnumSet.of(BulkItemStatus.CREATED, BulkItemStatus.UPDATED,
+            BulkItemStatus.DELETED);
+
+    private final AnimeRepository animeRepository;
+    private final AnimeNameIndex animeNameIndex;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final CacheManager cacheManager;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final MeterRegistry meterRegistry;
+    private final int chunkSize;
+    private final int maxItems;
+
+    public AnimeBulkService(AnimeRepository animeRepository,
+                            AnimeNameIndex animeNameIndex,
+                            ApplicationEventPublisher applicationEventPublisher,
+                            CacheManager cacheManager,
+                            EntityManager entityManager,
+                            TransactionTemplate transactionTemplate,
+                            Validator validator,
+                            MeterRegistry meterRegistry,
+                            @Value("${devdojo.anime.bulk.chunk-size:1000}") int chunkSize,
+                            @Value("${devdojo.anime.bulk.max-items:50000}") int maxItems) {
+        this.animeRepository = animeRepository;
+        this.animeNameIndex = animeNameIndex;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.cacheManager = cacheManager;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.meterRegistry = meterRegistry;
+        this.chunkSize = chunkSize;
+        this.maxItems = maxItems;
+    }
+
+    public BulkResponseBody saveAll(List<AnimePostRequestBody> animePostRequestBodies) {
+        long start = System.nanoTime();
+        BulkItemResponseBody[] items = new BulkItemResponseBody[checkSize(animePostRequestBodies).size()];
+        List<Integer> valid = validate(animePostRequestBodies, items);
+
+        for (List<Integer> chunk : chunks(valid)) {
+            inTransaction("create", chunk, index -> null, items, status -> {
+                List<Anime> animes = chunk.stream()
+                        .map(index -> AnimeMapper.INSTANCE.toAnime(animePostRequestBodies.get(index)))
+                        .collect(Collectors.toList());
+                animeRepository.saveAll(animes);
+                flushAndClear();
+                animeNameIndex.putAll(animes);
+                applicationEventPublisher.publishEvent(new AnimesChangedEvent("create"));
+
+                for (int i = 0; i < chunk.size(); i++) {
+                    items[chunk.get(i)] = item(chunk.get(i), animes.get(i).getId(), BulkItemStatus.CREATED, null);
+                }
+            });
+        }
+        return response("create", items, start);
+    }
+
+    public BulkResponseBody replaceAll(List<AnimePutRequestBody> animePutRequestBodies) {
+        long start = System.nanoTime();
+        BulkItemResponseBody[] items = new BulkItemResponseBody[checkSize(animePutRequestBodies).size()];
+        List<Integer> valid = validate(animePutRequestBodies, items);
+
+        Function<Integer, Long> idOf = index -> animePutRequestBodies.get(index).getId();
+        for (List<Integer> chunk : chunks(valid)) {
+            Set<Long> ids = chunk.stream().map(idOf).collect(Collectors.toSet());
+            boolean committed = inTransaction("replace", chunk, idOf, items, status -> {
+                Map<Long, Anime> animesById = animeRepository.findAllById(ids).stream()
+                        .collect(Collectors.toMap(Anime::getId, Function.identity()));
+
+                // managed entities, the dirty checking turns the changes into batched updates on flush
+                for (Integer index : chunk) {
+                    AnimePutRequestBody animePutRequestBody = animePutRequestBodies.get(index);
+                    Anime anime = animesById.get(animePutRequestBody.getId());
+                    if (anime == null) {
+                        items[index] = item(index, animePutRequestBody.getId(), BulkItemStatus.NOT_FOUND, "Anime not found");
+                        continue;
+                    }
+                    anime.setName(animePutRequestBody.getName());
+                    items[index] = item(index, anime.getId(), BulkItemStatus.UPDATED, null);
+                }
+                flushAndClear();
+                animeNameIndex.putAll(animesById.values());
+                applicationEventPublisher.publishEvent(new AnimesChangedEvent("replace"));
+            });
+            if (committed) {
+                evictCommitted(ids);
+            }
+        }
+        return response("replace", items, start);
+    }
+
+    public BulkResponseBody deleteAll(List<Long> ids) {
+        long start = System.nanoTime();
+        BulkItemResponseBody[] items = new BulkItemResponseBody[checkSize(ids).size()];
+        List<Integer> valid = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            if (ids.get(i) == null) {
+                items[i] = item(i, null, BulkItemStatus.INVALID, "The anime id cannot be null");
+            } else {
+                valid.add(i);
+            }
+        }
+
+        for (List<Integer> chunk : chunks(valid)) {
+            Set<Long> chunkIds = chunk.stream().map(ids::get).collect(Collectors.toSet());
+            boolean committed = inTransaction("delete", chunk, ids::get, items, status -> {
+                Set<Long> existingIds = new HashSet<>(animeRepository.findExistingIds(chunkIds));
+                animeRepository.deleteAllByIdInBatch(existingIds);
+                animeNameIndex.removeAll(existingIds);
+                applicationEventPublisher.publishEvent(new AnimesChangedEvent("delete"));
+
+                for (Integer index : chunk) {
+                    Long id = ids.get(index);
+                    items[index] = existingIds.contains(id)
+                            ? item(index, id, BulkItemStatus.DELETED, null)
+                            : item(index, id, BulkItemStatus.NOT_FOUND, "Anime not found");
+                }
+            });
+            if (committed) {
+                evictCommitted(chunkIds);
+            }
+        }
+        return response("delete", items, start);
+    }
+
+    private <T> List<T> checkSize(List<T> items) {
+        if (items == null || items.isEmpty()) {
+            throw new BadRequestException("The request must contain at least one item");
+        }
+        if (items.size() > maxItems) {
+            throw new BadRequestException("The request cannot contain more than " + maxItems + " items");
+        }
+        return items;
+    }
+
+    private <T> List<Integer> validate(List<T> bodies, BulkItemResponseBody[] items) {
+        List<Integer> valid = new ArrayList<>(bodies.size());
+        for (int i = 0; i < bodies.size(); i++) {
+            T body = bodies.get(i);
+            Set<ConstraintViolation<T>> violations = body == null ? Set.of() : validator.validate(body);
+            if (body == null || !violations.isEmpty()) {
+                String message = body == null ? "The item cannot be null" : violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining(", "));
+                items[i] = item(i, null, BulkItemStatus.INVALID, message);
+            } else {
+                valid.add(i);
+            }
+        }
+        return valid;
+    }
+
+    private List<List<Integer>> chunks(List<Integer> indexes) {
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int from = 0; from < indexes.size(); from += chunkSize) {
+            chunks.add(indexes.subList(from, Math.min(from + chunkSize, indexes.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * Runs the chunk in a transaction of its own. When it fails the items of the chunk are reported as
+     * FAILED instead of failing the request, which would hide the result of the chunks already committed.
+     */
+    private boolean inTransaction(String operation, List<Integer> chunk, Function<Integer, Long> idOf,
+                                  BulkItemResponseBody[] items, Consumer<TransactionStatus> work) {
+        try {
+            transactionTemplate.executeWithoutResult(work);
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Bulk {} of a chunk of {} animes rolled back", operation, chunk.size(), e);
+            for (Integer index : chunk) {
+                items[index] = item(index, idOf.apply(index), BulkItemStatus.FAILED,
+                        "The chunk of this item was rolled back, send the item again");
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Runs once the chunk has committed, the chunks before a failing one stay committed and must not
+     * be served from the cache with their old rows.
+     */
+    private void evictCommitted(Collection<Long> ids) {
+        Cache animesCache = cacheManager.getCache(CacheConfig.ANIMES_CACHE);
+        if (animesCache != null) {
+            ids.forEach(animesCache::evict);
+        }
+    }
+
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private BulkResponseBody response(String operation, BulkItemResponseBody[] items, long start) {
+        long elapsedNanos = System.nanoTime() - start;
+        int succeeded = (int) Arrays.stream(items)
+                .filter(item -> SUCCEEDED.contains(item.getStatus()))
+                .count();
+
+        meterRegistry.counter("animes.bulk.rows", "operation", operation).increment(succeeded);
+        meterRegistry.timer("animes.bulk.duration", "operation", operation).record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        double elapsedSeconds = elapsedNanos / 1_000_000_000d;
+        double rowsPerSecond = elapsedSeconds > 0 ? succeeded / elapsedSeconds : 0;
+        log.info("Bulk {} of {} animes, {} succeeded in {} ms ({} rows/s)", operation, items.length, succeeded,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), Math.round(rowsPerSecond));
+
+        return BulkResponseBody.builder()
+                .succeeded(succeeded)
+                .failed(items.length - succeeded)
+                .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                .rowsPerSecond(rowsPerSecond)
+                .items(Arrays.asList(items))
+                .build();
+    }
+
+    private static BulkItemResponseBody item(int index, Long id, BulkItemStatus status, String message) {
+        return BulkItemResponseBody.builder()
+                .index(index)
+                .id(id)
+                .status(status)
+                .message(message)
+                .build();
+    }
+}
@@ -0,0 +1,61 @@
+package academy.devdojo.springboot2.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * The anime total behind GET /animes?count=ESTIMATED. On PostgreSQL it is pg_class.reltuples, kept
+ * up to date by autovacuum and analyze, elsewhere, or before the table was ever analyzed, a count(*).
+ * Either one is reused for the ttl, a single caller refreshes it while the others wait for the value.
+ */
+@Log4j2
+@Component
+public class AnimeCountEstimator {
+    private static final String KEY = "anime";
+    private static final String POSTGRESQL = "PostgreSQL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache<String, Long> estimates;
+    private volatile Boolean postgresql;
+
+    public AnimeCountEstimator(JdbcTemplate jdbcTemplate,
+                               @Value("${devdojo.anime.count-estimate.ttl:1m}") Duration ttl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.estimates = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public long estimate() {
+        return estimates.get(KEY, key -> load());
+    }
+
+    private long load() {
+        if (isPostgresql()) {
+            Long reltuples = jdbcTemplate.queryForObject(
+                    "select cast(reltuples as bigint) from pg_class where oid = 'anime'::regclass", Long.class);
+            // -1, or 0 before PostgreSQL 14, until the table is first analyzed
+            if (reltuples != null && reltuples > 0) {
+                return reltuples;
+            }
+        }
+        Long count = jdbcTemplate.queryForObject("select count(*) from anime", Long.class);
+        log.debug("Anime count estimate refreshed with an exact count of {}", count);
+        return count == null ? 0 : count;
+    }
+
+    private boolean isPostgresql() {
+        if (postgresql == null) {
+            postgresql = POSTGRESQL.equals(jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+        }
+        return postgresql;
+    }
+}
@@ -0,0 +1,211 @@
+package academy.devdojo.springboot2.service;
+
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.repository.AnimeRepository;
+import academy.devdojo.springboot2.responses.AnimeSuggestionResponseBody;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * In-process prefix index over the anime names used by the typeahead. The names are normalized
+ * (no accents, lower case, single spaces) and kept sorted in a skip list, so a lookup is a range
+ * scan of at most {@code limit} entries after the prefix. It is loaded once the application is
+ * ready and kept current by the services after each committed write.
+ */
+@Log4j2
+@Component
+public class AnimeNameIndex {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+    private static final char ID_SEPARATOR = '\u0000';
+    // skip list node and index levels, the map entry by id, the response object and the boxed id
+    private static final long ENTRY_OVERHEAD_BYTES = 192;
+    // the normalized key and the name are both kept, counted as two bytes per char
+    private static final long BYTES_PER_CHAR = 2;
+
+    private final AnimeRepository animeRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ConcurrentSkipListMap<String, AnimeSuggestionResponseBody> suggestionsByKey = new ConcurrentSkipListMap<>();
+    private final Map<Long, String> keysById = new ConcurrentHashMap<>();
+    private final AtomicLong estimatedBytes = new AtomicLong();
+    private final Object writeLock = new Object();
+
+    // ids removed while the initial load is running, so the load does not bring them back
+    private Set<Long> removedWhileLoading;
+
+    public AnimeNameIndex(AnimeRepository animeRepository,
+                          TransactionTemplate transactionTemplate,
+                          MeterRegistry meterRegistry) {
+        this.animeRepository = animeRepository;
+        this.transactionTemplate = transactionTemplate;
+
+        Gauge.builder("animes.suggest.index.size", keysById, Map::size)
+                .description("Number of anime names in the autocomplete index")
+                .register(meterRegistry);
+        Gauge.builder("animes.suggest.index.memory", estimatedBytes, AtomicLong::get)
+                .description("Estimated memory used by the autocomplete index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.nanoTime();
+        synchronized (writeLock) {
+            removedWhileLoading = new HashSet<>();
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<AnimeSuggestionResponseBody> suggestions = animeRepository.streamSuggestions()) {
+                    suggestions.forEach(this::putIfAbsent);
+                }
+            });
+        } finally {
+            synchronized (writeLock) {
+                removedWhileLoading = null;
+            }
+        }
+        log.info("Anime name index loaded with {} names in {} ms, about {} bytes", size(),
+                (System.nanoTime() - start) / 1_000_000, estimatedBytes());
+    }
+
+    public List<AnimeSuggestionResponseBody> suggest(String prefix, int limit) {
+        String normalizedPrefix = normalize(prefix);
+        NavigableMap<String, AnimeSuggestionResponseBody> matches =
+                suggestionsByKey.subMap(normalizedPrefix, true, normalizedPrefix + Character.MAX_VALUE, false);
+
+        List<AnimeSuggestionResponseBody> suggestions = new ArrayList<>(Math.min(limit, 16));
+        for (AnimeSuggestionResponseBody suggestion : matches.values()) {
+            if (suggestions.size() == limit) {
+                break;
+            }
+            suggestions.add(suggestion);
+        }
+        return suggestions;
+    }
+
+    /**
+     * Adds or replaces the anime, deferred to after the commit when called inside a transaction.
+     */
+    public void put(Anime anime) {
+        AnimeSuggestionResponseBody suggestion = new AnimeSuggestionResponseBody(anime.getId(), anime.getName());
+        afterCommit(() -> {
+            synchronized (writeLock) {
+                removeEntry(suggestion.getId());
+                addEntry(suggestion);
+            }
+        });
+    }
+
+    public void putAll(Collection<Anime> animes) {
+        List<AnimeSuggestionResponseBody> suggestions = new ArrayList<>(animes.size());
+        for (Anime anime : animes) {
+            suggestions.add(new AnimeSuggestionResponseBody(anime.getId(), anime.getName()));
+        }
+        afterCommit(() -> {
+            synchronized (writeLock) {
+                for (AnimeSuggestionResponseBody suggestion : suggestions) {
+                    removeEntry(suggestion.getId());
+                    addEntry(suggestion);
+                }
+            }
+        });
+    }
+
+    public void remove(Long id) {
+        removeAll(List.of(id));
+    }
+
+    public void removeAll(Collection<Long> ids) {
+        List<Long> idsToRemove = List.copyOf(ids);
+        afterCommit(() -> {
+            synchronized (writeLock) {
+                for (Long id : idsToRemove) {
+                    removeEntry(id);
+                    if (removedWhileLoading != null) {
+                        removedWhileLoading.add(id);
+                    }
+                }
+            }
+        });
+    }
+
+    public int size() {
+        return keysById.size();
+    }
+
+    public long estimatedBytes() {
+        return estimatedBytes.get();
+    }
+
+    static String normalize(String name) {
+        String withoutDiacritics = DIACRITICS.matcher(Normalizer.normalize(name, Normalizer.Form.NFD)).replaceAll("");
+        return WHITESPACES.matcher(withoutDiacritics.strip()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    private void putIfAbsent(AnimeSuggestionResponseBody suggestion) {
+        synchronized (writeLock) {
+            // a write that happened after the row was read is newer than the loaded value
+            if (!keysById.containsKey(suggestion.getId()) && !removedWhileLoading.contains(suggestion.getId())) {
+                addEntry(suggestion);
+            }
+        }
+    }
+
+    private void addEntry(AnimeSuggestionResponseBody suggestion) {
+        // the id keeps animes with the same name apart and sorted after the name itself
+        String key = normalize(suggestion.getName()) + ID_SEPARATOR + suggestion.getId();
+        suggestionsByKey.put(key, suggestion);
+        keysById.put(suggestion.getId(), key);
+        estimatedBytes.addAndGet(entryBytes(key, suggestion));
+    }
+
+    private void removeEntry(Long id) {
+        String key = keysById.remove(id);
+        if (key != null) {
+            AnimeSuggestionResponseBody suggestion = suggestionsByKey.remove(key);
+            estimatedBytes.addAndGet(-entryBytes(key, suggestion));
+        }
+    }
+
+    private static long entryBytes(String key, AnimeSuggestionResponseBody suggestion) {
+        return ENTRY_OVERHEAD_BYTES + BYTES_PER_CHAR * (key.length() + suggestion.getName().length());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
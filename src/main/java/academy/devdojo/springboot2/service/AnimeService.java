@@ -1,55 +1,300 @@
 package academy.devdojo.springboot2.service;
 
+import academy.devdojo.springboot2.config.CacheConfig;
 import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.event.AnimesChangedEvent;
 import academy.devdojo.springboot2.exception.BadRequestException;
+import academy.devdojo.springboot2.exception.PreconditionFailedException;
 import academy.devdojo.springboot2.mapper.AnimeMapper;
 import academy.devdojo.springboot2.repository.AnimeRepository;
+import academy.devdojo.springboot2.repository.AnimeTableVersion;
+import academy.devdojo.springboot2.requests.AnimeField;
+import academy.devdojo.springboot2.requests.AnimeNameMatch;
 import academy.devdojo.springboot2.requests.AnimePostRequestBody;
 import academy.devdojo.springboot2.requests.AnimePutRequestBody;
-import lombok.RequiredArgsConstructor;
+import academy.devdojo.springboot2.requests.PageCount;
+import academy.devdojo.springboot2.responses.AnimeSuggestionResponseBody;
+import academy.devdojo.springboot2.responses.AnimeView;
+import academy.devdojo.springboot2.wrapper.CursorPage;
+import academy.devdojo.springboot2.wrapper.EstimatedPage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
-@RequiredArgsConstructor
 public class AnimeService {
 
+    private static final int MAX_SUGGESTIONS = 50;
+    private static final int MAX_IDS = 100;
+
     private final AnimeRepository animeRepository;
+    private final EntityManager entityManager;
+    private final AnimeNameIndex animeNameIndex;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final AnimeCountEstimator animeCountEstimator;
+    private final int maxPageSize;
+
+    public AnimeService(AnimeRepository animeRepository,
+                        EntityManager entityManager,
+                        AnimeNameIndex animeNameIndex,
+                        ApplicationEventPublisher applicationEventPublisher,
+                        AnimeCountEstimator animeCountEstimator,
+                        @Value("${devdojo.pageable.max-size:100}") int maxPageSize) {
+        this.animeRepository = animeRepository;
+        this.entityManager = entityManager;
+        this.animeNameIndex = animeNameIndex;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.animeCountEstimator = animeCountEstimator;
+        this.maxPageSize = maxPageSize;
+    }
 
+    @Transactional(readOnly = true)
     public Page<Anime> listAll(Pageable pageable) {
         return animeRepository.findAll(pageable);
     }
 
+    /**
+     * The page with a total already known, such as the one of the table version, so no count query runs.
+     */
+    @Transactional(readOnly = true)
+    public Page<Anime> listAll(Pageable pageable, long total) {
+        return new PageImpl<>(animeRepository.findAllBy(pageable).getContent(), pageable, total);
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<Anime> listSlice(Pageable pageable) {
+        return animeRepository.findAllBy(pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public EstimatedPage<Anime> listAllEstimated(Pageable pageable) {
+        return new EstimatedPage<>(animeRepository.findAllBy(pageable), animeCountEstimator.estimate());
+    }
+
+    /**
+     * The page with only the columns of the fields, with the total the count asks for.
+     */
+    @Transactional(readOnly = true)
+    public Slice<AnimeView> listViews(Set<AnimeField> fields, Pageable pageable, PageCount count) {
+        Slice<AnimeView> views = animeRepository.findViews(fields, pageable);
+        switch (count) {
+            case NONE:
+                return views;
+            case ESTIMATED:
+                return new EstimatedPage<>(views, animeCountEstimator.estimate());
+            default:
+                // a first page shorter than its size is the whole table, no count needed
+                return PageableExecutionUtils.getPage(views.getContent(), pageable, animeRepository::count);
+        }
+    }
+
+    /**
+     * The page with only the columns of the fields and a total already known.
+     */
+    @Transactional(readOnly = true)
+    public Page<AnimeView> listViews(Set<AnimeField> fields, Pageable pageable, long total) {
+        return new PageImpl<>(animeRepository.findViews(fields, pageable).getContent(), pageable, total);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<Anime> listAfterCursor(String cursor, int size) {
+        if (size < 1 || size > maxPageSize) {
+            throw new BadRequestException("The page size must be between 1 and " + maxPageSize);
+        }
+        Long afterId = cursor == null || cursor.isBlank() ? 0L : decodeCursor(cursor);
+
+        // one extra row tells us whether there is a next page without a count query
+        List<Anime> animes = animeRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, size + 1));
+
+        String nextCursor = null;
+        if (animes.size() > size) {
+            animes = animes.subList(0, size);
+            nextCursor = encodeCursor(animes.get(size - 1).getId());
+        }
+        return new CursorPage<>(animes, size, nextCursor);
+    }
+
+    @Transactional(readOnly = true)
     public List<Anime> listAllNonPageable() {
         return animeRepository.findAll();
     }
 
+    /**
+     * Walks through every anime using a database cursor, each one is detached after being
+     * consumed so the memory used does not grow with the size of the table.
+     */
+    @Transactional(readOnly = true)
+    public void forEachAnime(Consumer<Anime> consumer) {
+        try (Stream<Anime> animes = animeRepository.streamAll()) {
+            animes.forEach(anime -> {
+                consumer.accept(anime);
+                entityManager.detach(anime);
+            });
+        }
+    }
+
+    /**
+     * Not read-only, so a miss reads the primary. A replica still behind a change would put the old
+     * anime back in the cache right after the change evicted it, for the whole ttl.
+     */
+    @Transactional
+    @Cacheable(cacheNames = CacheConfig.ANIMES_CACHE, key = "#id")
     public Anime findByIdOrThrowBadRequestException(Long id) {
         return animeRepository.findById(id)
                 .orElseThrow(() -> new BadRequestException("Anime not found"));
     }
 
+    /**
+     * The animes that exist among the ids, ordered by id. Missing ids are left out instead of failing
+     * the whole call, the caller tells them apart by comparing the ids.
+     */
+    @Transactional(readOnly = true)
+    public List<Anime> findAllByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new BadRequestException("The ids cannot be empty");
+        }
+        if (ids.size() > MAX_IDS) {
+            throw new BadRequestException("At most " + MAX_IDS + " ids can be read at once");
+        }
+        return animeRepository.findByIdInOrderByIdAsc(ids);
+    }
+
+    @Transactional(readOnly = true)
+    public Long findVersionByIdOrThrowBadRequestException(Long id) {
+        return animeRepository.findVersionById(id)
+                .orElseThrow(() -> new BadRequestException("Anime not found"));
+    }
+
+    @Transactional(readOnly = true)
+    public AnimeTableVersion findTableVersion() {
+        return animeRepository.findTableVersion();
+    }
+
+    @Transactional(readOnly = true)
     public List<Anime> findAllByName(String name) {
         return animeRepository.findAllByName(name);
     }
 
+    @Transactional(readOnly = true)
+    public Page<Anime> search(String name, AnimeNameMatch match, Pageable pageable) {
+        checkSearchName(name);
+        switch (match) {
+            case EXACT:
+                return animeRepository.findByNameIgnoreCase(name, pageable);
+            case PREFIX:
+                return animeRepository.findByNameStartingWithIgnoreCase(name, pageable);
+            default:
+                return animeRepository.findByNameContainingIgnoreCase(name, pageable);
+        }
+    }
+
+    /**
+     * The search with only the columns of the fields.
+     */
+    @Transactional(readOnly = true)
+    public Page<AnimeView> searchViews(Set<AnimeField> fields, String name, AnimeNameMatch match, Pageable pageable) {
+        checkSearchName(name);
+        return animeRepository.searchViews(fields, name, match, pageable);
+    }
+
+    private static void checkSearchName(String name) {
+        if (name == null || name.isBlank()) {
+            throw new BadRequestException("The name to search cannot be empty");
+        }
+    }
+
+    public List<AnimeSuggestionResponseBody> suggest(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new BadRequestException("The prefix cannot be empty");
+        }
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new BadRequestException("The limit must be between 1 and " + MAX_SUGGESTIONS);
+        }
+        return animeNameIndex.suggest(prefix, limit);
+    }
+
     @Transactional
+    @CachePut(cacheNames = CacheConfig.ANIMES_CACHE, key = "#result.id")
     public Anime save(AnimePostRequestBody animePostRequestBody) {
-        return animeRepository.save(AnimeMapper.INSTANCE.toAnime(animePostRequestBody));
+        Anime anime = animeRepository.save(AnimeMapper.INSTANCE.toAnime(animePostRequestBody));
+        animeNameIndex.put(anime);
+        applicationEventPublisher.publishEvent(new AnimesChangedEvent("create"));
+        return anime;
     }
 
-    public void delete(Long id) {
-        animeRepository.delete(findByIdOrThrowBadRequestException(id));
+    /**
+     * A single conditional DELETE, the anime is only read again when nothing was deleted to tell a
+     * missing anime from a version mismatch.
+     *
+     * @param expectedVersion the version the client last saw, null to delete whatever version is stored
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.ANIMES_CACHE, key = "#id")
+    public void delete(Long id, Long expectedVersion) {
+        int deleted = expectedVersion == null
+                ? animeRepository.deleteIfExists(id)
+                : animeRepository.deleteIfVersion(id, expectedVersion);
+        if (deleted == 0) {
+            throw notChanged(id, expectedVersion);
+        }
+        animeNameIndex.remove(id);
+        applicationEventPublisher.publishEvent(new AnimesChangedEvent("delete"));
     }
 
-    public void replace(AnimePutRequestBody animePutRequestBody) {
-        Anime savedAnime = findByIdOrThrowBadRequestException(animePutRequestBody.getId());
+    /**
+     * A single conditional UPDATE that also increments the version, the anime is only read again when
+     * nothing was updated to tell a missing anime from a version mismatch.
+     *
+     * @param expectedVersion the version the client last saw, null to replace whatever version is stored
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.ANIMES_CACHE, key = "#animePutRequestBody.id")
+    public void replace(AnimePutRequestBody animePutRequestBody, Long expectedVersion) {
         Anime anime = AnimeMapper.INSTANCE.toAnime(animePutRequestBody);
-        anime.setId(savedAnime.getId());
-        animeRepository.save(anime);
+        int updated = expectedVersion == null
+                ? animeRepository.updateName(anime.getId(), anime.getName())
+                : animeRepository.updateNameIfVersion(anime.getId(), anime.getName(), expectedVersion);
+        if (updated == 0) {
+            throw notChanged(anime.getId(), expectedVersion);
+        }
+        animeNameIndex.put(anime);
+        applicationEventPublisher.publishEvent(new AnimesChangedEvent("replace"));
+    }
+
+    private RuntimeException notChanged(Long id, Long expectedVersion) {
+        if (expectedVersion == null || animeRepository.findVersionById(id).isEmpty()) {
+            return new BadRequestException("Anime not found");
+        }
+        return new PreconditionFailedException("The anime was changed since version " + expectedVersion);
+    }
+
+    private static String encodeCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Long decodeCursor(String cursor) {
+        try {
+            return Long.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
     }
 }
@@ -0,0 +1,90 @@
+package academy.devdojo.springboot2.service;
+
+import academy.devdojo.springboot2.config.ConnectionPools;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs the blocking database work of the async endpoints. The servlet thread is handed back as soon
+ * as the work is queued, and since there are fewer threads than connections, slow queries wait for
+ * each other here instead of taking every connection and every Tomcat thread away from actuator,
+ * the usuario lookups and the other synchronous endpoints. The queue is bounded, when it is full the
+ * work is rejected and the request gets a 503.
+ * <p>
+ * Published as executor.* with name=jdbc, plus jdbc.executor.wait and jdbc.executor.rejected.
+ */
+@Log4j2
+@Component
+public class JdbcExecutor implements DisposableBean {
+    // without a pool there is nothing to follow, every connection is opened on demand
+    private static final int UNPOOLED_THREADS = 10;
+
+    private final ThreadPoolExecutor threadPool;
+    private final Executor executor;
+    private final Timer waitTimer;
+    private final Counter rejectedCounter;
+
+    public JdbcExecutor(DataSource dataSource,
+                        MeterRegistry meterRegistry,
+                        @Value("${devdojo.jdbc-executor.threads:0}") int threads,
+                        @Value("${devdojo.jdbc-executor.reserved-connections:2}") int reservedConnections,
+                        @Value("${devdojo.jdbc-executor.queue-capacity:200}") int queueCapacity) {
+        if (threads < 1) {
+            threads = Math.max(1, ConnectionPools.maximumPoolSize(dataSource).orElse(UNPOOLED_THREADS) - reservedConnections);
+        }
+
+        this.waitTimer = Timer.builder("jdbc.executor.wait")
+                .description("Time the database work waited in the queue for a thread")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("jdbc.executor.rejected")
+                .description("Database work rejected because the queue was full")
+                .register(meterRegistry);
+        this.threadPool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("jdbc-"), (task, pool) -> {
+                    rejectedCounter.increment();
+                    throw new RejectedExecutionException("The database work queue is full");
+                });
+        new ExecutorServiceMetrics(threadPool, "jdbc", Tags.empty()).bindTo(meterRegistry);
+        // the work runs as the user of the request
+        this.executor = new DelegatingSecurityContextExecutor(threadPool);
+
+        log.info("JDBC executor with {} threads and room for {} queued tasks", threads, queueCapacity);
+    }
+
+    /**
+     * @throws RejectedExecutionException when the queue is full, the work is not run
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> work) {
+        long queuedAt = System.nanoTime();
+        return CompletableFuture.supplyAsync(() -> {
+            waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+            return work.get();
+        }, executor);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        threadPool.shutdown();
+        if (!threadPool.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("JDBC executor still had work running after 30 seconds");
+        }
+    }
+}
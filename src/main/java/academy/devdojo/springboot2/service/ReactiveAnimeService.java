@@ -0,0 +1,94 @@
+package academy.devdojo.springboot2.service;
+
+import academy.devdojo.springboot2.config.CacheConfig;
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.event.AnimesChangedEvent;
+import academy.devdojo.springboot2.exception.BadRequestException;
+import academy.devdojo.springboot2.mapper.AnimeMapper;
+import academy.devdojo.springboot2.repository.ReactiveAnimeRepository;
+import academy.devdojo.springboot2.requests.AnimePostRequestBody;
+import academy.devdojo.springboot2.requests.AnimePutRequestBody;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Every write is a single statement that commits on its own, so what the JPA services leave for after
+ * the commit runs once the write succeeds: the name index is updated, the anime is evicted from the
+ * animes cache and {@link AnimesChangedEvent} is published. Like there, all of it is per node.
+ */
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Service
+@RequiredArgsConstructor
+public class ReactiveAnimeService {
+
+    private final ReactiveAnimeRepository animeRepository;
+    private final AnimeNameIndex animeNameIndex;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final CacheManager cacheManager;
+
+    public Mono<Page<Anime>> listAll(Pageable pageable) {
+        return Mono.zip(animeRepository.findAll(pageable).collectList(), animeRepository.count())
+                .map(pageAndTotal -> new PageImpl<>(pageAndTotal.getT1(), pageable, pageAndTotal.getT2()));
+    }
+
+    public Flux<Anime> listAllNonPageable() {
+        return animeRepository.findAll();
+    }
+
+    public Mono<Anime> findByIdOrThrowBadRequestException(Long id) {
+        return animeRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new BadRequestException("Anime not found")));
+    }
+
+    public Flux<Anime> findAllByName(String name) {
+        return animeRepository.findAllByName(name);
+    }
+
+    public Mono<Anime> save(AnimePostRequestBody animePostRequestBody) {
+        return animeRepository.save(AnimeMapper.INSTANCE.toAnime(animePostRequestBody))
+                .doOnNext(anime -> {
+                    animeNameIndex.put(anime);
+                    changed("create", anime.getId());
+                });
+    }
+
+    public Mono<Void> delete(Long id) {
+        return animeRepository.deleteById(id)
+                .flatMap(ReactiveAnimeService::checkFound)
+                .then(Mono.fromRunnable(() -> {
+                    animeNameIndex.remove(id);
+                    changed("delete", id);
+                }));
+    }
+
+    public Mono<Void> replace(AnimePutRequestBody animePutRequestBody) {
+        Anime anime = AnimeMapper.INSTANCE.toAnime(animePutRequestBody);
+        return animeRepository.replace(anime)
+                .flatMap(ReactiveAnimeService::checkFound)
+                .then(Mono.fromRunnable(() -> {
+                    animeNameIndex.put(anime);
+                    changed("replace", anime.getId());
+                }));
+    }
+
+    private void changed(String change, Long id) {
+        Cache animesCache = cacheManager.getCache(CacheConfig.ANIMES_CACHE);
+        if (animesCache != null) {
+            animesCache.evict(id);
+        }
+        applicationEventPublisher.publishEvent(new AnimesChangedEvent(change));
+    }
+
+    private static Mono<Void> checkFound(Integer rows) {
+        return rows == 0 ? Mono.error(new BadRequestException("Anime not found")) : Mono.empty();
+    }
+}
@@ -0,0 +1,29 @@
+package academy.devdojo.springboot2.wrapper;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Keyset (cursor) based page. There is no total count, the client keeps asking
+ * for the next page with {@code nextCursor} until it comes back as null.
+ */
+@Getter
+@ToString
+public class CursorPage<T> {
+    private final List<T> content;
+    private final int size;
+    private final String nextCursor;
+
+    @JsonCreator
+    public CursorPage(@JsonProperty("content") List<T> content,
+                      @JsonProperty("size") int size,
+                      @JsonProperty("nextCursor") String nextCursor) {
+        this.content = content;
+        this.size = size;
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,33 @@
+package academy.devdojo.springboot2.wrapper;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
+
+/**
+ * A page whose total is an estimate, written with approximate set to true. Whether there is a next
+ * page comes from the slice, one row past the page, so last stays exact whatever the estimate says.
+ */
+public class EstimatedPage<T> extends PageImpl<T> {
+    private final boolean hasNext;
+
+    public EstimatedPage(Slice<T> slice, long estimatedTotal) {
+        // the rows seen so far are a floor for the estimate, which may be older than them
+        super(slice.getContent(), slice.getPageable(), Math.max(estimatedTotal,
+                slice.getPageable().getOffset() + slice.getNumberOfElements() + (slice.hasNext() ? 1 : 0)));
+        this.hasNext = slice.hasNext();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    @Override
+    public boolean isLast() {
+        return !hasNext;
+    }
+
+    public boolean isApproximate() {
+        return true;
+    }
+}
@@ -2,6 +2,7 @@ package academy.devdojo.springboot2.wrapper;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonCreator.Mode;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.JsonNode;
 import lombok.Getter;
@@ -11,6 +12,13 @@ import org.springframework.data.domain.PageRequest;
 
 import java.util.List;
 
+/**
+ * Reads the pages of GET /animes whatever their count. An estimated page comes with approximate set,
+ * a slice has no totals at all, its totalElements becomes the rows it proves to exist and it is
+ * approximate as well. Whether there is a next page always follows last, never the totals.
+ */
+// a Page also writes empty, sort and other derived properties that are rebuilt here
+@JsonIgnoreProperties(ignoreUnknown = true)
 @Getter
 @Setter
 public class PageableResponse<T> extends PageImpl<T> {
@@ -18,24 +26,32 @@ public class PageableResponse<T> extends PageImpl<T> {
     private boolean last;
     private int totalPages;
     private int numberOfElements;
+    private boolean approximate;
 
     @JsonCreator(mode = Mode.PROPERTIES)
     public PageableResponse(@JsonProperty("content") List<T> content,
                             @JsonProperty("number") int number,
                             @JsonProperty("size") int size,
-                            @JsonProperty("totalElements") int totalElements,
+                            @JsonProperty("totalElements") Long totalElements,
                             @JsonProperty("last") boolean last,
                             @JsonProperty("first") boolean first,
-                            @JsonProperty("totalPages") int totalPages,
+                            @JsonProperty("totalPages") Integer totalPages,
                             @JsonProperty("numberOfElements") int numberOfElements,
+                            @JsonProperty("approximate") boolean approximate,
                             @JsonProperty("pageable") JsonNode pageable,
                             @JsonProperty("sort") JsonNode sort) {
-        super(content, PageRequest.of(number, size), totalElements);
+        super(content, PageRequest.of(number, size), totalElements != null ? totalElements
+                : (long) number * size + content.size() + (last ? 0 : 1));
 
         this.last = last;
         this.first = first;
-        this.totalPages = totalPages;
+        this.totalPages = totalPages != null ? totalPages : super.getTotalPages();
         this.numberOfElements = numberOfElements;
+        this.approximate = approximate || totalElements == null;
+    }
 
+    @Override
+    public boolean hasNext() {
+        return !last;
     }
 }
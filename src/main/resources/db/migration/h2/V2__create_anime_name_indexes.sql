@@ -0,0 +1,2 @@
+-- H2 has no expression or trigram indexes, the tests only need the plain one
+create index if not exists anime_name_idx on anime (name);
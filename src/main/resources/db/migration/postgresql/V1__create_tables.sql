@@ -0,0 +1,22 @@
+-- tables used to be created by hibernate (ddl-auto: update), "if not exists" lets this run on those databases too
+create sequence if not exists anime_seq start with 1 increment by 50;
+
+create table if not exists anime
+(
+    id   bigint not null,
+    name varchar(255),
+    primary key (id)
+);
+
+create table if not exists usuario
+(
+    id          bigserial not null,
+    authorities varchar(255),
+    name        varchar(255),
+    password    varchar(255),
+    username    varchar(255),
+    primary key (id)
+);
+
+-- anime ids used to come from an identity column, keep the sequence ahead of them
+select setval('anime_seq', (select coalesce(max(id), 0) + 50 from anime));
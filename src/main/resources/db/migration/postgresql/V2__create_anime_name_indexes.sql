@@ -0,0 +1,10 @@
+create extension if not exists pg_trgm;
+
+-- exact match, /animes/find
+create index if not exists anime_name_idx on anime (name);
+
+-- case-insensitive equality and prefix search, upper(name) like 'PREFIX%'
+create index if not exists anime_name_upper_prefix_idx on anime (upper(name) text_pattern_ops);
+
+-- case-insensitive contains search, upper(name) like '%TERM%'
+create index if not exists anime_name_upper_trgm_idx on anime using gin (upper(name) gin_trgm_ops);
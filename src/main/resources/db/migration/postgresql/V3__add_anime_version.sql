@@ -0,0 +1,2 @@
+-- optimistic locking column, also the source of the anime ETags
+alter table anime add column if not exists version bigint not null default 0;
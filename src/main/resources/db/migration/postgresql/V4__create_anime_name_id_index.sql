@@ -0,0 +1,5 @@
+-- sort=name gets id appended as the tie-breaker, order by name, id reads this index in either direction
+create index if not exists anime_name_id_idx on anime (name, id);
+
+-- exact match, /animes/find, is served by the leading column of the index above
+drop index if exists anime_name_idx;
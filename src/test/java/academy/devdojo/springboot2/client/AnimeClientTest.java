@@ -0,0 +1,152 @@
+package academy.devdojo.springboot2.client;
+
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.util.AnimePostRequestBodyCreator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@DisplayName("Tests for Anime Client")
+class AnimeClientTest {
+
+    private static final String ANIME_JSON = "{\"id\":1,\"name\":\"Boku no Hero\",\"version\":0}";
+
+    private HttpServer server;
+
+    private final Queue<Integer> statuses = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger animeRequests = new AtomicInteger();
+
+    private final AtomicInteger tokenRequests = new AtomicInteger();
+
+    private final Queue<String> authorizations = new ConcurrentLinkedQueue<>();
+
+    private AnimeClient animeClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/animes", exchange -> {
+            animeRequests.incrementAndGet();
+            authorizations.add(String.valueOf(exchange.getRequestHeaders().getFirst("Authorization")));
+            Integer status = statuses.poll();
+            if (status == null || status == 200) {
+                respond(exchange, 200, ANIME_JSON);
+            } else {
+                respond(exchange, status, "{\"title\":\"Error\"}");
+            }
+        });
+        server.createContext("/auth/token", exchange -> respond(exchange, 200,
+                "{\"accessToken\":\"token-" + tokenRequests.incrementAndGet() + "\",\"tokenType\":\"Bearer\",\"expiresIn\":900}"));
+        server.start();
+
+        animeClient = AnimeClient.builder("http://localhost:" + server.getAddress().getPort())
+                .maxRetries(2)
+                .retryBackoff(Duration.ofMillis(1))
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("findById retries and returns anime when the server is unavailable at first")
+    void findById_RetriesAndReturnsAnime_WhenServerIsUnavailableAtFirst() {
+        statuses.addAll(List.of(503, 502));
+
+        Anime anime = animeClient.findById(1);
+
+        Assertions.assertThat(anime).isNotNull();
+        Assertions.assertThat(anime.getName()).isEqualTo("Boku no Hero");
+        Assertions.assertThat(animeRequests).hasValue(3);
+    }
+
+    @Test
+    @DisplayName("findById throws AnimeClientException with the status when the retries run out")
+    void findById_ThrowsAnimeClientException_WhenRetriesRunOut() {
+        statuses.addAll(List.of(503, 503, 503));
+
+        Assertions.assertThatExceptionOfType(AnimeClientException.class)
+                .isThrownBy(() -> animeClient.findById(1))
+                .satisfies(e -> Assertions.assertThat(e.getStatusCode()).isEqualTo(503));
+
+        Assertions.assertThat(animeRequests).hasValue(3);
+    }
+
+    @Test
+    @DisplayName("findById does not retry when the server answers with a client error")
+    void findById_DoesNotRetry_WhenServerAnswersWithClientError() {
+        statuses.add(400);
+
+        Assertions.assertThatExceptionOfType(AnimeClientException.class)
+                .isThrownBy(() -> animeClient.findById(1))
+                .satisfies(e -> Assertions.assertThat(e.getResponseBody()).contains("Error"));
+
+        Assertions.assertThat(animeRequests).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("save does not retry when the server is unavailable")
+    void save_DoesNotRetry_WhenServerIsUnavailable() {
+        statuses.add(503);
+
+        Assertions.assertThatExceptionOfType(AnimeClientException.class)
+                .isThrownBy(() -> animeClient.save(AnimePostRequestBodyCreator.createAnimePostRequestBody()))
+                .satisfies(e -> Assertions.assertThat(e.getStatusCode()).isEqualTo(503));
+
+        Assertions.assertThat(animeRequests).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("login reuses the token between requests and renews it when the server answers 401")
+    void login_ReusesTokenAndRenewsIt_WhenServerAnswers401() {
+        AnimeClient loggedInClient = AnimeClient.builder("http://localhost:" + server.getAddress().getPort())
+                .login("user", "test")
+                .build();
+
+        loggedInClient.findById(1);
+        loggedInClient.findById(1);
+        statuses.add(401);
+        loggedInClient.findById(1);
+
+        Assertions.assertThat(tokenRequests).hasValue(2);
+        Assertions.assertThat(authorizations)
+                .containsExactly("Bearer token-1", "Bearer token-1", "Bearer token-1", "Bearer token-2");
+    }
+
+    @Test
+    @DisplayName("findById throws AnimeClientException without status when the server cannot be reached")
+    void findById_ThrowsAnimeClientException_WhenServerCannotBeReached() {
+        server.stop(0);
+
+        Assertions.assertThatExceptionOfType(AnimeClientException.class)
+                .isThrownBy(() -> animeClient.findById(1))
+                .satisfies(e -> Assertions.assertThat(e.getStatusCode()).isZero())
+                .withCauseInstanceOf(IOException.class);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+}
@@ -1,12 +1,24 @@
 package academy.devdojo.springboot2.controller;
 
 import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.exception.BadRequestException;
+import academy.devdojo.springboot2.exception.PreconditionFailedException;
+import academy.devdojo.springboot2.repository.AnimeTableVersion;
+import academy.devdojo.springboot2.requests.AnimeField;
+import academy.devdojo.springboot2.requests.AnimeNameMatch;
 import academy.devdojo.springboot2.requests.AnimePostRequestBody;
 import academy.devdojo.springboot2.requests.AnimePutRequestBody;
+import academy.devdojo.springboot2.requests.PageCount;
+import academy.devdojo.springboot2.responses.AnimeSuggestionResponseBody;
+import academy.devdojo.springboot2.responses.BulkResponseBody;
+import academy.devdojo.springboot2.service.AnimeBulkService;
 import academy.devdojo.springboot2.service.AnimeService;
+import academy.devdojo.springboot2.service.JdbcExecutor;
 import academy.devdojo.springboot2.util.AnimeCreator;
 import academy.devdojo.springboot2.util.AnimePostRequestBodyCreator;
 import academy.devdojo.springboot2.util.AnimePutRequestBodyCreator;
+import academy.devdojo.springboot2.wrapper.CursorPage;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -16,14 +28,26 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.BDDMockito;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @ExtendWith(SpringExtension.class)
 @DisplayName("Tests for Anime Controller")
@@ -35,30 +59,72 @@ class AnimeControllerTest {
     @Mock
     private AnimeService animeServiceMock;
 
+    @Mock
+    private AnimeBulkService animeBulkServiceMock;
+
+    @Mock
+    private JdbcExecutor jdbcExecutorMock;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @BeforeEach
     void setUp() {
+        // runs the database work right away on the test thread
+        BDDMockito.when(this.jdbcExecutorMock.supply(ArgumentMatchers.any()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(invocation.<Supplier<?>>getArgument(0).get()));
+
         Anime anime = AnimeCreator.createValidAnime();
         List<Anime> animes = List.of(anime);
         PageImpl<Anime> animePage = new PageImpl<>(animes);
 
-        BDDMockito.when(this.animeServiceMock.listAll(ArgumentMatchers.any()))
+        AnimeTableVersion tableVersion = BDDMockito.mock(AnimeTableVersion.class);
+        BDDMockito.when(tableVersion.getTotal()).thenReturn(1L);
+        BDDMockito.when(tableVersion.getMaxId()).thenReturn(1L);
+        BDDMockito.when(tableVersion.getVersionSum()).thenReturn(0L);
+
+        BDDMockito.when(this.animeServiceMock.findTableVersion())
+                .thenReturn(tableVersion);
+
+        BDDMockito.when(this.animeServiceMock.listAll(ArgumentMatchers.any(), ArgumentMatchers.anyLong()))
                 .thenReturn(animePage);
 
+        BDDMockito.when(this.animeServiceMock.listAfterCursor(ArgumentMatchers.any(), ArgumentMatchers.anyInt()))
+                .thenReturn(new CursorPage<>(animes, 1, null));
+
         BDDMockito.when(this.animeServiceMock.listAllNonPageable())
                 .thenReturn(animes);
 
+        BDDMockito.doAnswer(invocation -> {
+            Consumer<Anime> consumer = invocation.getArgument(0);
+            animes.forEach(consumer);
+            return null;
+        }).when(this.animeServiceMock).forEachAnime(ArgumentMatchers.any());
+
         BDDMockito.when(this.animeServiceMock.findByIdOrThrowBadRequestException(ArgumentMatchers.anyLong()))
                 .thenReturn(anime);
 
         BDDMockito.when(this.animeServiceMock.findAllByName(ArgumentMatchers.anyString()))
                 .thenReturn(animes);
 
+        BDDMockito.when(this.animeServiceMock.findAllByIds(ArgumentMatchers.anyList()))
+                .thenReturn(animes);
+
+        BDDMockito.when(this.animeServiceMock.search(ArgumentMatchers.anyString(), ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenReturn(animePage);
+
         BDDMockito.when(this.animeServiceMock.save(ArgumentMatchers.any(AnimePostRequestBody.class)))
                 .thenReturn(anime);
 
-        BDDMockito.doNothing().when(this.animeServiceMock).replace(ArgumentMatchers.any(AnimePutRequestBody.class));
+        BDDMockito.when(this.animeBulkServiceMock.saveAll(ArgumentMatchers.anyList()))
+                .thenReturn(BulkResponseBody.builder().succeeded(1).build());
+
+        BDDMockito.when(this.animeServiceMock.findVersionByIdOrThrowBadRequestException(ArgumentMatchers.anyLong()))
+                .thenReturn(0L);
+
+        BDDMockito.doNothing().when(this.animeServiceMock).replace(ArgumentMatchers.any(AnimePutRequestBody.class), ArgumentMatchers.any());
 
-        BDDMockito.doNothing().when(this.animeServiceMock).delete(ArgumentMatchers.anyLong());
+        BDDMockito.doNothing().when(this.animeServiceMock).delete(ArgumentMatchers.anyLong(), ArgumentMatchers.any());
     }
 
     @Test
@@ -66,7 +132,7 @@ class AnimeControllerTest {
     void list_ReturnListOfAnimeInsidePageObject_WhenSuccessful() {
         String expectedName = AnimeCreator.createValidAnime().getName();
 
-        Page<Anime> animePage = this.animeController.list(null).getBody();
+        Slice<?> animePage = this.animeController.list(null, PageCount.EXACT, null, webRequest()).join().getBody();
 
         Assertions.assertThat(animePage).isNotNull();
 
@@ -74,7 +140,98 @@ class AnimeControllerTest {
                 .isNotNull()
                 .hasSize(1);
 
-        Assertions.assertThat(animePage.toList().get(0).getName()).isEqualTo(expectedName);
+        Assertions.assertThat(((Anime) animePage.toList().get(0)).getName()).isEqualTo(expectedName);
+    }
+
+    @Test
+    @DisplayName("list takes the total from the table version without counting when count is EXACT")
+    void list_TakesTotalFromTableVersionWithoutCounting_WhenCountIsExact() {
+        this.animeController.list(null, PageCount.EXACT, null, webRequest()).join();
+
+        BDDMockito.verify(this.animeServiceMock).listAll(null, 1L);
+        BDDMockito.verify(this.animeServiceMock, BDDMockito.never()).listAll(ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("list sends a different ETag for each representation when Accept asks for Smile or CBOR")
+    void list_SendsDifferentETagForEachRepresentation_WhenAcceptAsksForSmileOrCbor() {
+        String jsonETag = this.animeController.list(null, PageCount.EXACT, null, webRequest())
+                .join().getHeaders().getETag();
+        String smileETag = this.animeController.list(null, PageCount.EXACT, null, webRequest("application/x-jackson-smile"))
+                .join().getHeaders().getETag();
+        String cborETag = this.animeController.list(null, PageCount.EXACT, null, webRequest("application/cbor"))
+                .join().getHeaders().getETag();
+
+        Assertions.assertThat(jsonETag).isEqualTo("\"1-1-0\"");
+        Assertions.assertThat(smileETag).isEqualTo("\"1-1-0+smile\"");
+        Assertions.assertThat(cborETag).isEqualTo("\"1-1-0+cbor\"");
+    }
+
+    @Test
+    @DisplayName("list sends another ETag for a page with some fields than for the full page when count is EXACT")
+    void list_SendsAnotherETagForPageWithSomeFields_WhenCountIsExact() {
+        String fullETag = this.animeController.list(null, PageCount.EXACT, null, webRequest())
+                .join().getHeaders().getETag();
+        String nameETag = this.animeController.list(null, PageCount.EXACT, "name", webRequest())
+                .join().getHeaders().getETag();
+
+        Assertions.assertThat(fullETag).isEqualTo("\"1-1-0\"");
+        Assertions.assertThat(nameETag).isEqualTo("\"1-1-0;id,name\"");
+    }
+
+    @Test
+    @DisplayName("list return a slice without reading the table version when count is NONE")
+    void list_ReturnSliceWithoutReadingTableVersion_WhenCountIsNone() {
+        BDDMockito.when(this.animeServiceMock.listSlice(ArgumentMatchers.any()))
+                .thenReturn(new SliceImpl<>(List.of(AnimeCreator.createValidAnime()), PageRequest.of(0, 1), true));
+
+        ResponseEntity<Slice<?>> entity = this.animeController.list(null, PageCount.NONE, null, webRequest()).join();
+
+        Assertions.assertThat(entity.getBody()).isNotNull();
+        Assertions.assertThat(entity.getBody().hasNext()).isTrue();
+        Assertions.assertThat(entity.getHeaders().getETag()).isNull();
+
+        BDDMockito.verify(this.animeServiceMock, BDDMockito.never()).findTableVersion();
+        BDDMockito.verify(this.animeServiceMock, BDDMockito.never()).listAll(ArgumentMatchers.any(), ArgumentMatchers.anyLong());
+    }
+
+    @Test
+    @DisplayName("list reads only the columns of the fields, always with the id, when fields is given")
+    void list_ReadsOnlyColumnsOfFields_WhenFieldsIsGiven() {
+        BDDMockito.when(this.animeServiceMock.listViews(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenReturn(new SliceImpl<>(Collections.emptyList()));
+
+        ResponseEntity<Slice<?>> entity = this.animeController.list(null, PageCount.NONE, "name", webRequest()).join();
+
+        Assertions.assertThat(entity.getBody()).isNotNull();
+
+        BDDMockito.verify(this.animeServiceMock)
+                .listViews(EnumSet.of(AnimeField.ID, AnimeField.NAME), null, PageCount.NONE);
+        BDDMockito.verify(this.animeServiceMock, BDDMockito.never()).listSlice(ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("list throws BadRequestException when a field is unknown")
+    void list_ThrowsBadRequestException_WhenFieldIsUnknown() {
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> this.animeController.list(null, PageCount.EXACT, "id,password", webRequest()))
+                .withMessageContaining("password");
+    }
+
+    @Test
+    @DisplayName("listByCursor return list of anime inside cursor page object when successful")
+    void listByCursor_ReturnListOfAnimeInsideCursorPageObject_WhenSuccessful() {
+        String expectedName = AnimeCreator.createValidAnime().getName();
+
+        CursorPage<Anime> animePage = this.animeController.listByCursor(null, 1).join().getBody();
+
+        Assertions.assertThat(animePage).isNotNull();
+
+        Assertions.assertThat(animePage.getContent())
+                .isNotNull()
+                .hasSize(1);
+
+        Assertions.assertThat(animePage.getContent().get(0).getName()).isEqualTo(expectedName);
     }
 
     @Test
@@ -82,7 +239,7 @@ class AnimeControllerTest {
     void listAll_ReturnListOfAnime_WhenSuccessful() {
         String expectedName = AnimeCreator.createValidAnime().getName();
 
-        List<Anime> animes = this.animeController.listAll().getBody();
+        List<Anime> animes = this.animeController.listAll(webRequest()).join().getBody();
 
         Assertions.assertThat(animes)
                 .isNotNull()
@@ -92,12 +249,30 @@ class AnimeControllerTest {
         Assertions.assertThat(animes.get(0).getName()).isEqualTo(expectedName);
     }
 
+    @Test
+    @DisplayName("export write one anime per line when successful")
+    void export_WriteOneAnimePerLine_WhenSuccessful() throws Exception {
+        Anime expectedAnime = AnimeCreator.createValidAnime();
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        this.animeController.export(response);
+
+        Assertions.assertThat(response.getContentType()).isEqualTo("application/x-ndjson");
+
+        String[] lines = response.getContentAsString().split("\n");
+
+        Assertions.assertThat(lines).hasSize(1);
+
+        Assertions.assertThat(objectMapper.readValue(lines[0], Anime.class)).isEqualTo(expectedAnime);
+    }
+
     @Test
     @DisplayName("findById return anime when successful")
     void findById_ReturnAnime_WhenSuccessful() {
         Long expectedId = AnimeCreator.createValidAnime().getId();
 
-        Anime anime = this.animeController.findById(1L).getBody();
+        Anime anime = this.animeController.findById(1L, webRequest()).join().getBody();
 
         Assertions.assertThat(anime).isNotNull();
 
@@ -106,12 +281,96 @@ class AnimeControllerTest {
                 .isEqualTo(expectedId);
     }
 
+    @Test
+    @DisplayName("findById return not modified without loading the anime when If-None-Match has the current ETag")
+    void findById_ReturnNotModifiedWithoutLoadingAnime_WhenIfNoneMatchHasCurrentETag() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/animes/1");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"0\"");
+
+        ResponseEntity<Anime> entity = this.animeController
+                .findById(1L, new ServletWebRequest(request, new MockHttpServletResponse())).join();
+
+        Assertions.assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        Assertions.assertThat(entity.getHeaders().getETag()).isEqualTo("\"0\"");
+
+        Assertions.assertThat(entity.getBody()).isNull();
+
+        BDDMockito.verify(this.animeServiceMock, BDDMockito.never()).findByIdOrThrowBadRequestException(ArgumentMatchers.anyLong());
+    }
+
+    @Test
+    @DisplayName("findById return the JSON ETag when Accept prefers JSON over Smile")
+    void findById_ReturnJsonETag_WhenAcceptPrefersJsonOverSmile() {
+        BDDMockito.when(this.animeServiceMock.findByIdOrThrowBadRequestException(ArgumentMatchers.anyLong()))
+                .thenReturn(Anime.builder().id(1L).name("Anime Test").version(0L).build());
+
+        ResponseEntity<Anime> json = this.animeController
+                .findById(1L, webRequest("application/x-jackson-smile;q=0.5, */*")).join();
+        ResponseEntity<Anime> smile = this.animeController
+                .findById(1L, webRequest("application/json;q=0.5, application/x-jackson-smile")).join();
+
+        Assertions.assertThat(json.getHeaders().getETag()).isEqualTo("\"0\"");
+        Assertions.assertThat(smile.getHeaders().getETag()).isEqualTo("\"0+smile\"");
+    }
+
+    @Test
+    @DisplayName("list return not modified when If-None-Match has the current collection ETag")
+    void list_ReturnNotModified_WhenIfNoneMatchHasCurrentCollectionETag() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/animes");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "W/\"0-0-0\", \"1-1-0\"");
+
+        ResponseEntity<Slice<?>> entity = this.animeController
+                .list(null, PageCount.EXACT, null, new ServletWebRequest(request, new MockHttpServletResponse())).join();
+
+        Assertions.assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        BDDMockito.verify(this.animeServiceMock, BDDMockito.never()).listAll(ArgumentMatchers.any(), ArgumentMatchers.anyLong());
+    }
+
+    @Test
+    @DisplayName("replace pass the version of If-Match to the service when successful")
+    void replace_PassVersionOfIfMatchToService_WhenSuccessful() {
+        AnimePutRequestBody animePutRequestBody = AnimePutRequestBodyCreator.createAnimePutRequestBody();
+
+        animeController.replace(animePutRequestBody, "\"3\"");
+
+        BDDMockito.verify(this.animeServiceMock).replace(animePutRequestBody, 3L);
+    }
+
+    @Test
+    @DisplayName("replace pass the version to the service when If-Match is the ETag of a binary representation")
+    void replace_PassVersionToService_WhenIfMatchIsETagOfBinaryRepresentation() {
+        AnimePutRequestBody animePutRequestBody = AnimePutRequestBodyCreator.createAnimePutRequestBody();
+
+        animeController.replace(animePutRequestBody, "\"3+cbor\"");
+
+        BDDMockito.verify(this.animeServiceMock).replace(animePutRequestBody, 3L);
+    }
+
+    @Test
+    @DisplayName("replace throw PreconditionFailedException when If-Match is a weak ETag")
+    void replace_ThrowPreconditionFailedException_WhenIfMatchIsWeakETag() {
+        Assertions.assertThatExceptionOfType(PreconditionFailedException.class)
+                .isThrownBy(() -> animeController.replace(AnimePutRequestBodyCreator.createAnimePutRequestBody(), "W/\"3\""));
+    }
+
+    @Test
+    @DisplayName("findByIds return list of anime when successful")
+    void findByIds_ReturnListOfAnime_WhenSuccessful() {
+        List<Anime> animes = this.animeController.findByIds(List.of(1L, 2L)).join().getBody();
+
+        Assertions.assertThat(animes)
+                .isNotNull()
+                .containsExactly(AnimeCreator.createValidAnime());
+    }
+
     @Test
     @DisplayName("findByName return list of anime when successful")
     void findByName_ReturnListOfAnime_WhenSuccessful() {
         String expectedName = AnimeCreator.createValidAnime().getName();
 
-        List<Anime> animes = this.animeController.findByName("anime").getBody();
+        List<Anime> animes = this.animeController.findByName("anime").join().getBody();
 
         Assertions.assertThat(animes)
                 .isNotNull()
@@ -127,30 +386,81 @@ class AnimeControllerTest {
         BDDMockito.when(this.animeServiceMock.findAllByName(ArgumentMatchers.anyString()))
                 .thenReturn(Collections.emptyList());
 
-        List<Anime> animes = this.animeController.findByName("anime").getBody();
+        List<Anime> animes = this.animeController.findByName("anime").join().getBody();
 
         Assertions.assertThat(animes)
                 .isNotNull()
                 .isEmpty();
     }
 
+    @Test
+    @DisplayName("search reads only the columns of the fields when fields is given")
+    void search_ReadsOnlyColumnsOfFields_WhenFieldsIsGiven() {
+        BDDMockito.when(this.animeServiceMock.searchViews(ArgumentMatchers.any(), ArgumentMatchers.anyString(),
+                        ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenReturn(new PageImpl<>(Collections.emptyList()));
+
+        this.animeController.search("anime", AnimeNameMatch.EXACT, null, "name").join();
+
+        BDDMockito.verify(this.animeServiceMock)
+                .searchViews(EnumSet.of(AnimeField.ID, AnimeField.NAME), "anime", AnimeNameMatch.EXACT, null);
+        BDDMockito.verify(this.animeServiceMock, BDDMockito.never())
+                .search(ArgumentMatchers.anyString(), ArgumentMatchers.any(), ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("search return list of anime inside page object when successful")
+    void search_ReturnListOfAnimeInsidePageObject_WhenSuccessful() {
+        String expectedName = AnimeCreator.createValidAnime().getName();
+
+        Page<?> animePage = this.animeController.search("anime", AnimeNameMatch.PREFIX, null, null).join().getBody();
+
+        Assertions.assertThat(animePage).isNotNull();
+
+        Assertions.assertThat(animePage.toList())
+                .isNotNull()
+                .hasSize(1);
+
+        Assertions.assertThat(((Anime) animePage.toList().get(0)).getName()).isEqualTo(expectedName);
+    }
+
+    @Test
+    @DisplayName("suggest return list of suggestions when successful")
+    void suggest_ReturnListOfSuggestions_WhenSuccessful() {
+        List<AnimeSuggestionResponseBody> suggestions = List.of(new AnimeSuggestionResponseBody(1L, "Anime Test"));
+        BDDMockito.when(this.animeServiceMock.suggest("ani", 10)).thenReturn(suggestions);
+
+        Assertions.assertThat(this.animeController.suggest("ani", 10).getBody()).isEqualTo(suggestions);
+    }
+
     @Test
     @DisplayName("save return anime when successful")
     void save_ReturnAnime_WhenSuccessful() {
-        Anime anime = this.animeController.save(AnimePostRequestBodyCreator.createAnimePostRequestBody()).getBody();
+        Anime anime = this.animeController.save(AnimePostRequestBodyCreator.createAnimePostRequestBody()).join().getBody();
 
         Assertions.assertThat(anime)
                 .isNotNull()
                 .isEqualTo(AnimeCreator.createValidAnime());
     }
 
+    @Test
+    @DisplayName("saveAll return bulk result when successful")
+    void saveAll_ReturnBulkResult_WhenSuccessful() {
+        BulkResponseBody response = this.animeController
+                .saveAll(List.of(AnimePostRequestBodyCreator.createAnimePostRequestBody())).getBody();
+
+        Assertions.assertThat(response).isNotNull();
+
+        Assertions.assertThat(response.getSucceeded()).isEqualTo(1);
+    }
+
     @Test
     @DisplayName("replace does not throw any exception when successful")
     void replace_DoesNotThrowAnyException_WhenSuccessful() {
-        Assertions.assertThatCode(() -> animeController.replace(AnimePutRequestBodyCreator.createAnimePutRequestBody()))
+        Assertions.assertThatCode(() -> animeController.replace(AnimePutRequestBodyCreator.createAnimePutRequestBody(), null))
                 .doesNotThrowAnyException();
 
-        ResponseEntity<Void> entity = animeController.replace(AnimePutRequestBodyCreator.createAnimePutRequestBody());
+        ResponseEntity<Void> entity = animeController.replace(AnimePutRequestBodyCreator.createAnimePutRequestBody(), null).join();
 
         Assertions.assertThat(entity).isNotNull();
 
@@ -160,14 +470,23 @@ class AnimeControllerTest {
     @Test
     @DisplayName("delete does not throw any exception when successful")
     void delete_DoesNotThrowAnyException_WhenSuccessful() {
-        Assertions.assertThatCode(() -> animeController.delete(1L))
+        Assertions.assertThatCode(() -> animeController.delete(1L, null))
                 .doesNotThrowAnyException();
 
-        ResponseEntity<Void> entity = animeController.delete(1L);
+        ResponseEntity<Void> entity = animeController.delete(1L, null).join();
 
         Assertions.assertThat(entity).isNotNull();
 
         Assertions.assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
     }
 
+    private static ServletWebRequest webRequest() {
+        return new ServletWebRequest(new MockHttpServletRequest("GET", "/animes"), new MockHttpServletResponse());
+    }
+
+    private static ServletWebRequest webRequest(String accept) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/animes");
+        request.addHeader(HttpHeaders.ACCEPT, accept);
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
 }
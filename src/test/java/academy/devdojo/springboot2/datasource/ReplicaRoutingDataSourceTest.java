@@ -0,0 +1,89 @@
+package academy.devdojo.springboot2.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.BDDMockito;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@DisplayName("Tests for Replica Routing Data Source")
+class ReplicaRoutingDataSourceTest {
+
+    private final AtomicBoolean wroteRecently = new AtomicBoolean();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    private Connection primaryConnection;
+
+    private Connection firstReplicaConnection;
+
+    private Connection secondReplicaConnection;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        primaryConnection = BDDMockito.mock(Connection.class);
+        firstReplicaConnection = BDDMockito.mock(Connection.class);
+        secondReplicaConnection = BDDMockito.mock(Connection.class);
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-0", dataSource(firstReplicaConnection));
+        replicas.put("replica-1", dataSource(secondReplicaConnection));
+
+        meterRegistry = new SimpleMeterRegistry();
+        replicaRoutingDataSource = new ReplicaRoutingDataSource(dataSource(primaryConnection), replicas,
+                wroteRecently::get, meterRegistry);
+        replicaRoutingDataSource.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    @DisplayName("getConnection returns a primary connection outside a read-only transaction")
+    void getConnection_ReturnsPrimaryConnection_WhenTransactionIsNotReadOnly() throws Exception {
+        Assertions.assertThat(replicaRoutingDataSource.getConnection()).isSameAs(primaryConnection);
+    }
+
+    @Test
+    @DisplayName("getConnection takes the replicas in turn inside a read-only transaction")
+    void getConnection_TakesReplicasInTurn_WhenTransactionIsReadOnly() throws Exception {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        Assertions.assertThat(replicaRoutingDataSource.getConnection()).isSameAs(firstReplicaConnection);
+        Assertions.assertThat(replicaRoutingDataSource.getConnection()).isSameAs(secondReplicaConnection);
+        Assertions.assertThat(replicaRoutingDataSource.getConnection()).isSameAs(firstReplicaConnection);
+
+        Assertions.assertThat(meterRegistry.get("datasource.routes").tag("target", "replica-0").counter().count())
+                .isEqualTo(2);
+        Assertions.assertThat(meterRegistry.get("datasource.routes").tag("target", "replica-1").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("getConnection returns a primary connection inside a read-only transaction when the user wrote recently")
+    void getConnection_ReturnsPrimaryConnection_WhenUserWroteRecently() throws Exception {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        wroteRecently.set(true);
+
+        Assertions.assertThat(replicaRoutingDataSource.getConnection()).isSameAs(primaryConnection);
+    }
+
+    private static DataSource dataSource(Connection connection) throws Exception {
+        DataSource dataSource = BDDMockito.mock(DataSource.class);
+        BDDMockito.when(dataSource.getConnection()).thenReturn(connection);
+        return dataSource;
+    }
+}
@@ -0,0 +1,46 @@
+package academy.devdojo.springboot2.filter;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+@DisplayName("Tests for Adaptive Concurrency Limit")
+class AdaptiveConcurrencyLimitTest {
+
+    @Test
+    @DisplayName("release grows the limit while the latency is steady and the limit is in use")
+    void release_GrowsLimit_WhenLatencyIsSteadyAndLimitIsInUse() {
+        AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(4, 2, 10, 2.0);
+
+        for (int i = 0; i < 20; i++) {
+            for (int j = 0; j < concurrencyLimit.getLimit(); j++) {
+                Assertions.assertThat(concurrencyLimit.tryAcquire()).isTrue();
+            }
+            Assertions.assertThat(concurrencyLimit.tryAcquire()).isFalse();
+            while (concurrencyLimit.getInFlight() > 0) {
+                concurrencyLimit.release(TimeUnit.MILLISECONDS.toNanos(10));
+            }
+        }
+
+        Assertions.assertThat(concurrencyLimit.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("release shrinks the limit down to the minimum when the latency rises")
+    void release_ShrinksLimit_WhenLatencyRises() {
+        AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(20, 2, 20, 2.0);
+        for (int i = 0; i < 100; i++) {
+            concurrencyLimit.tryAcquire();
+            concurrencyLimit.release(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+
+        for (int i = 0; i < 100; i++) {
+            concurrencyLimit.tryAcquire();
+            concurrencyLimit.release(TimeUnit.MILLISECONDS.toNanos(100));
+        }
+
+        Assertions.assertThat(concurrencyLimit.getLimit()).isEqualTo(2);
+    }
+}
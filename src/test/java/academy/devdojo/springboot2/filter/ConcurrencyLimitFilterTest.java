@@ -0,0 +1,119 @@
+package academy.devdojo.springboot2.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@DisplayName("Tests for Concurrency Limit Filter")
+class ConcurrencyLimitFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ConcurrencyLimitFilter concurrencyLimitFilter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        concurrencyLimitFilter = new ConcurrencyLimitFilter(1, Duration.ofMillis(50), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("doFilter lets the requests through and gives the slot back when under the limit")
+    void doFilter_LetsRequestsThrough_WhenUnderTheLimit() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            MockFilterChain filterChain = new MockFilterChain();
+
+            concurrencyLimitFilter.doFilter(new MockHttpServletRequest("GET", "/animes"), response, filterChain);
+
+            Assertions.assertThat(filterChain.getRequest()).isNotNull();
+            Assertions.assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        }
+        Assertions.assertThat(meterRegistry.get("http.server.requests.limit.available").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("doFilter returns 503 with Retry-After when the limit is reached for the whole acquire timeout")
+    void doFilter_Returns503_WhenLimitIsReachedForTheWholeAcquireTimeout() throws Exception {
+        CountDownLatch inFlight = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            try {
+                concurrencyLimitFilter.doFilter(new MockHttpServletRequest("GET", "/animes"),
+                        new MockHttpServletResponse(), new MockFilterChain(new HttpServlet() {
+                            @Override
+                            protected void service(HttpServletRequest request, HttpServletResponse response) {
+                                inFlight.countDown();
+                                awaitQuietly(release);
+                            }
+                        }));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        holder.start();
+        Assertions.assertThat(inFlight.await(5, TimeUnit.SECONDS)).isTrue();
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain filterChain = new MockFilterChain();
+        concurrencyLimitFilter.doFilter(new MockHttpServletRequest("GET", "/animes"), response, filterChain);
+
+        release.countDown();
+        holder.join();
+
+        Assertions.assertThat(filterChain.getRequest()).isNull();
+        Assertions.assertThat(response.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+        Assertions.assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        Assertions.assertThat(meterRegistry.get("http.server.requests.limit.rejected").counter().count()).isEqualTo(1);
+        Assertions.assertThat(meterRegistry.get("http.server.requests.limit.available").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("doFilter keeps the slot of an async request until the async request completes")
+    void doFilter_KeepsSlotOfAsyncRequest_UntilAsyncRequestCompletes() throws Exception {
+        MockHttpServletRequest asyncRequest = new MockHttpServletRequest("GET", "/animes");
+        asyncRequest.setAsyncSupported(true);
+        concurrencyLimitFilter.doFilter(asyncRequest, new MockHttpServletResponse(), new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) {
+                request.startAsync();
+            }
+        }));
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        concurrencyLimitFilter.doFilter(new MockHttpServletRequest("GET", "/animes"), rejected, new MockFilterChain());
+
+        Assertions.assertThat(rejected.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+        Assertions.assertThat(meterRegistry.get("http.server.requests.limit.available").gauge().value()).isZero();
+
+        asyncRequest.getAsyncContext().complete();
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        concurrencyLimitFilter.doFilter(new MockHttpServletRequest("GET", "/animes"), response, new MockFilterChain());
+
+        Assertions.assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        Assertions.assertThat(meterRegistry.get("http.server.requests.limit.available").gauge().value()).isEqualTo(1);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
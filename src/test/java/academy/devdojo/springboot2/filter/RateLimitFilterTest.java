@@ -0,0 +1,123 @@
+package academy.devdojo.springboot2.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@DisplayName("Tests for Rate Limit Filter")
+class RateLimitFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RateLimitFilter rateLimitFilter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        Map<String, RateLimitFilter.Limit> limitsByRole = new LinkedHashMap<>();
+        limitsByRole.put("ADMIN", new RateLimitFilter.Limit(0.1, 4));
+        limitsByRole.put("USER", new RateLimitFilter.Limit(0.1, 2));
+        rateLimitFilter = new RateLimitFilter(limitsByRole, Duration.ofMinutes(1), 100, 1, 1, 1, 2.0, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("doFilter returns 429 with Retry-After when the user has used their burst")
+    void doFilter_Returns429_WhenUserHasUsedTheirBurst() throws Exception {
+        authenticate("user", "ROLE_USER");
+
+        Assertions.assertThat(get().getStatus()).isEqualTo(HttpStatus.OK.value());
+        Assertions.assertThat(get().getStatus()).isEqualTo(HttpStatus.OK.value());
+
+        MockHttpServletResponse response = get();
+
+        Assertions.assertThat(response.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        Assertions.assertThat(Long.parseLong(response.getHeader(HttpHeaders.RETRY_AFTER))).isBetween(9L, 10L);
+        Assertions.assertThat(meterRegistry.get("http.server.requests.rejected")
+                .tag("reason", "rate-limit").tag("role", "USER").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("doFilter gives every user a bucket of their own sized by their highest role")
+    void doFilter_GivesEveryUserTheirOwnBucket_SizedByTheirHighestRole() throws Exception {
+        authenticate("admin", "ROLE_USER", "ROLE_ADMIN");
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertThat(get().getStatus()).isEqualTo(HttpStatus.OK.value());
+        }
+        Assertions.assertThat(get().getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+
+        authenticate("user", "ROLE_USER");
+
+        Assertions.assertThat(get().getStatus()).isEqualTo(HttpStatus.OK.value());
+        Assertions.assertThat(meterRegistry.get("http.server.requests.rate-limit.users").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("doFilter returns 503 while the concurrency limit is taken by an async request")
+    void doFilter_Returns503_WhileConcurrencyLimitIsTakenByAsyncRequest() throws Exception {
+        MockHttpServletRequest asyncRequest = new MockHttpServletRequest("GET", "/animes");
+        asyncRequest.setAsyncSupported(true);
+        rateLimitFilter.doFilter(asyncRequest, new MockHttpServletResponse(), new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) {
+                request.startAsync();
+            }
+        }));
+
+        MockHttpServletResponse rejected = get();
+
+        Assertions.assertThat(rejected.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+        Assertions.assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        Assertions.assertThat(meterRegistry.get("http.server.requests.rejected")
+                .tag("reason", "overload").counter().count()).isEqualTo(1);
+
+        asyncRequest.getAsyncContext().complete();
+
+        Assertions.assertThat(get().getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+
+    @Test
+    @DisplayName("doFilter lets the requests outside /animes through untouched")
+    void doFilter_LetsRequestsOutsideAnimesThrough() throws Exception {
+        authenticate("user", "ROLE_USER");
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            rateLimitFilter.doFilter(new MockHttpServletRequest("GET", "/actuator/health"), response, new MockFilterChain());
+
+            Assertions.assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        }
+    }
+
+    private MockHttpServletResponse get() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        rateLimitFilter.doFilter(new MockHttpServletRequest("GET", "/animes"), response, new MockFilterChain());
+        return response;
+    }
+
+    private static void authenticate(String username, String... authorities) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(username, null,
+                AuthorityUtils.createAuthorityList(authorities)));
+    }
+}
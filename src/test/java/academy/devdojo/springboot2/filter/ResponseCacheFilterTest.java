@@ -0,0 +1,180 @@
+package academy.devdojo.springboot2.filter;
+
+import academy.devdojo.springboot2.event.AnimesChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+@DisplayName("Tests for Response Cache Filter")
+class ResponseCacheFilterTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private ResponseCacheFilter responseCacheFilter;
+
+    @BeforeEach
+    void setUp() {
+        responseCacheFilter = new ResponseCacheFilter(
+                request -> PageRequest.of(Integer.parseInt(request.getParameter("page") == null ? "0" : request.getParameter("page")), 20),
+                Duration.ofMinutes(1), 1024 * 1024, Duration.ZERO, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("doFilter serves the stored bytes without calling the controller again when successful")
+    void doFilter_ServesStoredBytes_WhenSuccessful() throws Exception {
+        MockHttpServletResponse first = get("/animes", null);
+        MockHttpServletResponse second = get("/animes", null);
+
+        Assertions.assertThat(calls).hasValue(1);
+        Assertions.assertThat(second.getStatus()).isEqualTo(HttpStatus.OK.value());
+        Assertions.assertThat(second.getContentAsString()).isEqualTo(first.getContentAsString());
+        Assertions.assertThat(second.getContentLength()).isEqualTo(first.getContentAsByteArray().length);
+        Assertions.assertThat(second.getContentType()).isEqualTo(MediaType.APPLICATION_JSON_VALUE);
+        Assertions.assertThat(second.getHeader(HttpHeaders.ETAG)).isEqualTo("\"1\"");
+        Assertions.assertThat(second.getHeader(HttpHeaders.VARY)).isEqualTo("Accept, Accept-Encoding");
+        Assertions.assertThat(second.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("private, no-cache");
+    }
+
+    @Test
+    @DisplayName("doFilter writes the gzip copy when the client accepts gzip")
+    void doFilter_WritesGzipCopy_WhenClientAcceptsGzip() throws Exception {
+        MockHttpServletResponse identity = get("/animes/all", null);
+        MockHttpServletResponse gzip = get("/animes/all", "gzip, deflate");
+
+        Assertions.assertThat(gzip.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        Assertions.assertThat(gzip.getContentAsByteArray().length).isLessThan(identity.getContentAsByteArray().length);
+        try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(gzip.getContentAsByteArray()))) {
+            Assertions.assertThat(inputStream.readAllBytes()).isEqualTo(identity.getContentAsByteArray());
+        }
+        Assertions.assertThat(get("/animes/all", "gzip;q=0").getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+    }
+
+    @Test
+    @DisplayName("doFilter returns not modified from the cache when If-None-Match has the stored ETag")
+    void doFilter_ReturnsNotModified_WhenIfNoneMatchHasStoredETag() throws Exception {
+        get("/animes", null);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/animes");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "W/\"1\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        responseCacheFilter.doFilter(request, response, new MockFilterChain(new AnimesServlet()));
+
+        Assertions.assertThat(calls).hasValue(1);
+        Assertions.assertThat(response.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+        Assertions.assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("doFilter calls the controller again after the animes change or for another page")
+    void doFilter_CallsControllerAgain_WhenAnimesChangeOrPageDiffers() throws Exception {
+        get("/animes", null);
+        responseCacheFilter.onAnimesChanged(new AnimesChangedEvent("create"));
+        get("/animes", null);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/animes");
+        request.setParameter("page", "1");
+        responseCacheFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(new AnimesServlet()));
+
+        Assertions.assertThat(calls).hasValue(3);
+    }
+
+    @Test
+    @DisplayName("doFilter keeps the counted page and the slice of the same page apart")
+    void doFilter_KeepsCountedPageAndSliceApart() throws Exception {
+        get("/animes", null);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/animes");
+        request.setParameter("count", "NONE");
+        responseCacheFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(new AnimesServlet()));
+
+        Assertions.assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("doFilter keeps the full page and the page with some fields apart")
+    void doFilter_KeepsFullPageAndPageWithSomeFieldsApart() throws Exception {
+        get("/animes", null);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/animes");
+        request.setParameter("fields", "id,name");
+        responseCacheFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(new AnimesServlet()));
+
+        Assertions.assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("doFilter stores nothing for the replica lag after the animes change")
+    void doFilter_StoresNothingForReplicaLag_AfterAnimesChange() throws Exception {
+        responseCacheFilter = new ResponseCacheFilter(request -> PageRequest.of(0, 20), Duration.ofMinutes(1),
+                1024 * 1024, Duration.ofMinutes(1), new SimpleMeterRegistry());
+        get("/animes", null);
+        get("/animes", null);
+
+        responseCacheFilter.onAnimesChanged(new AnimesChangedEvent("replace"));
+        get("/animes", null);
+        get("/animes", null);
+
+        Assertions.assertThat(calls).hasValue(3);
+    }
+
+    @Test
+    @DisplayName("doFilter does not store the response when it is not successful")
+    void doFilter_DoesNotStoreResponse_WhenItIsNotSuccessful() throws Exception {
+        HttpServlet failingServlet = new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                calls.incrementAndGet();
+                response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+            }
+        };
+        for (int i = 0; i < 2; i++) {
+            responseCacheFilter.doFilter(new MockHttpServletRequest("GET", "/animes"), new MockHttpServletResponse(),
+                    new MockFilterChain(failingServlet));
+        }
+
+        Assertions.assertThat(calls).hasValue(2);
+    }
+
+    private MockHttpServletResponse get(String uri, String acceptEncoding) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        responseCacheFilter.doFilter(request, response, new MockFilterChain(new AnimesServlet()));
+        return response;
+    }
+
+    private class AnimesServlet extends HttpServlet {
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            calls.incrementAndGet();
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setHeader(HttpHeaders.ETAG, "\"1\"");
+            StringBuilder body = new StringBuilder("[");
+            for (int i = 0; i < 100; i++) {
+                body.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"name\":\"Anime ").append(i).append("\"}");
+            }
+            response.getOutputStream().write(body.append(']').toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
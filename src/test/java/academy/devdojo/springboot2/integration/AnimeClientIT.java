@@ -0,0 +1,146 @@
+package academy.devdojo.springboot2.integration;
+
+import academy.devdojo.springboot2.client.AnimeClient;
+import academy.devdojo.springboot2.client.AnimeClientException;
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.requests.AnimePostRequestBody;
+import academy.devdojo.springboot2.requests.AnimePutRequestBody;
+import academy.devdojo.springboot2.responses.BulkItemResponseBody;
+import academy.devdojo.springboot2.responses.BulkResponseBody;
+import academy.devdojo.springboot2.util.AnimePostRequestBodyCreator;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureTestDatabase
+class AnimeClientIT {
+
+    @LocalServerPort
+    private int port;
+
+    private AnimeClient adminClient;
+
+    private AnimeClient userClient;
+
+    @BeforeEach
+    void setUp() {
+        adminClient = AnimeClient.builder("http://localhost:" + port)
+                .login("admin2", "test")
+                .build();
+        userClient = AnimeClient.builder("http://localhost:" + port)
+                .basicAuth("user2", "test")
+                .build();
+    }
+
+    @Test
+    @DisplayName("save, findById, replace and delete go through the api when successful")
+    void save_FindById_Replace_Delete_WhenSuccessful() {
+        Anime savedAnime = adminClient.save(AnimePostRequestBodyCreator.createAnimePostRequestBody());
+
+        Assertions.assertThat(userClient.findById(savedAnime.getId()).getName()).isEqualTo(savedAnime.getName());
+
+        adminClient.replace(new AnimePutRequestBody(savedAnime.getId(), "Edited"));
+
+        Assertions.assertThat(userClient.findByIdAsync(savedAnime.getId()).join().getName()).isEqualTo("Edited");
+
+        adminClient.delete(savedAnime.getId());
+
+        Assertions.assertThatExceptionOfType(AnimeClientException.class)
+                .isThrownBy(() -> userClient.findById(savedAnime.getId()))
+                .satisfies(e -> Assertions.assertThat(e.getStatusCode()).isEqualTo(400));
+    }
+
+    @Test
+    @DisplayName("findByIds returns the existing animes sorted by id across several requests when successful")
+    void findByIds_ReturnsExistingAnimesSortedById_WhenSuccessful() {
+        BulkResponseBody bulkResponseBody = adminClient.saveAll(animePostRequestBodies(150));
+
+        Assertions.assertThat(bulkResponseBody.getSucceeded()).isEqualTo(150);
+
+        List<Long> ids = bulkResponseBody.getItems().stream()
+                .map(BulkItemResponseBody::getId)
+                .collect(Collectors.toList());
+        List<Long> requestedIds = new ArrayList<>(ids);
+        requestedIds.add(-1L);
+        Collections.reverse(requestedIds);
+
+        List<Anime> animes = userClient.findByIds(requestedIds);
+
+        Assertions.assertThat(animes)
+                .extracting(Anime::getId)
+                .containsExactlyElementsOf(ids.stream().sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("streamAll walks every page of the cursor listing when successful")
+    void streamAll_WalksEveryPageOfTheCursorListing_WhenSuccessful() {
+        List<Long> savedIds = adminClient.saveAll(animePostRequestBodies(25)).getItems().stream()
+                .map(BulkItemResponseBody::getId)
+                .collect(Collectors.toList());
+
+        List<Long> ids;
+        try (Stream<Anime> animes = userClient.streamAll(10)) {
+            ids = animes.map(Anime::getId).collect(Collectors.toList());
+        }
+
+        Assertions.assertThat(ids)
+                .doesNotHaveDuplicates()
+                .isSorted()
+                .containsAll(savedIds);
+    }
+
+    @Test
+    @DisplayName("save throws AnimeClientException with the status and body when the request is invalid")
+    void save_ThrowsAnimeClientException_WhenRequestIsInvalid() {
+        Assertions.assertThatExceptionOfType(AnimeClientException.class)
+                .isThrownBy(() -> userClient.save(new AnimePostRequestBody("")))
+                .satisfies(e -> {
+                    Assertions.assertThat(e.getStatusCode()).isEqualTo(400);
+                    Assertions.assertThat(e.getResponseBody()).contains("The anime name cannot be empty");
+                });
+    }
+
+    @Test
+    @DisplayName("the Smile and CBOR formats go through the api like JSON when successful")
+    void binaryFormats_GoThroughTheApiLikeJson_WhenSuccessful() {
+        for (AnimeClient.Format format : List.of(AnimeClient.Format.SMILE, AnimeClient.Format.CBOR)) {
+            AnimeClient binaryClient = AnimeClient.builder("http://localhost:" + port)
+                    .login("admin2", "test")
+                    .format(format)
+                    .build();
+
+            Anime savedAnime = binaryClient.save(new AnimePostRequestBody("Anime " + format));
+
+            Assertions.assertThat(binaryClient.findByIds(List.of(savedAnime.getId())))
+                    .extracting(Anime::getName)
+                    .containsExactly("Anime " + format);
+
+            try (Stream<Anime> animes = binaryClient.streamAll(10)) {
+                Assertions.assertThat(animes.map(Anime::getId)).contains(savedAnime.getId());
+            }
+
+            Assertions.assertThatExceptionOfType(AnimeClientException.class)
+                    .isThrownBy(() -> binaryClient.save(new AnimePostRequestBody("")))
+                    .satisfies(e -> Assertions.assertThat(e.getResponseBody()).contains("The anime name cannot be empty"));
+        }
+    }
+
+    private static List<AnimePostRequestBody> animePostRequestBodies(int count) {
+        List<AnimePostRequestBody> animePostRequestBodies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            animePostRequestBodies.add(new AnimePostRequestBody("Anime " + i));
+        }
+        return animePostRequestBodies;
+    }
+}
@@ -1,13 +1,30 @@
 package academy.devdojo.springboot2.integration;
 
+import academy.devdojo.springboot2.config.BinaryFormatsConfig;
+import academy.devdojo.springboot2.datasource.StatementCount;
+import academy.devdojo.springboot2.datasource.StatementCounter;
 import academy.devdojo.springboot2.domain.Anime;
 import academy.devdojo.springboot2.domain.Usuario;
+import academy.devdojo.springboot2.filter.ResponseCacheFilter;
 import academy.devdojo.springboot2.repository.AnimeRepository;
 import academy.devdojo.springboot2.repository.UsuarioRepository;
 import academy.devdojo.springboot2.requests.AnimePostRequestBody;
+import academy.devdojo.springboot2.requests.AnimePutRequestBody;
+import academy.devdojo.springboot2.requests.LoginPostRequestBody;
+import academy.devdojo.springboot2.responses.AnimeSuggestionResponseBody;
+import academy.devdojo.springboot2.responses.BulkItemStatus;
+import academy.devdojo.springboot2.responses.BulkResponseBody;
+import academy.devdojo.springboot2.responses.TokenResponseBody;
 import academy.devdojo.springboot2.util.AnimeCreator;
 import academy.devdojo.springboot2.util.AnimePostRequestBodyCreator;
+import academy.devdojo.springboot2.wrapper.CursorPage;
 import academy.devdojo.springboot2.wrapper.PageableResponse;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -23,14 +40,19 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.annotation.DirtiesContext;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "devdojo.statement-count.enabled=true")
 @AutoConfigureTestDatabase
 @DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
 class AnimeControllerIT {
@@ -43,12 +65,22 @@ class AnimeControllerIT {
     @Qualifier(value = "testRestTemplateRoleAdmin")
     private TestRestTemplate testRestTemplateAdmin;
 
+    @Autowired
+    @Qualifier(value = "testRestTemplateAnonymous")
+    private TestRestTemplate testRestTemplateAnonymous;
+
     @Autowired
     private AnimeRepository animeRepository;
 
     @Autowired
     private UsuarioRepository usuarioRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
     private static final Usuario USER = Usuario.builder()
             .name("User")
             .username("user")
@@ -81,6 +113,13 @@ class AnimeControllerIT {
                     .basicAuthentication("admin", "test");
             return new TestRestTemplate(restTemplateBuilder);
         }
+
+        @Bean(name = "testRestTemplateAnonymous")
+        public TestRestTemplate testRestTemplateAnonymousCreator(@Value("${local.server.port}") int port) {
+            RestTemplateBuilder restTemplateBuilder = new RestTemplateBuilder()
+                    .rootUri("http://localhost:" + port);
+            return new TestRestTemplate(restTemplateBuilder);
+        }
     }
 
     @Test
@@ -105,6 +144,92 @@ class AnimeControllerIT {
         Assertions.assertThat(animePage.toList().get(0).getName()).isEqualTo(expectedName);
     }
 
+    @Test
+    @DisplayName("listByCursor walks through all animes following nextCursor when successful")
+    void listByCursor_WalksThroughAllAnimesFollowingNextCursor_WhenSuccessful() {
+        Anime firstAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        Anime secondAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        usuarioRepository.save(USER);
+
+        CursorPage<Anime> firstPage = this.testRestTemplateUser.exchange("/animes/cursor?size=1", HttpMethod.GET, null,
+                new ParameterizedTypeReference<CursorPage<Anime>>() {
+                }).getBody();
+
+        Assertions.assertThat(firstPage).isNotNull();
+
+        Assertions.assertThat(firstPage.getContent())
+                .hasSize(1)
+                .containsExactly(firstAnime);
+
+        Assertions.assertThat(firstPage.getNextCursor()).isNotNull();
+
+        CursorPage<Anime> secondPage = this.testRestTemplateUser.exchange("/animes/cursor?size=1&cursor={cursor}", HttpMethod.GET, null,
+                new ParameterizedTypeReference<CursorPage<Anime>>() {
+                }, firstPage.getNextCursor()).getBody();
+
+        Assertions.assertThat(secondPage).isNotNull();
+
+        Assertions.assertThat(secondPage.getContent())
+                .hasSize(1)
+                .containsExactly(secondAnime);
+
+        Assertions.assertThat(secondPage.getNextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("listByCursor returns 400 when the size is above the maximum page size")
+    void listByCursor_Returns400_WhenSizeIsAboveMaximumPageSize() {
+        usuarioRepository.save(USER);
+
+        ResponseEntity<String> entity = this.testRestTemplateUser.getForEntity("/animes/cursor?size=2147483647",
+                String.class);
+
+        Assertions.assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    @DisplayName("listAll return list of anime inside page object when authenticated with an access token")
+    void listAll_ReturnListOfAnimeInsidePageObject_WhenAuthenticatedWithAccessToken() {
+        animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        usuarioRepository.save(USER);
+
+        TokenResponseBody token = this.testRestTemplateUser.postForObject("/auth/token",
+                new LoginPostRequestBody("user", "test"), TokenResponseBody.class);
+
+        Assertions.assertThat(token).isNotNull();
+
+        Assertions.assertThat(token.getAccessToken()).isNotBlank();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token.getAccessToken());
+
+        ResponseEntity<PageableResponse<Anime>> entity = this.testRestTemplateAnonymous.exchange("/animes", HttpMethod.GET,
+                new HttpEntity<>(headers), new ParameterizedTypeReference<PageableResponse<Anime>>() {
+                });
+
+        Assertions.assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        Assertions.assertThat(entity.getBody()).isNotNull();
+
+        Assertions.assertThat(entity.getBody().toList()).hasSize(1);
+
+        Assertions.assertThat(entity.getHeaders().get(HttpHeaders.SET_COOKIE)).isNull();
+    }
+
+    @Test
+    @DisplayName("listAll returns 401 when the access token is invalid")
+    void listAll_Returns401_WhenAccessTokenIsInvalid() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth("invalid");
+
+        ResponseEntity<String> entity = this.testRestTemplateAnonymous.exchange("/animes", HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+
+        Assertions.assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
     @Test
     @DisplayName("listAll return list of anime when successful")
     void listAll_ReturnListOfAnime_WhenSuccessful() {
@@ -126,6 +251,25 @@ class AnimeControllerIT {
         Assertions.assertThat(animes.get(0).getName()).isEqualTo(expectedName);
     }
 
+    @Test
+    @DisplayName("export return one anime per line when successful")
+    void export_ReturnOneAnimePerLine_WhenSuccessful() {
+        animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        usuarioRepository.save(USER);
+
+        ResponseEntity<String> entity = this.testRestTemplateUser.getForEntity("/animes/export", String.class);
+
+        Assertions.assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        Assertions.assertThat(entity.getHeaders().getContentType()).hasToString("application/x-ndjson");
+
+        Assertions.assertThat(entity.getBody())
+                .isNotNull()
+                .hasLineCount(2);
+    }
+
     @Test
     @DisplayName("findById return anime when successful")
     void findById_ReturnAnime_WhenSuccessful() {
@@ -167,6 +311,57 @@ class AnimeControllerIT {
         Assertions.assertThat(animes.get(0).getName()).isEqualTo(expectedName);
     }
 
+    @Test
+    @DisplayName("search return list of anime inside page object when the name contains the term")
+    void search_ReturnListOfAnimeInsidePageObject_WhenNameContainsTerm() {
+        Anime animeSaved = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        usuarioRepository.save(USER);
+
+        PageableResponse<Anime> animePage = this.testRestTemplateUser.exchange("/animes/search?name=TEST&match=CONTAINS",
+                HttpMethod.GET, null, new ParameterizedTypeReference<PageableResponse<Anime>>() {
+                }).getBody();
+
+        Assertions.assertThat(animePage).isNotNull();
+
+        Assertions.assertThat(animePage.toList()).containsExactly(animeSaved);
+    }
+
+    @Test
+    @DisplayName("search return only the id and the requested fields of the animes when fields is given")
+    void search_ReturnOnlyIdAndRequestedFields_WhenFieldsIsGiven() {
+        Anime animeSaved = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        usuarioRepository.save(USER);
+
+        PageableResponse<Map<String, Object>> animePage = this.testRestTemplateUser.exchange("/animes/search?name=TEST&match=CONTAINS&fields=name",
+                HttpMethod.GET, null, new ParameterizedTypeReference<PageableResponse<Map<String, Object>>>() {
+                }).getBody();
+
+        Assertions.assertThat(animePage).isNotNull();
+
+        Assertions.assertThat(animePage.getTotalElements()).isEqualTo(1);
+
+        Assertions.assertThat(animePage.toList()).containsExactly(
+                Map.of("id", animeSaved.getId().intValue(), "name", animeSaved.getName()));
+    }
+
+    @Test
+    @DisplayName("suggest return the animes saved through the api whose name starts with the prefix when successful")
+    void suggest_ReturnAnimesSavedThroughApiStartingWithPrefix_WhenSuccessful() {
+        usuarioRepository.save(USER);
+
+        Anime animeSaved = this.testRestTemplateUser.postForObject("/animes",
+                AnimePostRequestBodyCreator.createAnimePostRequestBody(), Anime.class);
+
+        List<AnimeSuggestionResponseBody> suggestions = this.testRestTemplateUser.exchange("/animes/suggest?prefix=ANI",
+                HttpMethod.GET, null, new ParameterizedTypeReference<List<AnimeSuggestionResponseBody>>() {
+                }).getBody();
+
+        Assertions.assertThat(suggestions)
+                .containsExactly(new AnimeSuggestionResponseBody(animeSaved.getId(), animeSaved.getName()));
+    }
+
     @Test
     @DisplayName("findByName return empty list of anime when anime is not found")
     void findByName_ReturnEmptyListOfAnime_WhenAnimeIsNotFound() {
@@ -199,6 +394,51 @@ class AnimeControllerIT {
         Assertions.assertThat(entity.getBody().getId()).isNotNull();
     }
 
+    @Test
+    @DisplayName("saveAll create every valid anime and report the invalid ones when successful")
+    void saveAll_CreateEveryValidAnimeAndReportInvalidOnes_WhenSuccessful() {
+        usuarioRepository.save(USER);
+
+        List<AnimePostRequestBody> bodies = List.of(
+                AnimePostRequestBodyCreator.createAnimePostRequestBody(),
+                new AnimePostRequestBody(""),
+                AnimePostRequestBodyCreator.createAnimePostRequestBody());
+
+        ResponseEntity<BulkResponseBody> entity = this.testRestTemplateUser.postForEntity("/animes/bulk", bodies,
+                BulkResponseBody.class);
+
+        Assertions.assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        Assertions.assertThat(entity.getBody()).isNotNull();
+
+        Assertions.assertThat(entity.getBody().getItems())
+                .extracting("status")
+                .containsExactly(BulkItemStatus.CREATED, BulkItemStatus.INVALID, BulkItemStatus.CREATED);
+
+        Assertions.assertThat(animeRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("deleteAll delete every existing anime when successful")
+    void deleteAll_DeleteEveryExistingAnime_WhenSuccessful() {
+        Anime animeSaved = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        usuarioRepository.save(ADMIN);
+
+        ResponseEntity<BulkResponseBody> entity = this.testRestTemplateAdmin.exchange("/animes/admin/bulk",
+                HttpMethod.DELETE, new HttpEntity<>(List.of(animeSaved.getId(), -1L)), BulkResponseBody.class);
+
+        Assertions.assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        Assertions.assertThat(entity.getBody()).isNotNull();
+
+        Assertions.assertThat(entity.getBody().getItems())
+                .extracting("status")
+                .containsExactly(BulkItemStatus.DELETED, BulkItemStatus.NOT_FOUND);
+
+        Assertions.assertThat(animeRepository.findById(animeSaved.getId())).isEmpty();
+    }
+
     @Test
     @DisplayName("replace does not throw any exception when successful")
     void replace_DoesNotThrowAnyException_WhenSuccessful() {
@@ -216,6 +456,27 @@ class AnimeControllerIT {
         Assertions.assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
     }
 
+    @Test
+    @DisplayName("replace returns 400 and keeps the stored name when the name is empty")
+    void replace_Returns400AndKeepsStoredName_WhenNameIsEmpty() {
+        Anime animeSaved = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        usuarioRepository.save(USER);
+
+        AnimePutRequestBody animePutRequestBody = AnimePutRequestBody.builder()
+                .id(animeSaved.getId())
+                .name("")
+                .build();
+
+        ResponseEntity<String> entity = this.testRestTemplateUser.exchange("/animes",
+                HttpMethod.PUT, new HttpEntity<>(animePutRequestBody), String.class);
+
+        Assertions.assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
+        Assertions.assertThat(animeRepository.findById(animeSaved.getId()))
+                .get().extracting(Anime::getName).isEqualTo(animeSaved.getName());
+    }
+
     @Test
     @DisplayName("delete does not throw any exception when successful")
     void delete_DoesNotThrowAnyException_WhenSuccessful() {
@@ -246,4 +507,315 @@ class AnimeControllerIT {
         Assertions.assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
     }
 
+    @Test
+    @DisplayName("findById return not modified when If-None-Match has the ETag of the previous response")
+    void findById_ReturnNotModified_WhenIfNoneMatchHasETagOfPreviousResponse() {
+        Anime animeSaved = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        usuarioRepository.save(USER);
+
+        ResponseEntity<Anime> first = this.testRestTemplateUser.getForEntity("/animes/{id}", Anime.class, animeSaved.getId());
+
+        String eTag = first.getHeaders().getETag();
+
+        Assertions.assertThat(eTag).isEqualTo("\"" + animeSaved.getVersion() + "\"");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+
+        ResponseEntity<Anime> second = this.testRestTemplateUser.exchange("/animes/{id}", HttpMethod.GET,
+                new HttpEntity<>(headers), Anime.class, animeSaved.getId());
+
+        Assertions.assertThat(second.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        Assertions.assertThat(second.getBody()).isNull();
+    }
+
+    @Test
+    @DisplayName("list change the ETag when an anime is replaced")
+    void list_ChangeETag_WhenAnimeIsReplaced() {
+        Anime animeSaved = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        usuarioRepository.save(USER);
+
+        String eTag = this.testRestTemplateUser.getForEntity("/animes/all", String.class).getHeaders().getETag();
+
+        animeSaved.setName("new name");
+        this.testRestTemplateUser.put("/animes", animeSaved);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+
+        ResponseEntity<String> entity = this.testRestTemplateUser.exchange("/animes/all", HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+
+        Assertions.assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        Assertions.assertThat(entity.getHeaders().getETag())
+                .isNotNull()
+                .isNotEqualTo(eTag);
+    }
+
+    @Test
+    @DisplayName("replace returns 412 when If-Match has a stale ETag")
+    void replace_Returns412_WhenIfMatchHasStaleETag() {
+        Anime animeSaved = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        usuarioRepository.save(USER);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfMatch("\"" + animeSaved.getVersion() + "\"");
+
+        animeSaved.setName("new name");
+
+        ResponseEntity<Void> first = this.testRestTemplateUser.exchange("/animes",
+                HttpMethod.PUT, new HttpEntity<>(animeSaved, headers), Void.class);
+
+        Assertions.assertThat(first.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+        ResponseEntity<Void> second = this.testRestTemplateUser.exchange("/animes",
+                HttpMethod.PUT, new HttpEntity<>(animeSaved, headers), Void.class);
+
+        Assertions.assertThat(second.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @Test
+    @DisplayName("list returns the page as Smile when the client accepts Smile")
+    void list_ReturnsPageAsSmile_WhenClientAcceptsSmile() throws IOException {
+        Anime animeSaved = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        usuarioRepository.save(USER);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(BinaryFormatsConfig.APPLICATION_SMILE));
+
+        ResponseEntity<byte[]> entity = this.testRestTemplateUser.exchange("/animes", HttpMethod.GET,
+                new HttpEntity<>(headers), byte[].class);
+
+        Assertions.assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(entity.getHeaders().getContentType()).isEqualTo(BinaryFormatsConfig.APPLICATION_SMILE);
+
+        PageableResponse<Anime> animePage = new ObjectMapper(new SmileFactory())
+                .readValue(entity.getBody(), new TypeReference<PageableResponse<Anime>>() {
+                });
+
+        Assertions.assertThat(animePage.toList())
+                .extracting(Anime::getName)
+                .containsExactly(animeSaved.getName());
+    }
+
+    @Test
+    @DisplayName("save reads and returns CBOR when the client sends and accepts CBOR")
+    void save_ReadsAndReturnsCbor_WhenClientSendsAndAcceptsCbor() throws IOException {
+        usuarioRepository.save(USER);
+
+        ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+        AnimePostRequestBody animePostRequestBody = AnimePostRequestBodyCreator.createAnimePostRequestBody();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_CBOR);
+        headers.setAccept(List.of(MediaType.APPLICATION_CBOR));
+
+        ResponseEntity<byte[]> entity = this.testRestTemplateUser.exchange("/animes", HttpMethod.POST,
+                new HttpEntity<>(cborMapper.writeValueAsBytes(animePostRequestBody), headers), byte[].class);
+
+        Assertions.assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        Assertions.assertThat(entity.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_CBOR);
+
+        Anime anime = cborMapper.readValue(entity.getBody(), Anime.class);
+
+        Assertions.assertThat(anime.getId()).isNotNull();
+        Assertions.assertThat(anime.getName()).isEqualTo(animePostRequestBody.getName());
+    }
+
+    @Test
+    @DisplayName("findById returns JSON when the client does not say what it accepts")
+    void findById_ReturnsJson_WhenClientDoesNotSayWhatItAccepts() {
+        Anime animeSaved = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        usuarioRepository.save(USER);
+
+        ResponseEntity<String> entity = this.testRestTemplateUser.exchange("/animes/{id}", HttpMethod.GET,
+                null, String.class, animeSaved.getId());
+
+        Assertions.assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(entity.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        Assertions.assertThat(entity.getBody()).contains(animeSaved.getName());
+    }
+
+    @Test
+    @DisplayName("list is served from the response cache until an anime is saved through the api")
+    void list_IsServedFromResponseCache_UntilAnimeIsSavedThroughTheApi() {
+        Anime animeSaved = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        usuarioRepository.save(USER);
+
+        ResponseEntity<String> first = this.testRestTemplateUser.getForEntity("/animes?size=5", String.class);
+        ResponseEntity<String> second = this.testRestTemplateUser.getForEntity("/animes?size=5", String.class);
+
+        Assertions.assertThat(second.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(second.getBody()).isEqualTo(first.getBody()).contains(animeSaved.getName());
+        Assertions.assertThat(second.getHeaders().getETag()).isEqualTo(first.getHeaders().getETag());
+        Assertions.assertThat(second.getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        Assertions.assertThat(second.getHeaders().getCacheControl()).isEqualTo("private, no-cache");
+        Assertions.assertThat(meterRegistry.get("cache.gets").tag("cache", ResponseCacheFilter.CACHE_NAME)
+                .tag("result", "hit").functionCounter().count()).isEqualTo(1);
+
+        this.testRestTemplateUser.postForEntity("/animes", new AnimePostRequestBody("Saved Later"), Anime.class);
+
+        ResponseEntity<String> third = this.testRestTemplateUser.getForEntity("/animes?size=5", String.class);
+
+        Assertions.assertThat(third.getBody()).contains(animeSaved.getName(), "Saved Later");
+        Assertions.assertThat(third.getHeaders().getETag()).isNotEqualTo(first.getHeaders().getETag());
+    }
+
+    @Test
+    @DisplayName("findById sends one select for the anime, then none while the anime is cached")
+    void findById_SendsOneSelectForTheAnime_ThenNoneWhileAnimeIsCached() {
+        Anime animeSaved = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        usuarioRepository.save(USER);
+        statementCounter.reset();
+
+        this.testRestTemplateUser.getForObject("/animes/{id}", Anime.class, animeSaved.getId());
+
+        // the other select is the usuario of the basic auth, cached from then on as well
+        StatementCount first = statementCounter.snapshot();
+        Assertions.assertThat(first.getSelect()).isEqualTo(2);
+        Assertions.assertThat(first.getTotal()).isEqualTo(2);
+
+        statementCounter.reset();
+        this.testRestTemplateUser.getForObject("/animes/{id}", Anime.class, animeSaved.getId());
+
+        Assertions.assertThat(statementCounter.snapshot().getTotal()).isZero();
+    }
+
+    @Test
+    @DisplayName("replace sends a single update for the anime")
+    void replace_SendsSingleUpdateForTheAnime() {
+        Anime animeSaved = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        usuarioRepository.save(USER);
+        statementCounter.reset();
+
+        animeSaved.setName("new name");
+        ResponseEntity<Void> entity = this.testRestTemplateUser.exchange("/animes",
+                HttpMethod.PUT, new HttpEntity<>(animeSaved), Void.class);
+
+        Assertions.assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        StatementCount statementCount = statementCounter.snapshot();
+        Assertions.assertThat(statementCount.getUpdate()).isEqualTo(1);
+        // the other one is the basic auth usuario lookup
+        Assertions.assertThat(statementCount.getTotal()).isEqualTo(2);
+        Assertions.assertThat(statementCount.getExecutions()).isEqualTo(2);
+        Assertions.assertThat(statementCount.getElapsedMillis()).isLessThan(1000);
+    }
+
+    @Test
+    @DisplayName("list with count NONE returns a slice that knows there is a next page without counting the animes")
+    void list_ReturnsSliceWithoutCountingAnimes_WhenCountIsNone() {
+        animeRepository.saveAll(List.of(new Anime(null, "First", null), new Anime(null, "Second", null),
+                new Anime(null, "Third", null)));
+
+        usuarioRepository.save(USER);
+        statementCounter.reset();
+
+        PageableResponse<Anime> slice = this.testRestTemplateUser.exchange("/animes?size=2&count=NONE", HttpMethod.GET,
+                null, new ParameterizedTypeReference<PageableResponse<Anime>>() {
+                }).getBody();
+
+        Assertions.assertThat(slice).isNotNull();
+        Assertions.assertThat(slice.getContent()).hasSize(2);
+        Assertions.assertThat(slice.hasNext()).isTrue();
+        Assertions.assertThat(slice.isApproximate()).isTrue();
+        // the usuario of the basic auth and the page, no count and no table version
+        Assertions.assertThat(statementCounter.snapshot().getSelect()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("list with count ESTIMATED returns a page whose total is marked approximate")
+    void list_ReturnsPageWithApproximateTotal_WhenCountIsEstimated() {
+        animeRepository.saveAll(List.of(new Anime(null, "First", null), new Anime(null, "Second", null),
+                new Anime(null, "Third", null)));
+
+        usuarioRepository.save(USER);
+
+        ResponseEntity<PageableResponse<Anime>> entity = this.testRestTemplateUser.exchange("/animes?page=1&size=2&count=ESTIMATED",
+                HttpMethod.GET, null, new ParameterizedTypeReference<PageableResponse<Anime>>() {
+                });
+
+        Assertions.assertThat(entity.getHeaders().getETag()).isNull();
+        PageableResponse<Anime> animePage = entity.getBody();
+        Assertions.assertThat(animePage).isNotNull();
+        Assertions.assertThat(animePage.getContent()).extracting(Anime::getName).containsExactly("Third");
+        Assertions.assertThat(animePage.getTotalElements()).isEqualTo(3);
+        Assertions.assertThat(animePage.isApproximate()).isTrue();
+        Assertions.assertThat(animePage.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("list sorts by name and breaks the ties by id when the sort is allowed")
+    void list_SortsByNameAndBreaksTiesById_WhenSortIsAllowed() {
+        List<Anime> saved = animeRepository.saveAll(List.of(new Anime(null, "Same", null),
+                new Anime(null, "Other", null), new Anime(null, "Same", null)));
+
+        usuarioRepository.save(USER);
+
+        PageableResponse<Anime> animePage = this.testRestTemplateUser.exchange("/animes?size=3&sort=name,desc",
+                HttpMethod.GET, null, new ParameterizedTypeReference<PageableResponse<Anime>>() {
+                }).getBody();
+
+        Assertions.assertThat(animePage).isNotNull();
+        Assertions.assertThat(animePage.getContent()).extracting(Anime::getId)
+                .containsExactly(saved.get(2).getId(), saved.get(0).getId(), saved.get(1).getId());
+    }
+
+    @Test
+    @DisplayName("list returns 400 and counts the rejection once when the page size is above the maximum")
+    void list_Returns400AndCountsRejectionOnce_WhenPageSizeIsAboveMaximum() {
+        usuarioRepository.save(USER);
+        double rejectedBefore = rejectedPageables("size");
+
+        ResponseEntity<String> entity = this.testRestTemplateUser.getForEntity("/animes?size=100000&sort=name",
+                String.class);
+
+        Assertions.assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        Assertions.assertThat(rejectedPageables("size") - rejectedBefore).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("search returns 400 when the sort has no index behind it")
+    void search_Returns400_WhenSortHasNoIndexBehindIt() {
+        usuarioRepository.save(USER);
+
+        ResponseEntity<String> entity = this.testRestTemplateUser.getForEntity("/animes/search?name=TEST&sort=version",
+                String.class);
+
+        Assertions.assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    @DisplayName("list with fields returns only the id and the fields asked")
+    void list_ReturnsOnlyIdAndFieldsAsked_WhenFieldsIsGiven() {
+        List<Anime> saved = animeRepository.saveAll(List.of(new Anime(null, "First", null),
+                new Anime(null, "Second", null), new Anime(null, "Third", null)));
+
+        usuarioRepository.save(USER);
+
+        PageableResponse<Map<String, Object>> animePage = this.testRestTemplateUser.exchange("/animes?size=2&fields=name",
+                HttpMethod.GET, null, new ParameterizedTypeReference<PageableResponse<Map<String, Object>>>() {
+                }).getBody();
+
+        Assertions.assertThat(animePage).isNotNull();
+        Assertions.assertThat(animePage.getTotalElements()).isEqualTo(3);
+        Assertions.assertThat(animePage.getContent()).containsExactly(
+                Map.of("id", saved.get(0).getId().intValue(), "name", "First"),
+                Map.of("id", saved.get(1).getId().intValue(), "name", "Second"));
+    }
+
+    private double rejectedPageables(String reason) {
+        return meterRegistry.find("http.server.requests.pageable.rejected")
+                .tag("reason", reason).tag("endpoint", "AnimeController.list")
+                .counters().stream().mapToDouble(Counter::count).sum();
+    }
 }
@@ -0,0 +1,63 @@
+package academy.devdojo.springboot2.integration;
+
+import academy.devdojo.springboot2.service.AnimeService;
+import academy.devdojo.springboot2.util.AnimeCreator;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "devdojo.jdbc-executor.request-timeout=100ms")
+@AutoConfigureTestDatabase
+class AsyncRequestTimeoutIT {
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @MockBean
+    private AnimeService animeServiceMock;
+
+    private final CountDownLatch slowQuery = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        slowQuery.countDown();
+    }
+
+    @Test
+    @DisplayName("findById returns 503 with the error details when the database work outlives the request timeout")
+    void findById_Returns503WithErrorDetails_WhenDatabaseWorkOutlivesRequestTimeout() {
+        BDDMockito.when(animeServiceMock.findByIdOrThrowBadRequestException(ArgumentMatchers.anyLong()))
+                .thenAnswer(invocation -> {
+                    slowQuery.await();
+                    return AnimeCreator.createValidAnime();
+                });
+
+        ResponseEntity<Map<String, Object>> entity = testRestTemplate.withBasicAuth("user2", "test")
+                .exchange("/animes/1", HttpMethod.GET, null, new ParameterizedTypeReference<Map<String, Object>>() {
+                });
+
+        Assertions.assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+
+        Assertions.assertThat(entity.getBody())
+                .containsEntry("status", HttpStatus.SERVICE_UNAVAILABLE.value())
+                .containsEntry("title", HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase())
+                .containsEntry("developerMessage", AsyncRequestTimeoutException.class.getName());
+    }
+}
@@ -0,0 +1,114 @@
+package academy.devdojo.springboot2.integration;
+
+import academy.devdojo.springboot2.client.AnimeClient;
+import academy.devdojo.springboot2.config.CacheConfig;
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.requests.AnimePostRequestBody;
+import academy.devdojo.springboot2.requests.AnimePutRequestBody;
+import org.assertj.core.api.Assertions;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+
+/**
+ * The replica is a database of its own that only gets the rows the test copies into it, so it stays
+ * behind the primary until the test says it caught up.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:lagging-primary;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "devdojo.datasource.replicas.enabled=true",
+        "devdojo.datasource.replicas.urls=" + LaggingReplicaIT.REPLICA_URL
+})
+class LaggingReplicaIT {
+    static final String REPLICA_URL = "jdbc:h2:mem:lagging-replica;DB_CLOSE_DELAY=-1";
+
+    private static final ParameterizedTypeReference<List<Anime>> ANIMES_TYPE = new ParameterizedTypeReference<>() {
+    };
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    private JdbcTemplate replica;
+
+    private AnimeClient adminClient;
+
+    private AnimeClient userClient;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource replicaDataSource = new DriverManagerDataSource(REPLICA_URL, "sa", "");
+        Flyway.configure().dataSource(replicaDataSource).locations("classpath:db/migration/h2").load().migrate();
+        replica = new JdbcTemplate(replicaDataSource);
+
+        adminClient = AnimeClient.builder("http://localhost:" + port)
+                .login("admin2", "test")
+                .build();
+        // user2 never writes, so its reads are not kept on the primary
+        userClient = AnimeClient.builder("http://localhost:" + port)
+                .login("user2", "test")
+                .build();
+    }
+
+    @Test
+    @DisplayName("findById caches the replaced anime when the replica is still behind the replace")
+    void findById_CachesReplacedAnime_WhenReplicaIsStillBehind() {
+        Anime savedAnime = adminClient.save(new AnimePostRequestBody("Cached Before Replace"));
+        replicate(savedAnime);
+        Assertions.assertThat(userClient.findById(savedAnime.getId()).getName()).isEqualTo("Cached Before Replace");
+
+        adminClient.replace(AnimePutRequestBody.builder().id(savedAnime.getId()).name("Cached After Replace").build());
+
+        Assertions.assertThat(userClient.findByName("Cached Before Replace"))
+                .as("the replica is behind").extracting(Anime::getId).containsExactly(savedAnime.getId());
+        Assertions.assertThat(userClient.findById(savedAnime.getId()).getName()).isEqualTo("Cached After Replace");
+        Assertions.assertThat(cacheManager.getCache(CacheConfig.ANIMES_CACHE).get(savedAnime.getId(), Anime.class))
+                .extracting(Anime::getName).isEqualTo("Cached After Replace");
+    }
+
+    @Test
+    @DisplayName("listAll does not keep the body read from the replica when the replica is still behind a change")
+    void listAll_DoesNotKeepBodyReadFromReplica_WhenReplicaIsStillBehindChange() {
+        Anime savedAnime = adminClient.save(new AnimePostRequestBody("Listed Before Replace"));
+        replicate(savedAnime);
+
+        adminClient.replace(AnimePutRequestBody.builder().id(savedAnime.getId()).name("Listed After Replace").build());
+
+        Assertions.assertThat(listAll()).extracting(Anime::getName)
+                .contains("Listed Before Replace").doesNotContain("Listed After Replace");
+
+        replica.update("update anime set name = ?, version = version + 1 where id = ?", "Listed After Replace", savedAnime.getId());
+
+        Assertions.assertThat(listAll()).extracting(Anime::getName)
+                .contains("Listed After Replace").doesNotContain("Listed Before Replace");
+    }
+
+    private void replicate(Anime anime) {
+        replica.update("insert into anime (id, name, version) values (?, ?, ?)", anime.getId(), anime.getName(), anime.getVersion());
+    }
+
+    private List<Anime> listAll() {
+        return testRestTemplate.withBasicAuth("user2", "test")
+                .exchange("/animes/all", HttpMethod.GET, null, ANIMES_TYPE)
+                .getBody();
+    }
+}
@@ -0,0 +1,48 @@
+package academy.devdojo.springboot2.integration;
+
+import academy.devdojo.springboot2.client.AnimeClient;
+import academy.devdojo.springboot2.client.AnimeClientException;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "devdojo.rate-limit.user.requests-per-second=0.1",
+        "devdojo.rate-limit.user.burst=3",
+        "devdojo.rate-limit.admin.requests-per-second=0.1",
+        "devdojo.rate-limit.admin.burst=6"
+})
+@AutoConfigureTestDatabase
+class RateLimitIT {
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    @DisplayName("the anime endpoints return 429 once the user has used the burst of their role")
+    void animeEndpoints_Return429_WhenUserHasUsedTheBurstOfTheirRole() {
+        AnimeClient userClient = AnimeClient.builder("http://localhost:" + port)
+                .basicAuth("user2", "test")
+                .build();
+        AnimeClient adminClient = AnimeClient.builder("http://localhost:" + port)
+                .basicAuth("admin2", "test")
+                .build();
+
+        for (int i = 0; i < 3; i++) {
+            userClient.findByName("Rate Limited");
+        }
+        Assertions.assertThatExceptionOfType(AnimeClientException.class)
+                .isThrownBy(() -> userClient.findByName("Rate Limited"))
+                .satisfies(e -> Assertions.assertThat(e.getStatusCode()).isEqualTo(429));
+
+        for (int i = 0; i < 6; i++) {
+            adminClient.findByName("Rate Limited");
+        }
+        Assertions.assertThatExceptionOfType(AnimeClientException.class)
+                .isThrownBy(() -> adminClient.findByName("Rate Limited"))
+                .satisfies(e -> Assertions.assertThat(e.getStatusCode()).isEqualTo(429));
+    }
+}
@@ -0,0 +1,323 @@
+package academy.devdojo.springboot2.integration;
+
+import academy.devdojo.springboot2.config.BinaryFormatsConfig;
+import academy.devdojo.springboot2.config.CacheConfig;
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.domain.Usuario;
+import academy.devdojo.springboot2.repository.AnimeRepository;
+import academy.devdojo.springboot2.repository.UsuarioRepository;
+import academy.devdojo.springboot2.requests.AnimePostRequestBody;
+import academy.devdojo.springboot2.requests.AnimePutRequestBody;
+import academy.devdojo.springboot2.requests.LoginPostRequestBody;
+import academy.devdojo.springboot2.responses.AnimeSuggestionResponseBody;
+import academy.devdojo.springboot2.responses.TokenResponseBody;
+import academy.devdojo.springboot2.service.AnimeNameIndex;
+import academy.devdojo.springboot2.util.AnimeCreator;
+import academy.devdojo.springboot2.util.AnimePostRequestBodyCreator;
+import academy.devdojo.springboot2.wrapper.PageableResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the "reactive" profile on H2, Flyway and the usuarios over JDBC and the animes over R2DBC
+ * share the same in-memory database.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:reactive-it;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive-it?options=DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password="
+})
+@ActiveProfiles("reactive")
+class ReactiveAnimeControllerIT {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private AnimeRepository animeRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private AnimeNameIndex animeNameIndex;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        animeRepository.deleteAll();
+        usuarioRepository.deleteAll();
+        usuarioRepository.save(Usuario.builder()
+                .name("User")
+                .username("user")
+                .password("{bcrypt}$2a$10$5OI6881o1onA5Ra4LYKiE..adFHPQjmAaupjWV8pnrYkEwNd8Yl/6")
+                .authorities("ROLE_USER")
+                .build());
+    }
+
+    @Test
+    @DisplayName("listAll return list of anime inside page object when successful")
+    void listAll_ReturnListOfAnimeInsidePageObject_WhenSuccessful() {
+        Anime animeSaved = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        PageableResponse<Anime> animePage = webTestClient.get().uri("/animes")
+                .headers(headers -> headers.setBasicAuth("user", "test"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<PageableResponse<Anime>>() {
+                })
+                .returnResult().getResponseBody();
+
+        Assertions.assertThat(animePage).isNotNull();
+        Assertions.assertThat(animePage.toList())
+                .hasSize(1)
+                .extracting(Anime::getName)
+                .containsExactly(animeSaved.getName());
+        Assertions.assertThat(animePage.getTotalElements()).isEqualTo(1);
+        Assertions.assertThat(animePage.getSize()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("list breaks ties of the name by id when sorted by name")
+    void list_BreaksTiesOfNameById_WhenSortedByName() {
+        Anime first = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        Anime second = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        PageableResponse<Anime> animePage = webTestClient.get().uri("/animes?sort=name,desc")
+                .headers(headers -> headers.setBasicAuth("user", "test"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<PageableResponse<Anime>>() {
+                })
+                .returnResult().getResponseBody();
+
+        Assertions.assertThat(animePage).isNotNull();
+        Assertions.assertThat(animePage.toList()).extracting(Anime::getId).containsExactly(second.getId(), first.getId());
+    }
+
+    @Test
+    @DisplayName("list returns 400 Bad Request when the size is above the maximum or the sort is not allowed")
+    void list_Returns400BadRequest_WhenSizeIsAboveMaximumOrSortIsNotAllowed() {
+        for (String query : new String[]{"size=101", "sort=version", "sort=unknown"}) {
+            webTestClient.get().uri("/animes?" + query)
+                    .headers(headers -> headers.setBasicAuth("user", "test"))
+                    .exchange()
+                    .expectStatus().isBadRequest();
+        }
+    }
+
+    @Test
+    @DisplayName("findById returns anime when successful")
+    void findById_ReturnsAnime_WhenSuccessful() {
+        Anime animeSaved = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        webTestClient.get().uri("/animes/{id}", animeSaved.getId())
+                .headers(headers -> headers.setBasicAuth("user", "test"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(animeSaved.getId())
+                .jsonPath("$.name").isEqualTo(animeSaved.getName());
+    }
+
+    @Test
+    @DisplayName("findById returns 400 BadRequest when anime is not found")
+    void findById_Returns400BadRequest_WhenAnimeIsNotFound() {
+        webTestClient.get().uri("/animes/{id}", 999)
+                .headers(headers -> headers.setBasicAuth("user", "test"))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.details").isEqualTo("Anime not found");
+    }
+
+    @Test
+    @DisplayName("findByName returns a list of anime when successful")
+    void findByName_ReturnsListOfAnime_WhenSuccessful() {
+        Anime animeSaved = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        List<Anime> animes = webTestClient.get().uri("/animes/find?name={name}", animeSaved.getName())
+                .headers(headers -> headers.setBasicAuth("user", "test"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Anime.class)
+                .returnResult().getResponseBody();
+
+        Assertions.assertThat(animes)
+                .extracting(Anime::getId)
+                .containsExactly(animeSaved.getId());
+    }
+
+    @Test
+    @DisplayName("save returns anime when successful and a bearer token is used")
+    void save_ReturnsAnime_WhenSuccessfulWithBearerToken() {
+        TokenResponseBody token = webTestClient.post().uri("/auth/token")
+                .bodyValue(new LoginPostRequestBody("user", "test"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(TokenResponseBody.class)
+                .returnResult().getResponseBody();
+
+        Assertions.assertThat(token).isNotNull();
+
+        Anime anime = webTestClient.post().uri("/animes")
+                .headers(headers -> headers.setBearerAuth(token.getAccessToken()))
+                .bodyValue(AnimePostRequestBodyCreator.createAnimePostRequestBody())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Anime.class)
+                .returnResult().getResponseBody();
+
+        Assertions.assertThat(anime).isNotNull();
+        Assertions.assertThat(anime.getId()).isNotNull();
+        Assertions.assertThat(animeRepository.findById(anime.getId())).isPresent();
+    }
+
+    @Test
+    @DisplayName("save returns 400 BadRequest when name is empty")
+    void save_Returns400BadRequest_WhenNameIsEmpty() {
+        webTestClient.post().uri("/animes")
+                .headers(headers -> headers.setBasicAuth("user", "test"))
+                .bodyValue(AnimePostRequestBody.builder().name("").build())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.fields").isEqualTo("name");
+    }
+
+    @Test
+    @DisplayName("replace updates anime and bumps its version when successful")
+    void replace_UpdatesAnime_WhenSuccessful() {
+        Anime animeSaved = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        webTestClient.put().uri("/animes")
+                .headers(headers -> headers.setBasicAuth("user", "test"))
+                .bodyValue(AnimePutRequestBody.builder().id(animeSaved.getId()).name("Replaced").build())
+                .exchange()
+                .expectStatus().isNoContent();
+
+        Anime replaced = animeRepository.findById(animeSaved.getId()).orElseThrow();
+        Assertions.assertThat(replaced.getName()).isEqualTo("Replaced");
+        Assertions.assertThat(replaced.getVersion()).isEqualTo(animeSaved.getVersion() + 1);
+    }
+
+    @Test
+    @DisplayName("replace updates the name index and evicts the cached anime when successful")
+    void replace_UpdatesNameIndexAndEvictsCachedAnime_WhenSuccessful() {
+        Anime animeSaved = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        Cache animesCache = cacheManager.getCache(CacheConfig.ANIMES_CACHE);
+        animesCache.put(animeSaved.getId(), animeSaved);
+
+        webTestClient.put().uri("/animes")
+                .headers(headers -> headers.setBasicAuth("user", "test"))
+                .bodyValue(AnimePutRequestBody.builder().id(animeSaved.getId()).name("Indexed After Replace").build())
+                .exchange()
+                .expectStatus().isNoContent();
+
+        Assertions.assertThat(animesCache.get(animeSaved.getId())).isNull();
+        Assertions.assertThat(animeNameIndex.suggest("indexed after", 10))
+                .containsExactly(new AnimeSuggestionResponseBody(animeSaved.getId(), "Indexed After Replace"));
+
+        webTestClient.delete().uri("/animes/admin/{id}", animeSaved.getId())
+                .headers(headers -> headers.setBasicAuth("admin2", "test"))
+                .exchange()
+                .expectStatus().isNoContent();
+
+        Assertions.assertThat(animeNameIndex.suggest("indexed after", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("delete returns 403 Forbidden when user is not admin")
+    void delete_Returns403_WhenUserIsNotAdmin() {
+        Anime animeSaved = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        webTestClient.delete().uri("/animes/admin/{id}", animeSaved.getId())
+                .headers(headers -> headers.setBasicAuth("user", "test"))
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
+    @Test
+    @DisplayName("delete removes anime when the user is admin")
+    void delete_RemovesAnime_WhenUserIsAdmin() {
+        Anime animeSaved = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        webTestClient.delete().uri("/animes/admin/{id}", animeSaved.getId())
+                .headers(headers -> headers.setBasicAuth("admin2", "test"))
+                .exchange()
+                .expectStatus().isNoContent();
+
+        Assertions.assertThat(animeRepository.findById(animeSaved.getId())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("list returns 401 Unauthorized when the bearer token is invalid")
+    void list_Returns401_WhenBearerTokenIsInvalid() {
+        webTestClient.get().uri("/animes")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer not-a-token")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.UNAUTHORIZED)
+                .expectHeader().value(HttpHeaders.WWW_AUTHENTICATE,
+                        value -> Assertions.assertThat(value).startsWith("Bearer error=\"invalid_token\""));
+    }
+
+    @Test
+    @DisplayName("findById and findByName return Smile or CBOR when the client accepts it")
+    void findById_And_FindByName_ReturnSmileOrCbor_WhenClientAcceptsIt() throws IOException {
+        Anime animeSaved = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        Map<MediaType, ObjectMapper> mappers = Map.of(
+                BinaryFormatsConfig.APPLICATION_SMILE, new ObjectMapper(new SmileFactory()),
+                MediaType.APPLICATION_CBOR, new ObjectMapper(new CBORFactory()));
+
+        for (Map.Entry<MediaType, ObjectMapper> mapper : mappers.entrySet()) {
+            byte[] body = webTestClient.get().uri("/animes/{id}", animeSaved.getId())
+                    .headers(headers -> headers.setBasicAuth("user", "test"))
+                    .accept(mapper.getKey())
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().contentType(mapper.getKey())
+                    .expectBody(byte[].class)
+                    .returnResult().getResponseBody();
+
+            Assertions.assertThat(mapper.getValue().readValue(body, Anime.class).getName())
+                    .isEqualTo(animeSaved.getName());
+
+            byte[] listBody = webTestClient.get().uri("/animes/find?name={name}", animeSaved.getName())
+                    .headers(headers -> headers.setBasicAuth("user", "test"))
+                    .accept(mapper.getKey())
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(byte[].class)
+                    .returnResult().getResponseBody();
+
+            Assertions.assertThat(mapper.getValue().readValue(listBody, Anime[].class))
+                    .extracting(Anime::getId)
+                    .containsExactly(animeSaved.getId());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package academy.devdojo.springboot2.integration;
+
+import academy.devdojo.springboot2.client.AnimeClient;
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.requests.AnimePostRequestBody;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+
+/**
+ * The replicas are stand-ins, two more pools on the same in-memory H2 database as the primary, so
+ * they are always up to date and the routing shows up in the datasource.routes counters only.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:replica-routing;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "devdojo.datasource.replicas.enabled=true",
+        "devdojo.datasource.replicas.urls=jdbc:h2:mem:replica-routing;DB_CLOSE_DELAY=-1,jdbc:h2:mem:replica-routing;DB_CLOSE_DELAY=-1",
+        "devdojo.response-cache.enabled=false"
+})
+class ReplicaRoutingIT {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private AnimeClient adminClient;
+
+    private AnimeClient userClient;
+
+    @BeforeEach
+    void setUp() {
+        adminClient = AnimeClient.builder("http://localhost:" + port)
+                .login("admin2", "test")
+                .build();
+        // a token, the basic authentication would look the usuario up on the primary on every request
+        userClient = AnimeClient.builder("http://localhost:" + port)
+                .login("user2", "test")
+                .build();
+    }
+
+    @Test
+    @DisplayName("reads go to the replicas in turn when the user did not write")
+    void reads_GoToReplicasInTurn_WhenUserDidNotWrite() {
+        Anime savedAnime = adminClient.save(new AnimePostRequestBody("Read From Replica"));
+        userClient.findByName(savedAnime.getName());
+
+        double primary = routes("primary");
+        double firstReplica = routes("replica-0");
+        double secondReplica = routes("replica-1");
+
+        Assertions.assertThat(userClient.findByName(savedAnime.getName())).extracting(Anime::getId).containsExactly(savedAnime.getId());
+        Assertions.assertThat(userClient.findByName(savedAnime.getName())).extracting(Anime::getId).containsExactly(savedAnime.getId());
+
+        Assertions.assertThat(routes("primary")).isEqualTo(primary);
+        Assertions.assertThat(routes("replica-0")).isEqualTo(firstReplica + 1);
+        Assertions.assertThat(routes("replica-1")).isEqualTo(secondReplica + 1);
+    }
+
+    @Test
+    @DisplayName("reads stay on the primary right after the user wrote")
+    void reads_StayOnPrimary_WhenUserWroteRecently() {
+        Anime savedAnime = adminClient.save(new AnimePostRequestBody("Read From Primary"));
+
+        double primary = routes("primary");
+        double replicas = routes("replica-0") + routes("replica-1");
+
+        Assertions.assertThat(adminClient.findByName(savedAnime.getName())).extracting(Anime::getId).containsExactly(savedAnime.getId());
+
+        Assertions.assertThat(routes("primary")).isEqualTo(primary + 1);
+        Assertions.assertThat(routes("replica-0") + routes("replica-1")).isEqualTo(replicas);
+    }
+
+    @Test
+    @DisplayName("every pool publishes its own connection metrics")
+    void pools_PublishTheirOwnConnectionMetrics() {
+        for (String pool : new String[]{"primary", "replica-0", "replica-1"}) {
+            Assertions.assertThat(meterRegistry.get("hikaricp.connections.max").tag("pool", pool).gauge().value())
+                    .isPositive();
+        }
+    }
+
+    private double routes(String target) {
+        return meterRegistry.get("datasource.routes").tag("target", target).counter().count();
+    }
+}
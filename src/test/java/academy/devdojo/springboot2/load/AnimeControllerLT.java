@@ -0,0 +1,287 @@
+package academy.devdojo.springboot2.load;
+
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.domain.Usuario;
+import academy.devdojo.springboot2.repository.AnimeRepository;
+import academy.devdojo.springboot2.repository.UsuarioRepository;
+import academy.devdojo.springboot2.requests.AnimePostRequestBody;
+import academy.devdojo.springboot2.requests.AnimePutRequestBody;
+import academy.devdojo.springboot2.requests.LoginPostRequestBody;
+import academy.devdojo.springboot2.responses.TokenResponseBody;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.log4j.Log4j2;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.assertj.core.api.Assertions;
+import org.assertj.core.api.SoftAssertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Closed-loop load test, every client sends its next request as soon as the previous one is answered.
+ * The traffic mix and the ids used come from a fixed seed, so two runs send the same requests.
+ * Run with {@code mvn -B test -Pload-tests}, the knobs below are system properties.
+ * {@link ReactiveAnimeControllerLT} sends the same traffic to the reactive stack.
+ */
+@Log4j2
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        // logging every statement to the console would be most of what gets measured
+        "logging.level.org.hibernate.SQL=warn",
+        // a named H2 database behind the usual Hikari pool, the embedded test database has no pool
+        "spring.datasource.url=jdbc:h2:mem:load-test;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        // two users sending as fast as they can would mostly measure their own rate limits
+        "devdojo.rate-limit.enabled=false"
+})
+class AnimeControllerLT {
+
+    private static final int CLIENTS = Integer.getInteger("loadtest.clients", 8);
+    private static final Duration WARMUP = Duration.parse(System.getProperty("loadtest.warmup", "PT10S"));
+    private static final Duration DURATION = Duration.parse(System.getProperty("loadtest.duration", "PT20S"));
+    private static final int SEED_ANIMES = Integer.getInteger("loadtest.seed-animes", 1000);
+    private static final long SEED = Long.getLong("loadtest.seed", 42);
+    private static final long P50_BUDGET_MILLIS = Long.getLong("loadtest.budget.p50-millis", 100);
+    private static final long P99_BUDGET_MILLIS = Long.getLong("loadtest.budget.p99-millis", 500);
+    private static final long P999_BUDGET_MILLIS = Long.getLong("loadtest.budget.p999-millis", 1000);
+    private static final double MIN_THROUGHPUT = Double.parseDouble(System.getProperty("loadtest.budget.min-throughput", "100"));
+
+    private static final Usuario USER = Usuario.builder()
+            .name("User")
+            .username("user")
+            .password("{bcrypt}$2a$10$5OI6881o1onA5Ra4LYKiE..adFHPQjmAaupjWV8pnrYkEwNd8Yl/6")
+            .authorities("ROLE_USER")
+            .build();
+
+    private static final Usuario ADMIN = Usuario.builder()
+            .name("Admin")
+            .username("admin")
+            .password("{bcrypt}$2a$10$5OI6881o1onA5Ra4LYKiE..adFHPQjmAaupjWV8pnrYkEwNd8Yl/6")
+            .authorities("ROLE_ADMIN,ROLE_USER")
+            .build();
+
+    enum Operation {
+        LIST(40), FIND(30), SAVE(10), REPLACE(10), DELETE(10);
+
+        private final int weight;
+
+        Operation(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private AnimeRepository animeRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+
+    private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+
+    @Test
+    @DisplayName("mixed traffic stays within the latency and throughput budgets")
+    void mixedTraffic_StaysWithinLatencyAndThroughputBudgets() throws Exception {
+        for (Operation operation : Operation.values()) {
+            // microseconds, up to one minute with three significant digits
+            latencies.put(operation, new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3));
+            errors.put(operation, new AtomicLong());
+        }
+
+        usuarioRepository.save(USER);
+        usuarioRepository.save(ADMIN);
+        String userToken = accessToken("user");
+        String adminToken = accessToken("admin");
+
+        List<Anime> seed = new ArrayList<>(SEED_ANIMES);
+        for (int i = 0; i < SEED_ANIMES; i++) {
+            seed.add(Anime.builder().name("Seed anime " + i).build());
+        }
+        long[] seedIds = animeRepository.saveAll(seed).stream().mapToLong(Anime::getId).toArray();
+
+        long start = System.nanoTime();
+        long measureFrom = start + WARMUP.toNanos();
+        long end = measureFrom + DURATION.toNanos();
+
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<?>> clients = new ArrayList<>(CLIENTS);
+            for (int client = 0; client < CLIENTS; client++) {
+                Random random = new Random(SEED + client);
+                clients.add(executor.submit(() -> runClient(random, userToken, adminToken, seedIds, measureFrom, end)));
+            }
+            for (Future<?> client : clients) {
+                client.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Histogram total = new Histogram(TimeUnit.MINUTES.toMicros(1), 3);
+        latencies.values().forEach(total::add);
+        double throughput = total.getTotalCount() / (DURATION.toNanos() / 1_000_000_000d);
+        long errorCount = errors.values().stream().mapToLong(AtomicLong::get).sum();
+
+        log.info("{} with {} clients for {}:\n{}", getClass().getSimpleName(), CLIENTS, DURATION, report(total, throughput));
+
+        SoftAssertions softly = new SoftAssertions();
+        softly.assertThat(errorCount).as("failed requests").isZero();
+        softly.assertThat(millis(total.getValueAtPercentile(50))).as("p50 ms").isLessThanOrEqualTo(P50_BUDGET_MILLIS);
+        softly.assertThat(millis(total.getValueAtPercentile(99))).as("p99 ms").isLessThanOrEqualTo(P99_BUDGET_MILLIS);
+        softly.assertThat(millis(total.getValueAtPercentile(99.9))).as("p999 ms").isLessThanOrEqualTo(P999_BUDGET_MILLIS);
+        softly.assertThat(throughput).as("throughput req/s").isGreaterThanOrEqualTo(MIN_THROUGHPUT);
+        softly.assertAll();
+    }
+
+    private void runClient(Random random, String userToken, String adminToken, long[] seedIds, long measureFrom, long end) {
+        // replace and delete only touch the animes this client created, so clients never race on an id
+        Deque<Long> ownIds = new ArrayDeque<>();
+        long now;
+        while ((now = System.nanoTime()) < end) {
+            Operation operation = nextOperation(random);
+            if ((operation == Operation.REPLACE || operation == Operation.DELETE) && ownIds.isEmpty()) {
+                operation = Operation.SAVE;
+            }
+
+            boolean succeeded;
+            try {
+                succeeded = execute(operation, random, userToken, adminToken, seedIds, ownIds);
+            } catch (IOException e) {
+                succeeded = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            long elapsedMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - now);
+            if (now >= measureFrom) {
+                latencies.get(operation).recordValue(elapsedMicros);
+                if (!succeeded) {
+                    errors.get(operation).incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private boolean execute(Operation operation, Random random, String userToken, String adminToken, long[] seedIds,
+                            Deque<Long> ownIds) throws IOException, InterruptedException {
+        switch (operation) {
+            case LIST:
+                return send(get("/animes?page=" + random.nextInt(SEED_ANIMES / 20) + "&size=20", userToken)) == 200;
+            case FIND:
+                return send(get("/animes/" + seedIds[random.nextInt(seedIds.length)], userToken)) == 200;
+            case SAVE: {
+                AnimePostRequestBody animePostRequestBody = new AnimePostRequestBody("Load anime " + random.nextInt());
+                HttpResponse<byte[]> response = httpClient.send(
+                        json("/animes", userToken).POST(body(animePostRequestBody)).build(),
+                        HttpResponse.BodyHandlers.ofByteArray());
+                if (response.statusCode() != 201) {
+                    return false;
+                }
+                ownIds.push(objectMapper.readValue(response.body(), Anime.class).getId());
+                return true;
+            }
+            case REPLACE: {
+                AnimePutRequestBody animePutRequestBody = new AnimePutRequestBody(ownIds.peek(), "Replaced anime " + random.nextInt());
+                return send(json("/animes", userToken).PUT(body(animePutRequestBody)).build()) == 204;
+            }
+            default:
+                return send(request("/animes/admin/" + ownIds.pop(), adminToken).DELETE().build()) == 204;
+        }
+    }
+
+    private Operation nextOperation(Random random) {
+        int ticket = random.nextInt(100);
+        for (Operation operation : Operation.values()) {
+            ticket -= operation.weight;
+            if (ticket < 0) {
+                return operation;
+            }
+        }
+        return Operation.LIST;
+    }
+
+    private String accessToken(String username) throws IOException, InterruptedException {
+        LoginPostRequestBody login = new LoginPostRequestBody(username, "test");
+        HttpResponse<byte[]> response = httpClient.send(
+                json("/auth/token", null).POST(body(login)).build(), HttpResponse.BodyHandlers.ofByteArray());
+        Assertions.assertThat(response.statusCode()).isEqualTo(200);
+        return objectMapper.readValue(response.body(), TokenResponseBody.class).getAccessToken();
+    }
+
+    private int send(HttpRequest request) throws IOException, InterruptedException {
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private HttpRequest get(String path, String token) {
+        return request(path, token).GET().build();
+    }
+
+    private HttpRequest.Builder json(String path, String token) {
+        return request(path, token).header("Content-Type", "application/json");
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(30));
+        return token == null ? builder : builder.header("Authorization", "Bearer " + token);
+    }
+
+    private HttpRequest.BodyPublisher body(Object body) throws IOException {
+        return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+    }
+
+    private String report(Histogram total, double throughput) {
+        String header = String.format("%-8s %9s %9s %9s %9s %9s %7s", "op", "count", "p50 ms", "p99 ms", "p999 ms", "max ms", "errors");
+        String lines = latencies.entrySet().stream()
+                .map(entry -> line(entry.getKey().name(), entry.getValue(), errors.get(entry.getKey()).get()))
+                .collect(Collectors.joining("\n"));
+        long totalErrors = errors.values().stream().mapToLong(AtomicLong::get).sum();
+        return header + "\n" + lines + "\n" + line("TOTAL", total, totalErrors)
+                + String.format("%nthroughput %.1f req/s", throughput);
+    }
+
+    private static String line(String name, Histogram histogram, long errorCount) {
+        return String.format("%-8s %9d %9.2f %9.2f %9.2f %9.2f %7d", name, histogram.getTotalCount(),
+                histogram.getValueAtPercentile(50) / 1000d, histogram.getValueAtPercentile(99) / 1000d,
+                histogram.getValueAtPercentile(99.9) / 1000d, histogram.getMaxValue() / 1000d, errorCount);
+    }
+
+    private static long millis(long micros) {
+        return TimeUnit.MICROSECONDS.toMillis(micros);
+    }
+}
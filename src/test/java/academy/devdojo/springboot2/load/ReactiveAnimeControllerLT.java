@@ -0,0 +1,21 @@
+package academy.devdojo.springboot2.load;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * {@link AnimeControllerLT} against the "reactive" profile, same seed, traffic mix and budgets, so the
+ * two reports can be read side by side. JDBC and R2DBC point at the same in-memory H2 database.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "logging.level.org.hibernate.SQL=warn",
+        "spring.datasource.url=jdbc:h2:mem:reactive-lt;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive-lt?options=DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password="
+})
+@ActiveProfiles("reactive")
+class ReactiveAnimeControllerLT extends AnimeControllerLT {
+}
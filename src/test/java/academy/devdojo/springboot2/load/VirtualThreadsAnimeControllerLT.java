@@ -0,0 +1,22 @@
+package academy.devdojo.springboot2.load;
+
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * {@link AnimeControllerLT} with the requests on virtual threads, same seed, traffic mix and budgets,
+ * so the two reports compare platform and virtual threads. Skipped before Java 21. Raise
+ * -Dloadtest.clients above the Tomcat pool (200) to see the difference.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "logging.level.org.hibernate.SQL=warn",
+        "spring.datasource.url=jdbc:h2:mem:virtual-threads-load-test;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "devdojo.threads.mode=virtual",
+        // two users sending as fast as they can would mostly measure their own rate limits
+        "devdojo.rate-limit.enabled=false"
+})
+@EnabledIf("academy.devdojo.springboot2.config.VirtualThreads#isSupported")
+class VirtualThreadsAnimeControllerLT extends AnimeControllerLT {
+}
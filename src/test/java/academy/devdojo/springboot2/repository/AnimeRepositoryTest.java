@@ -1,24 +1,47 @@
 package academy.devdojo.springboot2.repository;
 
+import academy.devdojo.springboot2.config.StatementCountConfig;
+import academy.devdojo.springboot2.datasource.StatementCount;
+import academy.devdojo.springboot2.datasource.StatementCounter;
 import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.requests.AnimeField;
+import academy.devdojo.springboot2.requests.AnimeNameMatch;
+import academy.devdojo.springboot2.responses.AnimeView;
 import academy.devdojo.springboot2.util.AnimeCreator;
 import org.assertj.core.api.Assertions;
+import org.hibernate.Session;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 
+import javax.persistence.EntityManager;
 import javax.validation.ConstraintViolationException;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
-@DataJpaTest
+@DataJpaTest(properties = "devdojo.statement-count.enabled=true")
+@Import(StatementCountConfig.class)
 @DisplayName("Tests for Anime Repository")
 class AnimeRepositoryTest {
 
     @Autowired
     private AnimeRepository animeRepository;
 
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private EntityManager entityManager;
+
     @Test
     @DisplayName("save persist anime when successful")
     void save_PersistAnime_WhenSuccessful() {
@@ -91,6 +114,49 @@ class AnimeRepositoryTest {
         Assertions.assertThat(animes).isEmpty();
     }
 
+    @Test
+    @DisplayName("findByNameStartingWithIgnoreCase return page of anime when the prefix matches ignoring case")
+    void findByNameStartingWithIgnoreCase_ReturnPageOfAnime_WhenPrefixMatchesIgnoringCase() {
+        Anime animeSaved = this.animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        Page<Anime> animePage = this.animeRepository.findByNameStartingWithIgnoreCase("aNiMe", PageRequest.of(0, 10));
+
+        Assertions.assertThat(animePage.getContent()).containsExactly(animeSaved);
+
+        Assertions.assertThat(this.animeRepository.findByNameStartingWithIgnoreCase("test", PageRequest.of(0, 10)))
+                .isEmpty();
+    }
+
+    @Test
+    @DisplayName("findByNameContainingIgnoreCase return page of anime when the term is inside the name ignoring case")
+    void findByNameContainingIgnoreCase_ReturnPageOfAnime_WhenTermIsInsideNameIgnoringCase() {
+        Anime animeSaved = this.animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        Page<Anime> animePage = this.animeRepository.findByNameContainingIgnoreCase("E TE", PageRequest.of(0, 10));
+
+        Assertions.assertThat(animePage.getContent()).containsExactly(animeSaved);
+    }
+
+    @Test
+    @DisplayName("findByNameContainingIgnoreCase treat like wildcards as plain characters")
+    void findByNameContainingIgnoreCase_TreatLikeWildcardsAsPlainCharacters() {
+        this.animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        Page<Anime> animePage = this.animeRepository.findByNameContainingIgnoreCase("%", PageRequest.of(0, 10));
+
+        Assertions.assertThat(animePage).isEmpty();
+    }
+
+    @Test
+    @DisplayName("findByNameIgnoreCase return page of anime when the name matches ignoring case")
+    void findByNameIgnoreCase_ReturnPageOfAnime_WhenNameMatchesIgnoringCase() {
+        Anime animeSaved = this.animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        Page<Anime> animePage = this.animeRepository.findByNameIgnoreCase("ANIME TEST", PageRequest.of(0, 10));
+
+        Assertions.assertThat(animePage.getContent()).containsExactly(animeSaved);
+    }
+
     @Test
     @DisplayName("save throw ConstraintViolationException when name is empty")
     void save_ThrowConstraintViolationException_WhenNameIsEmpty() {
@@ -99,9 +165,85 @@ class AnimeRepositoryTest {
 //        Assertions.assertThatThrownBy(() -> this.animeRepository.save(anime))
 //                .isInstanceOf(ConstraintViolationException.class);
 
+        // ids come from a sequence, so the insert and the validation only happen on flush
         Assertions.assertThatExceptionOfType(ConstraintViolationException.class)
-                .isThrownBy(() -> this.animeRepository.save(anime))
+                .isThrownBy(() -> this.animeRepository.saveAndFlush(anime))
                 .withMessageContaining("The anime name cannot be empty");
     }
 
+    @Test
+    @DisplayName("saveAll send the inserts as a single batch when successful")
+    void saveAll_SendInsertsAsSingleBatch_WhenSuccessful() {
+        List<Anime> animes = IntStream.range(0, 20)
+                .mapToObj(i -> Anime.builder().name("Anime " + i).build())
+                .collect(Collectors.toList());
+        statementCounter.reset();
+
+        this.animeRepository.saveAllAndFlush(animes);
+
+        StatementCount statementCount = statementCounter.snapshot();
+        Assertions.assertThat(statementCount.getInsert()).isEqualTo(1);
+        Assertions.assertThat(statementCount.getSelect()).isZero();
+    }
+
+    @Test
+    @DisplayName("findByIdInOrderByIdAsc load every anime with a single select when successful")
+    void findByIdInOrderByIdAsc_LoadEveryAnimeWithSingleSelect_WhenSuccessful() {
+        List<Anime> animes = this.animeRepository.saveAllAndFlush(List.of(
+                Anime.builder().name("First").build(),
+                Anime.builder().name("Second").build(),
+                Anime.builder().name("Third").build()));
+        List<Long> ids = animes.stream().map(Anime::getId).collect(Collectors.toList());
+        statementCounter.reset();
+
+        List<Anime> found = this.animeRepository.findByIdInOrderByIdAsc(ids);
+
+        Assertions.assertThat(found).hasSize(3);
+        Assertions.assertThat(statementCounter.snapshot().getSelect()).isEqualTo(1);
+        Assertions.assertThat(statementCounter.snapshot().getTotal()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("findViews return only the fields asked without managing any entity when successful")
+    void findViews_ReturnOnlyFieldsAskedWithoutManagingEntities_WhenSuccessful() {
+        List<Anime> animes = this.animeRepository.saveAllAndFlush(List.of(
+                Anime.builder().name("First").build(),
+                Anime.builder().name("Second").build(),
+                Anime.builder().name("Third").build()));
+        entityManager.clear();
+        statementCounter.reset();
+
+        Slice<AnimeView> views = this.animeRepository.findViews(EnumSet.of(AnimeField.ID, AnimeField.NAME),
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "name")));
+
+        Assertions.assertThat(views.getContent()).extracting(AnimeView::getId)
+                .containsExactly(animes.get(2).getId(), animes.get(1).getId());
+        Assertions.assertThat(views.getContent()).extracting(AnimeView::getName).containsExactly("Third", "Second");
+        Assertions.assertThat(views.getContent()).extracting(AnimeView::getVersion).containsOnlyNulls();
+        Assertions.assertThat(views.hasNext()).isTrue();
+        Assertions.assertThat(entityManager.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+        Assertions.assertThat(statementCounter.snapshot().getTotal()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("searchViews match the name ignoring case and take the wildcards of the name literally")
+    void searchViews_MatchNameIgnoringCaseAndTakeWildcardsLiterally() {
+        List<Anime> animes = this.animeRepository.saveAllAndFlush(List.of(
+                Anime.builder().name("100% Pascal").build(),
+                Anime.builder().name("100 Pascal").build(),
+                Anime.builder().name("Pascal 100%").build()));
+        entityManager.clear();
+
+        Page<AnimeView> prefix = this.animeRepository.searchViews(EnumSet.of(AnimeField.ID, AnimeField.NAME), "100%",
+                AnimeNameMatch.PREFIX, PageRequest.of(0, 10, Sort.by("id")));
+        Page<AnimeView> contains = this.animeRepository.searchViews(EnumSet.of(AnimeField.ID), "100%",
+                AnimeNameMatch.CONTAINS, PageRequest.of(0, 1, Sort.by("id")));
+        Page<AnimeView> exact = this.animeRepository.searchViews(EnumSet.of(AnimeField.ID), "100 PASCAL",
+                AnimeNameMatch.EXACT, PageRequest.of(0, 10, Sort.by("id")));
+
+        Assertions.assertThat(prefix.getContent()).extracting(AnimeView::getName).containsExactly("100% Pascal");
+        Assertions.assertThat(contains.getContent()).extracting(AnimeView::getId).containsExactly(animes.get(0).getId());
+        Assertions.assertThat(contains.getTotalElements()).isEqualTo(2);
+        Assertions.assertThat(exact.getContent()).extracting(AnimeView::getId).containsExactly(animes.get(1).getId());
+    }
 }
@@ -0,0 +1,113 @@
+package academy.devdojo.springboot2.resolver;
+
+import academy.devdojo.springboot2.exception.BadRequestException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+@DisplayName("Tests for Indexed Pageable Argument Resolver")
+class IndexedPageableArgumentResolverTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private IndexedPageableArgumentResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        resolver = new IndexedPageableArgumentResolver(100, meterRegistry);
+        resolver.setFallbackPageable(PageRequest.of(0, 5));
+    }
+
+    @Test
+    @DisplayName("resolveArgument appends id in the direction of the last order when the sort is allowed")
+    void resolveArgument_AppendsIdInDirectionOfLastOrder_WhenSortIsAllowed() {
+        Pageable pageable = resolve("limited", "size=8&sort=name,desc");
+
+        Assertions.assertThat(pageable.getPageSize()).isEqualTo(8);
+        Assertions.assertThat(pageable.getSort()).containsExactly(Sort.Order.desc("name"), Sort.Order.desc("id"));
+    }
+
+    @Test
+    @DisplayName("resolveArgument sorts by id when the client does not sort")
+    void resolveArgument_SortsById_WhenClientDoesNotSort() {
+        Pageable pageable = resolve("limited", "page=2");
+
+        Assertions.assertThat(pageable.getPageNumber()).isEqualTo(2);
+        Assertions.assertThat(pageable.getSort()).containsExactly(Sort.Order.asc("id"));
+    }
+
+    @Test
+    @DisplayName("resolveArgument throws BadRequestException and counts it once when the size is above the maximum of the endpoint")
+    void resolveArgument_ThrowsBadRequestException_WhenSizeIsAboveMaximumOfEndpoint() {
+        MockHttpServletRequest request = request("size=11");
+
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> resolve("limited", request))
+                .withMessageContaining("10");
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> resolve("limited", request));
+
+        Assertions.assertThat(meterRegistry.get("http.server.requests.pageable.rejected")
+                .tag("reason", "size").tag("endpoint", "Endpoints.limited").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("resolveArgument throws BadRequestException when the sort is outside the sortable properties or ignores case")
+    void resolveArgument_ThrowsBadRequestException_WhenSortIsNotAllowed() {
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> resolve("limited", "sort=version"));
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> resolve("limited", "sort=name,asc,ignorecase"));
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> resolve("unlimited", "sort=name"));
+
+        Assertions.assertThat(meterRegistry.get("http.server.requests.pageable.rejected")
+                .tag("reason", "sort").counters()).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("resolveArgument uses the default maximum when the parameter has no limits")
+    void resolveArgument_UsesDefaultMaximum_WhenParameterHasNoLimits() {
+        Assertions.assertThat(resolve("unlimited", "size=100").getPageSize()).isEqualTo(100);
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> resolve("unlimited", "size=101"));
+    }
+
+    private Pageable resolve(String method, String queryString) {
+        return resolve(method, request(queryString));
+    }
+
+    private Pageable resolve(String method, MockHttpServletRequest request) {
+        MethodParameter parameter = new MethodParameter(ClassUtils.getMethod(Endpoints.class, method, Pageable.class), 0);
+        return resolver.resolveArgument(parameter, null, new ServletWebRequest(request), null);
+    }
+
+    private static MockHttpServletRequest request(String queryString) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/animes");
+        request.setQueryString(queryString);
+        for (String parameter : queryString.split("&")) {
+            String[] nameAndValue = parameter.split("=", 2);
+            request.addParameter(nameAndValue[0], nameAndValue[1]);
+        }
+        return request;
+    }
+
+    @SuppressWarnings("unused")
+    private static class Endpoints {
+        public void limited(@PageableLimits(maxSize = 10, sortable = {"id", "name"}) Pageable pageable) {
+        }
+
+        public void unlimited(Pageable pageable) {
+        }
+    }
+}
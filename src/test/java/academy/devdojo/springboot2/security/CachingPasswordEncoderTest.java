@@ -0,0 +1,58 @@
+package academy.devdojo.springboot2.security;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.BDDMockito;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+@DisplayName("Tests for Caching Password Encoder")
+class CachingPasswordEncoderTest {
+
+    private static final String ENCODED = "{bcrypt}$2a$10$5OI6881o1onA5Ra4LYKiE..adFHPQjmAaupjWV8pnrYkEwNd8Yl/6";
+
+    private PasswordEncoder delegateMock;
+
+    private CachingPasswordEncoder cachingPasswordEncoder;
+
+    @BeforeEach
+    void setUp() {
+        delegateMock = BDDMockito.mock(PasswordEncoder.class);
+
+        BDDMockito.when(delegateMock.matches("test", ENCODED)).thenReturn(true);
+
+        cachingPasswordEncoder = new CachingPasswordEncoder(delegateMock, new ConcurrentMapCache("credentials"));
+    }
+
+    @Test
+    @DisplayName("matches call the delegate only once when the same credential is verified repeatedly")
+    void matches_CallDelegateOnlyOnce_WhenSameCredentialIsVerifiedRepeatedly() {
+        Assertions.assertThat(cachingPasswordEncoder.matches("test", ENCODED)).isTrue();
+        Assertions.assertThat(cachingPasswordEncoder.matches("test", ENCODED)).isTrue();
+
+        BDDMockito.verify(delegateMock, BDDMockito.times(1)).matches("test", ENCODED);
+    }
+
+    @Test
+    @DisplayName("matches always call the delegate when the password is wrong")
+    void matches_AlwaysCallDelegate_WhenPasswordIsWrong() {
+        Assertions.assertThat(cachingPasswordEncoder.matches("wrong", ENCODED)).isFalse();
+        Assertions.assertThat(cachingPasswordEncoder.matches("wrong", ENCODED)).isFalse();
+
+        BDDMockito.verify(delegateMock, BDDMockito.times(2)).matches("wrong", ENCODED);
+    }
+
+    @Test
+    @DisplayName("matches call the delegate again when the stored password changes")
+    void matches_CallDelegateAgain_WhenStoredPasswordChanges() {
+        String newEncoded = "{noop}test";
+
+        cachingPasswordEncoder.matches("test", ENCODED);
+
+        Assertions.assertThat(cachingPasswordEncoder.matches("test", newEncoded)).isFalse();
+
+        BDDMockito.verify(delegateMock).matches("test", newEncoded);
+    }
+}
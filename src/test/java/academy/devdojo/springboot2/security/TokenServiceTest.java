@@ -0,0 +1,86 @@
+package academy.devdojo.springboot2.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+@DisplayName("Tests for Token Service")
+class TokenServiceTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes());
+    private static final Instant NOW = Instant.parse("2021-10-01T10:00:00Z");
+
+    private final UserDetails admin = User.withUsername("admin")
+            .password("test")
+            .authorities("ROLE_ADMIN", "ROLE_USER")
+            .build();
+
+    private final TokenService tokenService = tokenServiceAt(NOW);
+
+    @Test
+    @DisplayName("parse return the user the token was issued to when successful")
+    void parse_ReturnUserTheTokenWasIssuedTo_WhenSuccessful() {
+        UserDetails userDetails = tokenService.parse(tokenService.issue(admin));
+
+        Assertions.assertThat(userDetails.getUsername()).isEqualTo("admin");
+
+        Assertions.assertThat(userDetails.getAuthorities())
+                .extracting("authority")
+                .containsExactlyInAnyOrder("ROLE_ADMIN", "ROLE_USER");
+    }
+
+    @Test
+    @DisplayName("parse throw BadCredentialsException when the token was tampered with")
+    void parse_ThrowBadCredentialsException_WhenTokenWasTamperedWith() {
+        String token = tokenService.issue(admin);
+        String[] parts = token.split("\\.");
+        String forgedPayload = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"sub\":\"root\",\"roles\":[\"ROLE_ADMIN\"],\"exp\":9999999999}".getBytes());
+
+        Assertions.assertThatExceptionOfType(BadCredentialsException.class)
+                .isThrownBy(() -> tokenService.parse(parts[0] + "." + forgedPayload + "." + parts[2]));
+    }
+
+    @Test
+    @DisplayName("parse throw BadCredentialsException when the token is expired")
+    void parse_ThrowBadCredentialsException_WhenTokenIsExpired() {
+        String token = tokenService.issue(admin);
+
+        TokenService later = tokenServiceAt(NOW.plus(Duration.ofMinutes(16)));
+
+        Assertions.assertThatExceptionOfType(BadCredentialsException.class)
+                .isThrownBy(() -> later.parse(token))
+                .withMessage("Token expired");
+    }
+
+    @Test
+    @DisplayName("parse throw BadCredentialsException when the token is malformed")
+    void parse_ThrowBadCredentialsException_WhenTokenIsMalformed() {
+        Assertions.assertThatExceptionOfType(BadCredentialsException.class)
+                .isThrownBy(() -> tokenService.parse("not-a-token"));
+    }
+
+    @Test
+    @DisplayName("constructor throw IllegalArgumentException when the secret decodes to less than 32 bytes")
+    void constructor_ThrowIllegalArgumentException_WhenSecretIsShorterThan32Bytes() {
+        String shortSecret = Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcde".getBytes());
+
+        Assertions.assertThatIllegalArgumentException()
+                .isThrownBy(() -> new TokenService(new ObjectMapper(), shortSecret, Duration.ofMinutes(15), Clock.systemUTC()))
+                .withMessageContaining("31");
+    }
+
+    private static TokenService tokenServiceAt(Instant instant) {
+        return new TokenService(new ObjectMapper(), SECRET, Duration.ofMinutes(15), Clock.fixed(instant, ZoneOffset.UTC));
+    }
+}
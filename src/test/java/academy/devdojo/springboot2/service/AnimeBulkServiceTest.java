@@ -0,0 +1,223 @@
+package academy.devdojo.springboot2.service;
+
+import academy.devdojo.springboot2.config.CacheConfig;
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.exception.BadRequestException;
+import academy.devdojo.springboot2.repository.AnimeRepository;
+import academy.devdojo.springboot2.requests.AnimePostRequestBody;
+import academy.devdojo.springboot2.requests.AnimePutRequestBody;
+import academy.devdojo.springboot2.responses.BulkItemStatus;
+import academy.devdojo.springboot2.responses.BulkResponseBody;
+import academy.devdojo.springboot2.util.AnimeCreator;
+import academy.devdojo.springboot2.util.AnimePostRequestBodyCreator;
+import academy.devdojo.springboot2.util.AnimePutRequestBodyCreator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.validation.Validation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+@DisplayName("Tests for Anime Bulk Service")
+class AnimeBulkServiceTest {
+
+    private AnimeBulkService animeBulkService;
+
+    private AnimeRepository animeRepositoryMock;
+
+    private EntityManager entityManagerMock;
+
+    private PlatformTransactionManager transactionManagerMock;
+
+    private Cache animesCache;
+
+    @BeforeEach
+    void setUp() {
+        animeRepositoryMock = BDDMockito.mock(AnimeRepository.class);
+        entityManagerMock = BDDMockito.mock(EntityManager.class);
+        transactionManagerMock = BDDMockito.mock(PlatformTransactionManager.class);
+
+        CacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfig.ANIMES_CACHE);
+        animesCache = cacheManager.getCache(CacheConfig.ANIMES_CACHE);
+
+        animeBulkService = new AnimeBulkService(animeRepositoryMock, BDDMockito.mock(AnimeNameIndex.class),
+                BDDMockito.mock(ApplicationEventPublisher.class), cacheManager, entityManagerMock,
+                new TransactionTemplate(transactionManagerMock),
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                new SimpleMeterRegistry(), 2, 10);
+
+        BDDMockito.when(animeRepositoryMock.saveAll(ArgumentMatchers.anyIterable()))
+                .thenAnswer(invocation -> {
+                    long id = 1;
+                    for (Anime anime : invocation.<Iterable<Anime>>getArgument(0)) {
+                        anime.setId(id++);
+                    }
+                    return invocation.getArgument(0);
+                });
+
+        BDDMockito.when(animeRepositoryMock.findAllById(ArgumentMatchers.anyIterable()))
+                .thenReturn(new ArrayList<>(List.of(AnimeCreator.createValidAnime())));
+
+        BDDMockito.when(animeRepositoryMock.findExistingIds(ArgumentMatchers.anyCollection()))
+                .thenReturn(List.of(1L));
+    }
+
+    @Test
+    @DisplayName("saveAll create valid animes in chunks and report the invalid ones when successful")
+    void saveAll_CreateValidAnimesInChunksAndReportInvalidOnes_WhenSuccessful() {
+        List<AnimePostRequestBody> bodies = List.of(
+                AnimePostRequestBodyCreator.createAnimePostRequestBody(),
+                new AnimePostRequestBody(""),
+                AnimePostRequestBodyCreator.createAnimePostRequestBody(),
+                AnimePostRequestBodyCreator.createAnimePostRequestBody());
+
+        BulkResponseBody response = animeBulkService.saveAll(bodies);
+
+        Assertions.assertThat(response.getSucceeded()).isEqualTo(3);
+
+        Assertions.assertThat(response.getFailed()).isEqualTo(1);
+
+        Assertions.assertThat(response.getItems())
+                .extracting("status")
+                .containsExactly(BulkItemStatus.CREATED, BulkItemStatus.INVALID, BulkItemStatus.CREATED, BulkItemStatus.CREATED);
+
+        Assertions.assertThat(response.getItems().get(1).getMessage()).isEqualTo("The anime name cannot be empty");
+
+        // chunk size is 2, so 3 valid items means 2 transactions
+        BDDMockito.verify(animeRepositoryMock, BDDMockito.times(2)).saveAll(ArgumentMatchers.anyIterable());
+        BDDMockito.verify(transactionManagerMock, BDDMockito.times(2)).commit(ArgumentMatchers.any());
+        BDDMockito.verify(entityManagerMock, BDDMockito.times(2)).clear();
+    }
+
+    @Test
+    @DisplayName("saveAll report the items of a failing chunk as failed and keep the ids of the committed ones")
+    void saveAll_ReportItemsOfFailingChunkAsFailedAndKeepIdsOfCommittedOnes_WhenLaterChunkFails() {
+        BDDMockito.doNothing()
+                .doThrow(new QueryTimeoutException("The flush timed out"))
+                .when(entityManagerMock).flush();
+
+        BulkResponseBody response = animeBulkService.saveAll(List.of(
+                AnimePostRequestBodyCreator.createAnimePostRequestBody(),
+                AnimePostRequestBodyCreator.createAnimePostRequestBody(),
+                AnimePostRequestBodyCreator.createAnimePostRequestBody()));
+
+        Assertions.assertThat(response.getItems())
+                .extracting("id", "status")
+                .containsExactly(Assertions.tuple(1L, BulkItemStatus.CREATED), Assertions.tuple(2L, BulkItemStatus.CREATED),
+                        Assertions.tuple(null, BulkItemStatus.FAILED));
+
+        Assertions.assertThat(response.getFailed()).isEqualTo(1);
+
+        BDDMockito.verify(transactionManagerMock).rollback(ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("saveAll throw BadRequestException when there are too many items")
+    void saveAll_ThrowBadRequestException_WhenThereAreTooManyItems() {
+        List<AnimePostRequestBody> bodies = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            bodies.add(AnimePostRequestBodyCreator.createAnimePostRequestBody());
+        }
+
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> animeBulkService.saveAll(bodies));
+    }
+
+    @Test
+    @DisplayName("replaceAll update existing animes and report the missing ones when successful")
+    void replaceAll_UpdateExistingAnimesAndReportMissingOnes_WhenSuccessful() {
+        AnimePutRequestBody existing = AnimePutRequestBodyCreator.createAnimePutRequestBody();
+        AnimePutRequestBody missing = new AnimePutRequestBody(99L, "Missing");
+
+        BulkResponseBody response = animeBulkService.replaceAll(List.of(existing, missing));
+
+        Assertions.assertThat(response.getItems())
+                .extracting("status")
+                .containsExactly(BulkItemStatus.UPDATED, BulkItemStatus.NOT_FOUND);
+
+        BDDMockito.verify(entityManagerMock).flush();
+    }
+
+    @Test
+    @DisplayName("deleteAll delete existing animes in one statement and report the missing ones when successful")
+    @SuppressWarnings("unchecked")
+    void deleteAll_DeleteExistingAnimesAndReportMissingOnes_WhenSuccessful() {
+        BulkResponseBody response = animeBulkService.deleteAll(Arrays.asList(1L, 99L, null));
+
+        Assertions.assertThat(response.getItems())
+                .extracting("status")
+                .containsExactly(BulkItemStatus.DELETED, BulkItemStatus.NOT_FOUND, BulkItemStatus.INVALID);
+
+        BDDMockito.verify(animeRepositoryMock).deleteAllByIdInBatch(ArgumentMatchers.argThat(ids ->
+                ((Collection<Long>) ids).contains(1L) && ((Collection<Long>) ids).size() == 1));
+    }
+
+    @Test
+    @DisplayName("replaceAll report the items of a failing chunk as failed and evict the animes of the committed chunks")
+    void replaceAll_ReportItemsOfFailingChunkAsFailedAndEvictAnimesOfCommittedChunks_WhenLaterChunkFails() {
+        for (long id = 1; id <= 3; id++) {
+            animesCache.put(id, new Anime(id, "Old " + id, 0L));
+        }
+        BDDMockito.when(animeRepositoryMock.findAllById(Set.of(1L, 2L)))
+                .thenReturn(List.of(new Anime(1L, "Old 1", 0L), new Anime(2L, "Old 2", 0L)));
+        BDDMockito.when(animeRepositoryMock.findAllById(Set.of(3L)))
+                .thenThrow(new QueryTimeoutException("The third anime is locked"));
+
+        BulkResponseBody response = animeBulkService.replaceAll(List.of(new AnimePutRequestBody(1L, "New 1"),
+                new AnimePutRequestBody(2L, "New 2"), new AnimePutRequestBody(3L, "New 3")));
+
+        Assertions.assertThat(response.getItems())
+                .extracting("id", "status")
+                .containsExactly(Assertions.tuple(1L, BulkItemStatus.UPDATED), Assertions.tuple(2L, BulkItemStatus.UPDATED),
+                        Assertions.tuple(3L, BulkItemStatus.FAILED));
+
+        Assertions.assertThat(response.getSucceeded()).isEqualTo(2);
+
+        Assertions.assertThat(response.getFailed()).isEqualTo(1);
+
+        Assertions.assertThat(animesCache.get(1L)).isNull();
+        Assertions.assertThat(animesCache.get(2L)).isNull();
+        Assertions.assertThat(animesCache.get(3L)).isNotNull();
+        BDDMockito.verify(transactionManagerMock).commit(ArgumentMatchers.any());
+        BDDMockito.verify(transactionManagerMock).rollback(ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("deleteAll report the items of a failing chunk as failed and evict the animes of the committed chunks")
+    void deleteAll_ReportItemsOfFailingChunkAsFailedAndEvictAnimesOfCommittedChunks_WhenLaterChunkFails() {
+        for (long id = 1; id <= 3; id++) {
+            animesCache.put(id, new Anime(id, "Old " + id, 0L));
+        }
+        BDDMockito.when(animeRepositoryMock.findExistingIds(Set.of(1L, 2L)))
+                .thenReturn(List.of(1L, 2L));
+        BDDMockito.when(animeRepositoryMock.findExistingIds(Set.of(3L)))
+                .thenThrow(new QueryTimeoutException("The third anime is locked"));
+
+        BulkResponseBody response = animeBulkService.deleteAll(List.of(1L, 2L, 3L));
+
+        Assertions.assertThat(response.getItems())
+                .extracting("id", "status")
+                .containsExactly(Assertions.tuple(1L, BulkItemStatus.DELETED), Assertions.tuple(2L, BulkItemStatus.DELETED),
+                        Assertions.tuple(3L, BulkItemStatus.FAILED));
+
+        Assertions.assertThat(animesCache.get(1L)).isNull();
+        Assertions.assertThat(animesCache.get(2L)).isNull();
+        Assertions.assertThat(animesCache.get(3L)).isNotNull();
+    }
+}
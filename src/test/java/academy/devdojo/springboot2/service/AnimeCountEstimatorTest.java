@@ -0,0 +1,43 @@
+package academy.devdojo.springboot2.service;
+
+import academy.devdojo.springboot2.config.StatementCountConfig;
+import academy.devdojo.springboot2.datasource.StatementCounter;
+import academy.devdojo.springboot2.repository.AnimeRepository;
+import academy.devdojo.springboot2.util.AnimeCreator;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+@DataJpaTest(properties = "devdojo.statement-count.enabled=true")
+@Import({AnimeCountEstimator.class, StatementCountConfig.class})
+@DisplayName("Tests for Anime Count Estimator")
+class AnimeCountEstimatorTest {
+
+    @Autowired
+    private AnimeCountEstimator animeCountEstimator;
+
+    @Autowired
+    private AnimeRepository animeRepository;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Test
+    @DisplayName("estimate count the animes then reuse the count within the ttl")
+    void estimate_CountAnimesThenReuseTheCount_WithinTtl() {
+        animeRepository.saveAndFlush(AnimeCreator.createAnimeToBeSaved());
+
+        long estimate = animeCountEstimator.estimate();
+
+        Assertions.assertThat(estimate).isEqualTo(animeRepository.count());
+
+        animeRepository.saveAndFlush(AnimeCreator.createAnimeToBeSaved());
+        statementCounter.reset();
+
+        Assertions.assertThat(animeCountEstimator.estimate()).isEqualTo(estimate);
+        Assertions.assertThat(statementCounter.snapshot().getTotal()).isZero();
+    }
+}
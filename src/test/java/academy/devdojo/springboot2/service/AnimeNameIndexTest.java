@@ -0,0 +1,101 @@
+package academy.devdojo.springboot2.service;
+
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.repository.AnimeRepository;
+import academy.devdojo.springboot2.responses.AnimeSuggestionResponseBody;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.BDDMockito;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+@DisplayName("Tests for Anime Name Index")
+class AnimeNameIndexTest {
+
+    private AnimeNameIndex animeNameIndex;
+
+    private AnimeRepository animeRepositoryMock;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        animeRepositoryMock = BDDMockito.mock(AnimeRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+
+        animeNameIndex = new AnimeNameIndex(animeRepositoryMock,
+                new TransactionTemplate(BDDMockito.mock(PlatformTransactionManager.class)), meterRegistry);
+
+        BDDMockito.when(animeRepositoryMock.streamSuggestions())
+                .thenAnswer(invocation -> Stream.of(
+                        new AnimeSuggestionResponseBody(1L, "Naruto"),
+                        new AnimeSuggestionResponseBody(2L, "Naruto Shippūden"),
+                        new AnimeSuggestionResponseBody(3L, "Nana"),
+                        new AnimeSuggestionResponseBody(4L, "One Piece")));
+
+        animeNameIndex.load();
+    }
+
+    @Test
+    @DisplayName("suggest return animes whose name starts with the prefix ignoring case and accents when successful")
+    void suggest_ReturnAnimesStartingWithPrefixIgnoringCaseAndAccents_WhenSuccessful() {
+        List<AnimeSuggestionResponseBody> suggestions = animeNameIndex.suggest("NARUTO  SHIPPU", 10);
+
+        Assertions.assertThat(suggestions)
+                .extracting(AnimeSuggestionResponseBody::getId)
+                .containsExactly(2L);
+
+        Assertions.assertThat(animeNameIndex.suggest("na", 10))
+                .extracting(AnimeSuggestionResponseBody::getName)
+                .containsExactly("Nana", "Naruto", "Naruto Shippūden");
+    }
+
+    @Test
+    @DisplayName("suggest return at most limit animes when there are more matches")
+    void suggest_ReturnAtMostLimitAnimes_WhenThereAreMoreMatches() {
+        Assertions.assertThat(animeNameIndex.suggest("n", 2)).hasSize(2);
+
+        Assertions.assertThat(animeNameIndex.suggest("dragon", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("put replace the previous name of the anime when the anime is already indexed")
+    void put_ReplacePreviousName_WhenAnimeIsAlreadyIndexed() {
+        animeNameIndex.put(Anime.builder().id(1L).name("Boruto").build());
+
+        Assertions.assertThat(animeNameIndex.suggest("naruto", 10))
+                .extracting(AnimeSuggestionResponseBody::getId)
+                .containsExactly(2L);
+
+        Assertions.assertThat(animeNameIndex.suggest("bor", 10))
+                .extracting(AnimeSuggestionResponseBody::getId)
+                .containsExactly(1L);
+
+        Assertions.assertThat(animeNameIndex.size()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("removeAll remove the animes and give back their memory when successful")
+    void removeAll_RemoveAnimesAndGiveBackTheirMemory_WhenSuccessful() {
+        long bytesBefore = animeNameIndex.estimatedBytes();
+
+        animeNameIndex.removeAll(List.of(1L, 2L, 99L));
+
+        Assertions.assertThat(animeNameIndex.suggest("naruto", 10)).isEmpty();
+
+        Assertions.assertThat(animeNameIndex.size()).isEqualTo(2);
+
+        Assertions.assertThat(animeNameIndex.estimatedBytes())
+                .isPositive()
+                .isLessThan(bytesBefore);
+
+        Assertions.assertThat(meterRegistry.get("animes.suggest.index.memory").gauge().value())
+                .isEqualTo(animeNameIndex.estimatedBytes());
+    }
+}
@@ -0,0 +1,115 @@
+package academy.devdojo.springboot2.service;
+
+import academy.devdojo.springboot2.config.CacheConfig;
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.repository.AnimeRepository;
+import academy.devdojo.springboot2.util.AnimeCreator;
+import academy.devdojo.springboot2.util.AnimePostRequestBodyCreator;
+import academy.devdojo.springboot2.util.AnimePutRequestBodyCreator;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+
+import javax.persistence.EntityManager;
+import java.util.Optional;
+
+@SpringBootTest(classes = {CacheConfig.class, AnimeService.class}, properties = {
+        "spring.cache.cache-names=animes",
+        "spring.cache.caffeine.spec=maximumSize=100,expireAfterWrite=1m"
+})
+@ImportAutoConfiguration(CacheAutoConfiguration.class)
+@DisplayName("Tests for Anime Service cache")
+class AnimeServiceCacheTest {
+
+    @Autowired
+    private AnimeService animeService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @MockBean
+    private AnimeRepository animeRepositoryMock;
+
+    @MockBean
+    private EntityManager entityManagerMock;
+
+    @MockBean
+    private AnimeNameIndex animeNameIndexMock;
+
+    @MockBean
+    private AnimeCountEstimator animeCountEstimatorMock;
+
+    @BeforeEach
+    void setUp() {
+        this.cacheManager.getCache(CacheConfig.ANIMES_CACHE).clear();
+
+        Anime anime = AnimeCreator.createValidAnime();
+
+        BDDMockito.when(this.animeRepositoryMock.findById(ArgumentMatchers.anyLong()))
+                .thenReturn(Optional.of(anime));
+
+        BDDMockito.when(this.animeRepositoryMock.save(ArgumentMatchers.any(Anime.class)))
+                .thenReturn(anime);
+
+        BDDMockito.when(this.animeRepositoryMock.updateName(ArgumentMatchers.anyLong(), ArgumentMatchers.anyString()))
+                .thenReturn(1);
+
+        BDDMockito.when(this.animeRepositoryMock.deleteIfExists(ArgumentMatchers.anyLong()))
+                .thenReturn(1);
+    }
+
+    @Test
+    @DisplayName("findByIdOrThrowBadRequestException hit the repository only once when called repeatedly")
+    void findByIdOrThrowBadRequestException_HitRepositoryOnlyOnce_WhenCalledRepeatedly() {
+        Anime first = this.animeService.findByIdOrThrowBadRequestException(1L);
+        Anime second = this.animeService.findByIdOrThrowBadRequestException(1L);
+
+        Assertions.assertThat(second).isEqualTo(first);
+
+        BDDMockito.verify(this.animeRepositoryMock, BDDMockito.times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("save put anime in the cache when successful")
+    void save_PutAnimeInCache_WhenSuccessful() {
+        Anime anime = this.animeService.save(AnimePostRequestBodyCreator.createAnimePostRequestBody());
+
+        this.animeService.findByIdOrThrowBadRequestException(anime.getId());
+
+        BDDMockito.verify(this.animeRepositoryMock, BDDMockito.never()).findById(ArgumentMatchers.anyLong());
+    }
+
+    @Test
+    @DisplayName("replace evict anime from the cache when successful")
+    void replace_EvictAnimeFromCache_WhenSuccessful() {
+        this.animeService.findByIdOrThrowBadRequestException(1L);
+
+        this.animeService.replace(AnimePutRequestBodyCreator.createAnimePutRequestBody(), null);
+
+        this.animeService.findByIdOrThrowBadRequestException(1L);
+
+        // replace is a single UPDATE, the calls are the two lookups
+        BDDMockito.verify(this.animeRepositoryMock, BDDMockito.times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("delete evict anime from the cache when successful")
+    void delete_EvictAnimeFromCache_WhenSuccessful() {
+        this.animeService.findByIdOrThrowBadRequestException(1L);
+
+        this.animeService.delete(1L, null);
+
+        this.animeService.findByIdOrThrowBadRequestException(1L);
+
+        BDDMockito.verify(this.animeRepositoryMock, BDDMockito.times(2)).findById(1L);
+    }
+}
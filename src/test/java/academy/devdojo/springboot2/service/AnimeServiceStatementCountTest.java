@@ -0,0 +1,105 @@
+package academy.devdojo.springboot2.service;
+
+import academy.devdojo.springboot2.config.StatementCountConfig;
+import academy.devdojo.springboot2.datasource.StatementCount;
+import academy.devdojo.springboot2.datasource.StatementCounter;
+import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.exception.BadRequestException;
+import academy.devdojo.springboot2.exception.PreconditionFailedException;
+import academy.devdojo.springboot2.repository.AnimeRepository;
+import academy.devdojo.springboot2.requests.AnimePutRequestBody;
+import academy.devdojo.springboot2.util.AnimeCreator;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+@DataJpaTest(properties = "devdojo.statement-count.enabled=true")
+@Import({AnimeService.class, StatementCountConfig.class})
+@DisplayName("Tests for the statements Anime Service sends to the database")
+class AnimeServiceStatementCountTest {
+
+    @Autowired
+    private AnimeService animeService;
+
+    @Autowired
+    private AnimeRepository animeRepository;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @MockBean
+    private AnimeNameIndex animeNameIndexMock;
+
+    @MockBean
+    private AnimeCountEstimator animeCountEstimatorMock;
+
+    private Anime savedAnime;
+
+    @BeforeEach
+    void setUp() {
+        savedAnime = animeRepository.saveAndFlush(AnimeCreator.createAnimeToBeSaved());
+        statementCounter.reset();
+    }
+
+    @Test
+    @DisplayName("replace sends a single UPDATE that increments the version when the expected version is the stored one")
+    void replace_SendsSingleUpdate_WhenExpectedVersionIsTheStoredOne() {
+        animeService.replace(new AnimePutRequestBody(savedAnime.getId(), "Overlord"), savedAnime.getVersion());
+
+        StatementCount statementCount = statementCounter.snapshot();
+        Assertions.assertThat(statementCount.getUpdate()).isEqualTo(1);
+        Assertions.assertThat(statementCount.getTotal()).isEqualTo(1);
+        Anime replaced = animeRepository.findById(savedAnime.getId()).orElseThrow();
+        Assertions.assertThat(replaced.getName()).isEqualTo("Overlord");
+        Assertions.assertThat(replaced.getVersion()).isEqualTo(savedAnime.getVersion() + 1);
+    }
+
+    @Test
+    @DisplayName("replace sends a single UPDATE when there is no expected version")
+    void replace_SendsSingleUpdate_WhenThereIsNoExpectedVersion() {
+        animeService.replace(new AnimePutRequestBody(savedAnime.getId(), "Overlord"), null);
+
+        Assertions.assertThat(statementCounter.snapshot().getTotal()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("delete sends a single DELETE when the expected version is the stored one")
+    void delete_SendsSingleDelete_WhenExpectedVersionIsTheStoredOne() {
+        animeService.delete(savedAnime.getId(), savedAnime.getVersion());
+
+        StatementCount statementCount = statementCounter.snapshot();
+        Assertions.assertThat(statementCount.getDelete()).isEqualTo(1);
+        Assertions.assertThat(statementCount.getTotal()).isEqualTo(1);
+        Assertions.assertThat(animeRepository.findById(savedAnime.getId())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("delete sends a single DELETE and throws BadRequestException when the anime is not found")
+    void delete_SendsSingleDelete_AndThrowsBadRequestException_WhenAnimeIsNotFound() {
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> animeService.delete(savedAnime.getId() + 1000, null));
+
+        Assertions.assertThat(statementCounter.snapshot().getTotal()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("replace leaves the anime alone and throws PreconditionFailedException when the expected version is not the stored one")
+    void replace_LeavesAnimeAlone_WhenExpectedVersionIsNotTheStoredOne() {
+        Assertions.assertThatExceptionOfType(PreconditionFailedException.class)
+                .isThrownBy(() -> animeService.replace(new AnimePutRequestBody(savedAnime.getId(), "Overlord"),
+                        savedAnime.getVersion() + 1));
+
+        // the version is read back only because nothing was updated, to answer 412 rather than 400
+        StatementCount statementCount = statementCounter.snapshot();
+        Assertions.assertThat(statementCount.getUpdate()).isEqualTo(1);
+        Assertions.assertThat(statementCount.getSelect()).isEqualTo(1);
+
+        Assertions.assertThat(animeRepository.findById(savedAnime.getId()).orElseThrow().getName())
+                .isEqualTo(savedAnime.getName());
+    }
+}
@@ -1,11 +1,20 @@
 package academy.devdojo.springboot2.service;
 
 import academy.devdojo.springboot2.domain.Anime;
+import academy.devdojo.springboot2.event.AnimesChangedEvent;
 import academy.devdojo.springboot2.exception.BadRequestException;
+import academy.devdojo.springboot2.exception.PreconditionFailedException;
 import academy.devdojo.springboot2.repository.AnimeRepository;
+import academy.devdojo.springboot2.requests.AnimeField;
+import academy.devdojo.springboot2.requests.AnimeNameMatch;
+import academy.devdojo.springboot2.requests.PageCount;
+import academy.devdojo.springboot2.responses.AnimeSuggestionResponseBody;
+import academy.devdojo.springboot2.responses.AnimeView;
 import academy.devdojo.springboot2.util.AnimeCreator;
 import academy.devdojo.springboot2.util.AnimePostRequestBodyCreator;
 import academy.devdojo.springboot2.util.AnimePutRequestBodyCreator;
+import academy.devdojo.springboot2.wrapper.CursorPage;
+import academy.devdojo.springboot2.wrapper.EstimatedPage;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -13,29 +22,50 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentMatchers;
 import org.mockito.BDDMockito;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @ExtendWith(SpringExtension.class)
 @DisplayName("Tests for Anime Service")
 class AnimeServiceTest {
 
-    @InjectMocks
     private AnimeService animeService;
 
     @Mock
     private AnimeRepository animeRepositoryMock;
 
+    @Mock
+    private EntityManager entityManagerMock;
+
+    @Mock
+    private AnimeNameIndex animeNameIndexMock;
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisherMock;
+
+    @Mock
+    private AnimeCountEstimator animeCountEstimatorMock;
+
     @BeforeEach
     void setUp() {
+        animeService = new AnimeService(animeRepositoryMock, entityManagerMock, animeNameIndexMock,
+                applicationEventPublisherMock, animeCountEstimatorMock, 100);
+
         Anime anime = AnimeCreator.createValidAnime();
         List<Anime> animes = List.of(anime);
         PageImpl<Anime> animePage = new PageImpl<>(animes);
@@ -43,19 +73,51 @@ class AnimeServiceTest {
         BDDMockito.when(this.animeRepositoryMock.findAll(ArgumentMatchers.any(PageRequest.class)))
                 .thenReturn(animePage);
 
+        BDDMockito.when(this.animeRepositoryMock.findByIdGreaterThanOrderByIdAsc(ArgumentMatchers.anyLong(), ArgumentMatchers.any(PageRequest.class)))
+                .thenReturn(animes);
+
         BDDMockito.when(this.animeRepositoryMock.findAll())
                 .thenReturn(animes);
 
+        BDDMockito.when(this.animeRepositoryMock.findAllBy(ArgumentMatchers.any(PageRequest.class)))
+                .thenReturn(new SliceImpl<>(animes, PageRequest.of(0, 1), true));
+
+        BDDMockito.when(this.animeCountEstimatorMock.estimate())
+                .thenReturn(40L);
+
+        BDDMockito.when(this.animeRepositoryMock.streamAll())
+                .thenAnswer(invocation -> animes.stream());
+
         BDDMockito.when(this.animeRepositoryMock.findById(ArgumentMatchers.anyLong()))
                 .thenReturn(Optional.of(anime));
 
         BDDMockito.when(this.animeRepositoryMock.findAllByName(ArgumentMatchers.anyString()))
                 .thenReturn(animes);
 
+        BDDMockito.when(this.animeRepositoryMock.findByIdInOrderByIdAsc(ArgumentMatchers.anyCollection()))
+                .thenReturn(animes);
+
+        BDDMockito.when(this.animeRepositoryMock.findByNameStartingWithIgnoreCase(ArgumentMatchers.anyString(), ArgumentMatchers.any(PageRequest.class)))
+                .thenReturn(animePage);
+
         BDDMockito.when(this.animeRepositoryMock.save(ArgumentMatchers.any(Anime.class)))
                 .thenReturn(anime);
 
-        BDDMockito.doNothing().when(this.animeRepositoryMock).delete(ArgumentMatchers.any(Anime.class));
+        BDDMockito.when(this.animeRepositoryMock.updateName(ArgumentMatchers.anyLong(), ArgumentMatchers.anyString()))
+                .thenReturn(1);
+
+        BDDMockito.when(this.animeRepositoryMock.deleteIfExists(ArgumentMatchers.anyLong()))
+                .thenReturn(1);
+
+        // the stored version is 3, the conditional statements only change an anime still at it
+        BDDMockito.when(this.animeRepositoryMock.updateNameIfVersion(ArgumentMatchers.anyLong(), ArgumentMatchers.anyString(), ArgumentMatchers.eq(3L)))
+                .thenReturn(1);
+
+        BDDMockito.when(this.animeRepositoryMock.deleteIfVersion(ArgumentMatchers.anyLong(), ArgumentMatchers.eq(3L)))
+                .thenReturn(1);
+
+        BDDMockito.when(this.animeRepositoryMock.findVersionById(ArgumentMatchers.anyLong()))
+                .thenReturn(Optional.of(3L));
     }
 
     @Test
@@ -74,6 +136,138 @@ class AnimeServiceTest {
         Assertions.assertThat(animePage.toList().get(0).getName()).isEqualTo(expectedName);
     }
 
+    @Test
+    @DisplayName("listAll return a page with the given total without counting the animes when the total is known")
+    void listAll_ReturnPageWithGivenTotalWithoutCountingAnimes_WhenTotalIsKnown() {
+        Page<Anime> animePage = this.animeService.listAll(PageRequest.of(0, 1), 7L);
+
+        Assertions.assertThat(animePage.getContent()).containsExactly(AnimeCreator.createValidAnime());
+        Assertions.assertThat(animePage.getTotalElements()).isEqualTo(7);
+
+        BDDMockito.verify(this.animeRepositoryMock, BDDMockito.never()).count();
+        BDDMockito.verify(this.animeRepositoryMock, BDDMockito.never()).findAll(ArgumentMatchers.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("listSlice return a slice of anime without counting them when successful")
+    void listSlice_ReturnSliceOfAnimeWithoutCountingThem_WhenSuccessful() {
+        Slice<Anime> animeSlice = this.animeService.listSlice(PageRequest.of(0, 1));
+
+        Assertions.assertThat(animeSlice.getContent()).containsExactly(AnimeCreator.createValidAnime());
+        Assertions.assertThat(animeSlice.hasNext()).isTrue();
+
+        BDDMockito.verify(this.animeRepositoryMock, BDDMockito.never()).count();
+        BDDMockito.verifyNoInteractions(this.animeCountEstimatorMock);
+    }
+
+    @Test
+    @DisplayName("listAllEstimated return page of anime with the estimated total when successful")
+    void listAllEstimated_ReturnPageOfAnimeWithEstimatedTotal_WhenSuccessful() {
+        EstimatedPage<Anime> animePage = this.animeService.listAllEstimated(PageRequest.of(0, 1));
+
+        Assertions.assertThat(animePage.getContent()).containsExactly(AnimeCreator.createValidAnime());
+        Assertions.assertThat(animePage.getTotalElements()).isEqualTo(40);
+        Assertions.assertThat(animePage.getTotalPages()).isEqualTo(40);
+        Assertions.assertThat(animePage.isApproximate()).isTrue();
+        Assertions.assertThat(animePage.hasNext()).isTrue();
+    }
+
+    @Test
+    @DisplayName("listAllEstimated keep the total above the animes already seen when the estimate is older than them")
+    void listAllEstimated_KeepTotalAboveAnimesAlreadySeen_WhenEstimateIsOlderThanThem() {
+        BDDMockito.when(this.animeCountEstimatorMock.estimate()).thenReturn(0L);
+
+        EstimatedPage<Anime> animePage = this.animeService.listAllEstimated(PageRequest.of(0, 1));
+
+        Assertions.assertThat(animePage.getTotalElements()).isEqualTo(2);
+        Assertions.assertThat(animePage.isLast()).isFalse();
+    }
+
+    @Test
+    @DisplayName("listViews count the animes only when the page is not the whole table and count is EXACT")
+    void listViews_CountAnimesOnlyWhenPageIsNotWholeTable_WhenCountIsExact() {
+        Set<AnimeField> fields = EnumSet.of(AnimeField.ID, AnimeField.NAME);
+        AnimeView view = new AnimeView(1L, "Boku no Hero", null);
+        BDDMockito.when(this.animeRepositoryMock.findViews(fields, PageRequest.of(0, 2)))
+                .thenReturn(new SliceImpl<>(List.of(view), PageRequest.of(0, 2), false));
+        BDDMockito.when(this.animeRepositoryMock.findViews(fields, PageRequest.of(0, 1)))
+                .thenReturn(new SliceImpl<>(List.of(view), PageRequest.of(0, 1), true));
+        BDDMockito.when(this.animeRepositoryMock.count()).thenReturn(5L);
+
+        Slice<AnimeView> wholeTable = this.animeService.listViews(fields, PageRequest.of(0, 2), PageCount.EXACT);
+
+        Assertions.assertThat(wholeTable).isInstanceOf(Page.class);
+        Assertions.assertThat(((Page<AnimeView>) wholeTable).getTotalElements()).isEqualTo(1);
+        BDDMockito.verify(this.animeRepositoryMock, BDDMockito.never()).count();
+
+        Slice<AnimeView> firstPage = this.animeService.listViews(fields, PageRequest.of(0, 1), PageCount.EXACT);
+
+        Assertions.assertThat(firstPage.getContent()).containsExactly(view);
+        Assertions.assertThat(((Page<AnimeView>) firstPage).getTotalElements()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("listAfterCursor return list of anime without next cursor when there is no next page")
+    void listAfterCursor_ReturnListOfAnimeWithoutNextCursor_WhenThereIsNoNextPage() {
+        String expectedName = AnimeCreator.createValidAnime().getName();
+
+        CursorPage<Anime> animePage = this.animeService.listAfterCursor(null, 1);
+
+        Assertions.assertThat(animePage).isNotNull();
+
+        Assertions.assertThat(animePage.getContent())
+                .isNotNull()
+                .hasSize(1);
+
+        Assertions.assertThat(animePage.getContent().get(0).getName()).isEqualTo(expectedName);
+
+        Assertions.assertThat(animePage.getNextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("listAfterCursor return next cursor that starts after the last anime when there is a next page")
+    void listAfterCursor_ReturnNextCursorStartingAfterLastAnime_WhenThereIsNextPage() {
+        Anime anime = AnimeCreator.createValidAnime();
+        Anime nextAnime = AnimeCreator.createValidUpdatedAnime();
+        nextAnime.setId(2L);
+
+        BDDMockito.when(this.animeRepositoryMock.findByIdGreaterThanOrderByIdAsc(ArgumentMatchers.anyLong(), ArgumentMatchers.any(PageRequest.class)))
+                .thenReturn(List.of(anime, nextAnime));
+
+        CursorPage<Anime> animePage = this.animeService.listAfterCursor(null, 1);
+
+        Assertions.assertThat(animePage.getContent())
+                .hasSize(1)
+                .containsExactly(anime);
+
+        Assertions.assertThat(animePage.getNextCursor()).isNotNull();
+
+        this.animeService.listAfterCursor(animePage.getNextCursor(), 1);
+
+        BDDMockito.verify(this.animeRepositoryMock)
+                .findByIdGreaterThanOrderByIdAsc(anime.getId(), PageRequest.of(0, 2));
+    }
+
+    @Test
+    @DisplayName("listAfterCursor throw BadRequestException when the size is above the maximum page size")
+    void listAfterCursor_ThrowBadRequestException_WhenSizeIsAboveMaximumPageSize() {
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> animeService.listAfterCursor(null, 101))
+                .withMessageContaining("100");
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> animeService.listAfterCursor(null, Integer.MAX_VALUE));
+
+        BDDMockito.verify(this.animeRepositoryMock, BDDMockito.never())
+                .findByIdGreaterThanOrderByIdAsc(ArgumentMatchers.anyLong(), ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("listAfterCursor throw BadRequestException when cursor is invalid")
+    void listAfterCursor_ThrowBadRequestException_WhenCursorIsInvalid() {
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> animeService.listAfterCursor("not a cursor", 1));
+    }
+
     @Test
     @DisplayName("listAllNonPageable return list of anime when successful")
     void listAllNonPageable_ReturnListOfAnime_WhenSuccessful() {
@@ -89,6 +283,22 @@ class AnimeServiceTest {
         Assertions.assertThat(animes.get(0).getName()).isEqualTo(expectedName);
     }
 
+    @Test
+    @DisplayName("forEachAnime consume and detach every anime when successful")
+    void forEachAnime_ConsumeAndDetachEveryAnime_WhenSuccessful() {
+        Anime expectedAnime = AnimeCreator.createValidAnime();
+
+        List<Anime> animes = new ArrayList<>();
+
+        this.animeService.forEachAnime(animes::add);
+
+        Assertions.assertThat(animes)
+                .hasSize(1)
+                .containsExactly(expectedAnime);
+
+        BDDMockito.verify(this.entityManagerMock).detach(expectedAnime);
+    }
+
     @Test
     @DisplayName("findByIdOrThrowBadRequestException return anime when successful")
     void findByIdOrThrowBadRequestException_ReturnAnime_WhenSuccessful() {
@@ -141,6 +351,72 @@ class AnimeServiceTest {
                 .isEmpty();
     }
 
+    @Test
+    @DisplayName("search return page of anime using the prefix query when match is PREFIX")
+    void search_ReturnPageOfAnimeUsingPrefixQuery_WhenMatchIsPrefix() {
+        String expectedName = AnimeCreator.createValidAnime().getName();
+
+        Page<Anime> animePage = this.animeService.search("ani", AnimeNameMatch.PREFIX, PageRequest.of(0, 1));
+
+        Assertions.assertThat(animePage.toList())
+                .isNotNull()
+                .hasSize(1);
+
+        Assertions.assertThat(animePage.toList().get(0).getName()).isEqualTo(expectedName);
+
+        BDDMockito.verify(this.animeRepositoryMock).findByNameStartingWithIgnoreCase("ani", PageRequest.of(0, 1));
+    }
+
+    @Test
+    @DisplayName("search throw BadRequestException when name is blank")
+    void search_ThrowBadRequestException_WhenNameIsBlank() {
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> animeService.search(" ", AnimeNameMatch.CONTAINS, PageRequest.of(0, 1)));
+    }
+
+    @Test
+    @DisplayName("findAllByIds return list of anime when successful")
+    void findAllByIds_ReturnListOfAnime_WhenSuccessful() {
+        List<Anime> animes = animeService.findAllByIds(List.of(1L, 2L));
+
+        Assertions.assertThat(animes)
+                .hasSize(1)
+                .containsExactly(AnimeCreator.createValidAnime());
+    }
+
+    @Test
+    @DisplayName("findAllByIds throw BadRequestException when ids are empty or too many")
+    void findAllByIds_ThrowBadRequestException_WhenIdsAreEmptyOrTooMany() {
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> animeService.findAllByIds(List.of()));
+
+        List<Long> tooMany = new ArrayList<>();
+        for (long id = 1; id <= 101; id++) {
+            tooMany.add(id);
+        }
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> animeService.findAllByIds(tooMany));
+    }
+
+    @Test
+    @DisplayName("suggest return the suggestions of the name index when successful")
+    void suggest_ReturnSuggestionsOfNameIndex_WhenSuccessful() {
+        List<AnimeSuggestionResponseBody> suggestions = List.of(new AnimeSuggestionResponseBody(1L, "Anime Test"));
+        BDDMockito.when(this.animeNameIndexMock.suggest("ani", 5)).thenReturn(suggestions);
+
+        Assertions.assertThat(this.animeService.suggest("ani", 5)).isEqualTo(suggestions);
+    }
+
+    @Test
+    @DisplayName("suggest throw BadRequestException when limit is out of range")
+    void suggest_ThrowBadRequestException_WhenLimitIsOutOfRange() {
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> animeService.suggest("ani", 0));
+
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> animeService.suggest("ani", 51));
+    }
+
     @Test
     @DisplayName("save return anime when successful")
     void save_ReturnAnime_WhenSuccessful() {
@@ -149,21 +425,77 @@ class AnimeServiceTest {
         Assertions.assertThat(anime)
                 .isNotNull()
                 .isEqualTo(AnimeCreator.createValidAnime());
+
+        BDDMockito.verify(this.applicationEventPublisherMock).publishEvent(ArgumentMatchers.any(AnimesChangedEvent.class));
     }
 
     @Test
     @DisplayName("replace does not throw any exception when successful")
     void replace_DoesNotThrowAnyException_WhenSuccessful() {
-        Assertions.assertThatCode(() -> animeService.replace(AnimePutRequestBodyCreator.createAnimePutRequestBody()))
+        Assertions.assertThatCode(() -> animeService.replace(AnimePutRequestBodyCreator.createAnimePutRequestBody(), null))
                 .doesNotThrowAnyException();
     }
 
+    @Test
+    @DisplayName("replace updates the anime with a single statement when the expected version is the stored one")
+    void replace_UpdatesAnimeWithSingleStatement_WhenExpectedVersionIsTheStoredOne() {
+        Assertions.assertThatCode(() -> animeService.replace(AnimePutRequestBodyCreator.createAnimePutRequestBody(), 3L))
+                .doesNotThrowAnyException();
+
+        BDDMockito.verify(this.animeRepositoryMock).updateNameIfVersion(ArgumentMatchers.anyLong(), ArgumentMatchers.anyString(), ArgumentMatchers.eq(3L));
+        BDDMockito.verify(this.animeRepositoryMock, BDDMockito.never()).findById(ArgumentMatchers.anyLong());
+        BDDMockito.verify(this.animeRepositoryMock, BDDMockito.never()).findVersionById(ArgumentMatchers.anyLong());
+        BDDMockito.verify(this.applicationEventPublisherMock).publishEvent(ArgumentMatchers.any(AnimesChangedEvent.class));
+    }
+
     @Test
     @DisplayName("delete does not throw any exception when successful")
     void delete_DoesNotThrowAnyException_WhenSuccessful() {
-        Assertions.assertThatCode(() -> animeService.delete(1L))
+        Assertions.assertThatCode(() -> animeService.delete(1L, null))
                 .doesNotThrowAnyException();
     }
 
-}
+    @Test
+    @DisplayName("replace throw BadRequestException when the anime is not found")
+    void replace_ThrowBadRequestException_WhenAnimeIsNotFound() {
+        BDDMockito.when(this.animeRepositoryMock.updateName(ArgumentMatchers.anyLong(), ArgumentMatchers.anyString()))
+                .thenReturn(0);
+
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> animeService.replace(AnimePutRequestBodyCreator.createAnimePutRequestBody(), null));
+
+        BDDMockito.verifyNoInteractions(this.animeNameIndexMock, this.applicationEventPublisherMock);
+    }
+
+    @Test
+    @DisplayName("delete throw BadRequestException when the anime is not found")
+    void delete_ThrowBadRequestException_WhenAnimeIsNotFound() {
+        BDDMockito.when(this.animeRepositoryMock.findVersionById(ArgumentMatchers.anyLong()))
+                .thenReturn(Optional.empty());
+
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> animeService.delete(1L, 7L));
+
+        BDDMockito.verifyNoInteractions(this.animeNameIndexMock, this.applicationEventPublisherMock);
+    }
+
+    @Test
+    @DisplayName("replace throw PreconditionFailedException when the expected version is not the stored one")
+    void replace_ThrowPreconditionFailedException_WhenExpectedVersionIsNotTheStoredOne() {
+        Assertions.assertThatExceptionOfType(PreconditionFailedException.class)
+                .isThrownBy(() -> animeService.replace(AnimePutRequestBodyCreator.createAnimePutRequestBody(), 7L));
+
+        BDDMockito.verify(this.animeRepositoryMock, BDDMockito.never()).updateName(ArgumentMatchers.anyLong(), ArgumentMatchers.anyString());
+        BDDMockito.verifyNoInteractions(this.applicationEventPublisherMock);
+    }
 
+    @Test
+    @DisplayName("delete throw PreconditionFailedException when the expected version is not the stored one")
+    void delete_ThrowPreconditionFailedException_WhenExpectedVersionIsNotTheStoredOne() {
+        Assertions.assertThatExceptionOfType(PreconditionFailedException.class)
+                .isThrownBy(() -> animeService.delete(1L, 7L));
+
+        BDDMockito.verify(this.animeRepositoryMock, BDDMockito.never()).deleteIfExists(ArgumentMatchers.anyLong());
+        BDDMockito.verifyNoInteractions(this.animeNameIndexMock);
+    }
+}
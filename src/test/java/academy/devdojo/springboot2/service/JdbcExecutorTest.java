@@ -0,0 +1,81 @@
+package academy.devdojo.springboot2.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+@DisplayName("Tests for JDBC Executor")
+class JdbcExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private JdbcExecutor jdbcExecutor;
+
+    @BeforeEach
+    void setUp() {
+        // the pool is never started, only its size is read
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setMaximumPoolSize(3);
+
+        meterRegistry = new SimpleMeterRegistry();
+        // 3 connections minus 2 reserved leaves a single thread
+        jdbcExecutor = new JdbcExecutor(dataSource, meterRegistry, 0, 2, 1);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        jdbcExecutor.destroy();
+    }
+
+    @Test
+    @DisplayName("supply completes with the result of the work when successful")
+    void supply_CompletesWithResultOfWork_WhenSuccessful() {
+        CompletableFuture<String> result = jdbcExecutor.supply(() -> Thread.currentThread().getName());
+
+        Assertions.assertThat(result.join()).startsWith("jdbc-");
+
+        Assertions.assertThat(meterRegistry.get("jdbc.executor.wait").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("supply throws RejectedExecutionException when the threads are busy and the queue is full")
+    void supply_ThrowsRejectedExecutionException_WhenThreadsAreBusyAndQueueIsFull() throws InterruptedException {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> busy = jdbcExecutor.supply(() -> {
+            running.countDown();
+            return awaitQuietly(release);
+        });
+        Assertions.assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Boolean> queued = jdbcExecutor.supply(() -> true);
+
+        Assertions.assertThatExceptionOfType(RejectedExecutionException.class)
+                .isThrownBy(() -> jdbcExecutor.supply(() -> true));
+
+        Assertions.assertThat(meterRegistry.get("executor.queued").tag("name", "jdbc").gauge().value()).isEqualTo(1);
+
+        release.countDown();
+
+        Assertions.assertThat(busy.join()).isTrue();
+        Assertions.assertThat(queued.join()).isTrue();
+        Assertions.assertThat(meterRegistry.get("jdbc.executor.rejected").counter().count()).isEqualTo(1);
+    }
+
+    private static boolean awaitQuietly(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package academy.devdojo.springboot2.service;
+
+import academy.devdojo.springboot2.domain.Usuario;
+import academy.devdojo.springboot2.repository.UsuarioRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@DisplayName("Tests for Usuario Details Service")
+class UsuarioDetailsServiceTest {
+
+    @InjectMocks
+    private UsuarioDetailsService usuarioDetailsService;
+
+    @Mock
+    private UsuarioRepository usuarioRepositoryMock;
+
+    private final Usuario usuario = Usuario.builder()
+            .name("Admin")
+            .username("admin")
+            .password("{noop}test")
+            .authorities("ROLE_ADMIN,ROLE_USER")
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        BDDMockito.when(this.usuarioRepositoryMock.findByUsername(ArgumentMatchers.anyString()))
+                .thenReturn(usuario);
+    }
+
+    @Test
+    @DisplayName("loadUserByUsername return user with parsed authorities when successful")
+    void loadUserByUsername_ReturnUserWithParsedAuthorities_WhenSuccessful() {
+        UserDetails userDetails = this.usuarioDetailsService.loadUserByUsername("admin");
+
+        Assertions.assertThat(userDetails.getUsername()).isEqualTo("admin");
+
+        Assertions.assertThat(userDetails.getAuthorities())
+                .extracting("authority")
+                .containsExactly("ROLE_ADMIN", "ROLE_USER");
+    }
+
+    @Test
+    @DisplayName("loadUserByUsername return the same authorities instance on every call")
+    void loadUserByUsername_ReturnSameAuthoritiesInstance_OnEveryCall() {
+        UserDetails first = this.usuarioDetailsService.loadUserByUsername("admin");
+        UserDetails second = this.usuarioDetailsService.loadUserByUsername("admin");
+
+        Assertions.assertThat(second.getAuthorities()).isSameAs(first.getAuthorities());
+
+        Assertions.assertThatExceptionOfType(UnsupportedOperationException.class)
+                .isThrownBy(() -> first.getAuthorities().clear());
+    }
+
+    @Test
+    @DisplayName("loadUserByUsername throw UsernameNotFoundException when usuario is not found")
+    void loadUserByUsername_ThrowUsernameNotFoundException_WhenUsuarioIsNotFound() {
+        BDDMockito.when(this.usuarioRepositoryMock.findByUsername(ArgumentMatchers.anyString()))
+                .thenReturn(null);
+
+        Assertions.assertThatExceptionOfType(UsernameNotFoundException.class)
+                .isThrownBy(() -> usuarioDetailsService.loadUserByUsername("fake"));
+    }
+}